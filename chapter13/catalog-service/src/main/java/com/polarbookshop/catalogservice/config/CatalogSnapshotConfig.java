@@ -0,0 +1,23 @@
+package com.polarbookshop.catalogservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polarbookshop.catalogservice.domain.BookService;
+import com.polarbookshop.catalogservice.web.CatalogSnapshots;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@Configuration
+@ConditionalOnProperty(prefix = "polar.catalog-snapshot", name = "enabled", havingValue = "true")
+public class CatalogSnapshotConfig {
+
+	@Bean
+	CatalogSnapshots catalogSnapshots(BookService bookService, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+			CatalogSnapshotProperties properties, PlatformTransactionManager transactionManager) {
+		return new CatalogSnapshots(bookService, jdbcTemplate, objectMapper, properties, transactionManager);
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "polar.catalog-snapshot")
+public record CatalogSnapshotProperties (
+
+	/**
+	 * Whether the book listing is served from JSON files written when the catalog changes.
+	 */
+	boolean enabled,
+
+	/**
+	 * Directory of the snapshot files. Only the current and the previous versions are kept.
+	 */
+	Path directory,
+
+	/**
+	 * Number of books in each page file.
+	 */
+	int pageSize,
+
+	/**
+	 * Interval at which the catalog is checked for changes made through other instances.
+	 */
+	Duration refreshInterval
+
+){}
@@ -0,0 +1,26 @@
+package com.polarbookshop.catalogservice.config;
+
+import com.polarbookshop.catalogservice.web.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "polar.concurrency-limit", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+	/**
+	 * The filter runs after Spring Security, so that requests rejected
+	 * for authorization don't take part in the limit.
+	 */
+	@Bean
+	FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+		var registration = new FilterRegistrationBean<>(new ConcurrencyLimitFilter(properties, meterRegistry));
+		registration.addUrlPatterns("/books", "/books/*");
+		return registration;
+	}
+
+}
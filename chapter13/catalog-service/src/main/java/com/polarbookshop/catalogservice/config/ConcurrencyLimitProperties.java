@@ -0,0 +1,40 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "polar.concurrency-limit")
+public record ConcurrencyLimitProperties (
+
+	/**
+	 * Whether requests to the book API are admitted against an adaptive concurrency limit.
+	 */
+	boolean enabled,
+
+	/**
+	 * Limit used until enough requests have been measured.
+	 */
+	int initialLimit,
+
+	/**
+	 * Lowest value the limit can reach.
+	 */
+	int minLimit,
+
+	/**
+	 * Highest value the limit can reach, usually the number of request threads.
+	 */
+	int maxLimit,
+
+	/**
+	 * How much of each new estimate is applied to the limit, between 0 and 1.
+	 */
+	double smoothing,
+
+	/**
+	 * Value of the Retry-After header sent with rejected requests.
+	 */
+	Duration retryAfter
+
+){}
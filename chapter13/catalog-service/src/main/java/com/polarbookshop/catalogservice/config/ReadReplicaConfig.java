@@ -0,0 +1,79 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.time.Clock;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces the single data source with one routing read-only transactions to a replica.
+ * Both pools stay beans, so that they get their own Hikari metrics and health checks.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "polar.read-replica", name = "url")
+public class ReadReplicaConfig {
+
+	@Bean
+	@FlywayDataSource
+	@ConfigurationProperties(prefix = "spring.datasource.hikari")
+	HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+		var dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	/**
+	 * Same pool settings as the primary one under spring.datasource.hikari, like the timeouts,
+	 * except for the ones under polar.read-replica.
+	 */
+	@Bean
+	HikariDataSource replicaDataSource(DataSourceProperties dataSourceProperties, ReadReplicaProperties readReplicaProperties,
+			Environment environment) {
+		var dataSource = new HikariDataSource();
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+		dataSource.setPoolName("replica");
+		dataSource.setJdbcUrl(readReplicaProperties.url());
+		dataSource.setUsername(readReplicaProperties.username() != null
+				? readReplicaProperties.username() : dataSourceProperties.determineUsername());
+		dataSource.setPassword(readReplicaProperties.password() != null
+				? readReplicaProperties.password() : dataSourceProperties.determinePassword());
+		dataSource.setMaximumPoolSize(readReplicaProperties.maximumPoolSize());
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	@Bean
+	ReplicaLagMonitor replicaLagMonitor(HikariDataSource replicaDataSource, ReadReplicaProperties readReplicaProperties,
+			MeterRegistry meterRegistry) {
+		return new ReplicaLagMonitor(replicaDataSource, readReplicaProperties.maxLag(),
+				readReplicaProperties.lagCheckInterval(), meterRegistry);
+	}
+
+	@Bean
+	RecentWriters recentWriters(ReadReplicaProperties readReplicaProperties) {
+		return new RecentWriters(readReplicaProperties.readYourWritesWindow(), Clock.systemUTC());
+	}
+
+	@Bean
+	@Primary
+	DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+			ReplicaLagMonitor replicaLagMonitor, RecentWriters recentWriters, MeterRegistry meterRegistry) {
+		return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+				replicaLagMonitor, recentWriters, meterRegistry));
+	}
+
+}
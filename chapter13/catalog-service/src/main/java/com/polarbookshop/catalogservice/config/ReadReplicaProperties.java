@@ -0,0 +1,40 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "polar.read-replica")
+public record ReadReplicaProperties (
+
+	/**
+	 * JDBC URL of the replica serving read-only transactions. Without it, all queries go to spring.datasource.
+	 */
+	String url,
+
+	String username,
+
+	String password,
+
+	/**
+	 * Size of the replica connection pool.
+	 */
+	int maximumPoolSize,
+
+	/**
+	 * Replication lag beyond which read-only transactions go to the primary database.
+	 */
+	Duration maxLag,
+
+	/**
+	 * Interval at which the replication lag is measured.
+	 */
+	Duration lagCheckInterval,
+
+	/**
+	 * How long the reads of a user go to the primary database after they changed the
+	 * catalog, so that they see their own changes. Zero turns it off.
+	 */
+	Duration readYourWritesWindow
+
+){}
@@ -0,0 +1,63 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.polarbookshop.catalogservice.domain.CatalogChangedEvent;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Remembers the users who recently changed the catalog, whose reads go to the primary
+ * database until the replica has likely caught up. Changes made without a user, like
+ * the demo data, send every read to the primary database for that time. The writers
+ * are only known to the instance that handled the change: a read handled by another
+ * instance may go to a replica that hasn't replayed the change yet, within max-lag.
+ */
+class RecentWriters {
+
+	private static final String ANY_USER = "";
+
+	private final Duration window;
+	private final Clock clock;
+	private final Map<String, Instant> lastWrites = new ConcurrentHashMap<>();
+
+	RecentWriters(Duration window, Clock clock) {
+		this.window = window;
+		this.clock = clock;
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onCatalogChanged(CatalogChangedEvent event) {
+		if (window.isZero()) {
+			return;
+		}
+		var now = clock.instant();
+		lastWrites.values().removeIf(lastWrite -> lastWrite.plus(window).isBefore(now));
+		lastWrites.put(currentUser(), now);
+	}
+
+	boolean wroteRecently() {
+		if (lastWrites.isEmpty()) {
+			return false;
+		}
+		var since = clock.instant().minus(window);
+		return isAfter(lastWrites.get(ANY_USER), since) || isAfter(lastWrites.get(currentUser()), since);
+	}
+
+	private static boolean isAfter(Instant lastWrite, Instant since) {
+		return lastWrite != null && lastWrite.isAfter(since);
+	}
+
+	private static String currentUser() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication != null && authentication.isAuthenticated() ? authentication.getName() : ANY_USER;
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Measures the replication lag of the replica in the background. The replica is
+ * considered behind when the lag exceeds the tolerance or can't be measured.
+ */
+class ReplicaLagMonitor implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+	/**
+	 * Zero when the replica has replayed all it received, since the time of the last
+	 * replayed transaction only grows while the primary is idle. Null when the replica
+	 * isn't streaming from the primary, since it then doesn't know what it's missing.
+	 * Reading the status of the WAL receiver takes the pg_monitor role. Zero on a primary.
+	 */
+	private static final String LAG_QUERY = """
+			select case
+				when not pg_is_in_recovery() then 0
+				when not exists (select 1 from pg_stat_wal_receiver where status = 'streaming') then null
+				when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+				else extract(epoch from now() - pg_last_xact_replay_timestamp()) end
+			""";
+
+	private final JdbcTemplate replica;
+	private final Duration maxLag;
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		var thread = new Thread(runnable, "replica-lag-monitor");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private volatile double lagSeconds = Double.NaN;
+
+	ReplicaLagMonitor(DataSource replica, Duration maxLag, Duration checkInterval, MeterRegistry meterRegistry) {
+		this.replica = new JdbcTemplate(replica);
+		this.maxLag = maxLag;
+		Gauge.builder("polar.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+				.description("Replication lag of the read replica, NaN when it can't be measured")
+				.baseUnit("seconds")
+				.register(meterRegistry);
+		executor.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	boolean isWithinTolerance() {
+		double lag = lagSeconds;
+		return !Double.isNaN(lag) && lag <= maxLag.toMillis() / 1000.0;
+	}
+
+	void check() {
+		try {
+			Double lag = replica.queryForObject(LAG_QUERY, Double.class);
+			if (lag == null && !Double.isNaN(lagSeconds)) {
+				log.warn("The replica isn't streaming from the primary database, reads go to the primary database");
+			}
+			lagSeconds = lag != null ? lag : Double.NaN;
+		}
+		catch (RuntimeException exception) {
+			if (!Double.isNaN(lagSeconds)) {
+				log.warn("Failed to measure the replication lag, reads go to the primary database", exception);
+			}
+			lagSeconds = Double.NaN;
+		}
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replica, unless it's behind or the current user
+ * has just changed the catalog, and everything else to the primary database. It must
+ * be wrapped in a LazyConnectionDataSourceProxy, so that the connection is taken once
+ * the transaction is known to be read-only.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	enum Target { PRIMARY, REPLICA }
+
+	private final ReplicaLagMonitor lagMonitor;
+	private final RecentWriters recentWriters;
+	private final Counter primaryReads;
+	private final Counter replicaReads;
+
+	ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+			RecentWriters recentWriters, MeterRegistry meterRegistry) {
+		this.lagMonitor = lagMonitor;
+		this.recentWriters = recentWriters;
+		setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+		this.primaryReads = readCounter(meterRegistry, Target.PRIMARY);
+		this.replicaReads = readCounter(meterRegistry, Target.REPLICA);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return Target.PRIMARY;
+		}
+		if (lagMonitor.isWithinTolerance() && !recentWriters.wroteRecently()) {
+			replicaReads.increment();
+			return Target.REPLICA;
+		}
+		primaryReads.increment();
+		return Target.PRIMARY;
+	}
+
+	private static Counter readCounter(MeterRegistry meterRegistry, Target target) {
+		return Counter.builder("polar.datasource.reads")
+				.description("Read-only transactions by the database serving them")
+				.tag("target", target.name().toLowerCase())
+				.register(meterRegistry);
+	}
+
+}
@@ -1,15 +1,17 @@
 package com.polarbookshop.catalogservice.domain;
 
+import java.util.Collection;
 import java.util.Optional;
 
 import org.springframework.data.jdbc.repository.query.Modifying;
 import org.springframework.data.jdbc.repository.query.Query;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface BookRepository extends CrudRepository<Book,Long> {
+public interface BookRepository extends PagingAndSortingRepository<Book,Long> {
 
 	Optional<Book> findByIsbn(String isbn);
+	Iterable<Book> findAllByIsbnIn(Collection<String> isbns);
 	boolean existsByIsbn(String isbn);
 
 	@Modifying
@@ -1,36 +1,65 @@
 package com.polarbookshop.catalogservice.domain;
 
+import java.util.Collection;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional(readOnly = true)
     public Iterable<Book> viewBookList() {
         return bookRepository.findAll();
     }
 
+    /**
+     * Returns a page of the books ordered by ID, the same order as the catalog snapshot.
+     */
+    @Transactional(readOnly = true)
+    public Iterable<Book> viewBookPage(int page, int size) {
+        return bookRepository.findAll(PageRequest.of(page, size, Sort.by("id"))).getContent();
+    }
+
+    @Transactional(readOnly = true)
+    public Iterable<Book> viewBooksByIsbn(Collection<String> isbns) {
+        return bookRepository.findAllByIsbnIn(isbns);
+    }
+
+    @Transactional(readOnly = true)
     public Book viewBookDetails(String isbn) {
         return bookRepository.findByIsbn(isbn)
                 .orElseThrow(() -> new BookNotFoundException(isbn));
     }
 
+    @Transactional
     public Book addBookToCatalog(Book book) {
         if (bookRepository.existsByIsbn(book.isbn())) {
             throw new BookAlreadyExistsException(book.isbn());
         }
-        return bookRepository.save(book);
+        var savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(new CatalogChangedEvent(book.isbn()));
+        return savedBook;
     }
 
+    @Transactional
     public void removeBookFromCatalog(String isbn) {
         bookRepository.deleteByIsbn(isbn);
+        eventPublisher.publishEvent(new CatalogChangedEvent(isbn));
     }
 
+	@Transactional
 	public Book editBookDetails(String isbn, Book book) {
 		return bookRepository.findByIsbn(isbn)
 				.map(existingBook -> {
@@ -46,7 +75,9 @@ public class BookService {
 							existingBook.createdBy(),
 							existingBook.lastModifiedBy(),
 							existingBook.version());
-					return bookRepository.save(bookToUpdate);
+					var savedBook = bookRepository.save(bookToUpdate);
+					eventPublisher.publishEvent(new CatalogChangedEvent(isbn));
+					return savedBook;
 				})
 				.orElseGet(() -> addBookToCatalog(book));
 	}
@@ -0,0 +1,10 @@
+package com.polarbookshop.catalogservice.domain;
+
+/**
+ * Published after a book has been added, edited or removed through this instance.
+ */
+public record CatalogChangedEvent (
+
+	String isbn
+
+){}
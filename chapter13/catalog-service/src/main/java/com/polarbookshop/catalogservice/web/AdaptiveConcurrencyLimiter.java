@@ -0,0 +1,85 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows the gradient between the long-term and the latest
+ * response time. While requests are as fast as usual, the limit grows by a queue
+ * allowance of its square root; as soon as they slow down because they queue for
+ * threads or database connections, it shrinks in proportion, so that excess requests
+ * are rejected before they wait.
+ */
+class AdaptiveConcurrencyLimiter {
+
+	private static final double LONG_WINDOW = 100;
+	private static final double TOLERANCE = 1.5;
+	private static final double MIN_GRADIENT = 0.5;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final double smoothing;
+
+	private final AtomicInteger inflight = new AtomicInteger();
+	private volatile double limit;
+	private double longRtt;
+
+	AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.smoothing = smoothing;
+		this.limit = initialLimit;
+	}
+
+	/**
+	 * Returns the number of requests in flight including this one,
+	 * or -1 if the request must be rejected.
+	 */
+	int tryAcquire() {
+		int current;
+		do {
+			current = inflight.get();
+			if (current >= (int) limit) {
+				return -1;
+			}
+		} while (!inflight.compareAndSet(current, current + 1));
+		return current + 1;
+	}
+
+	/**
+	 * Releases a request admitted by {@link #tryAcquire()} and adjusts the limit
+	 * with its response time.
+	 */
+	void release(long rttNanos, int inflightAtStart) {
+		inflight.decrementAndGet();
+		update(rttNanos, inflightAtStart);
+	}
+
+	int limit() {
+		return (int) limit;
+	}
+
+	int inflight() {
+		return inflight.get();
+	}
+
+	private synchronized void update(long rttNanos, int inflightAtStart) {
+		double shortRtt = Math.max(rttNanos, 1);
+		longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) / LONG_WINDOW;
+
+		// After an overload, bring the baseline back down quickly instead of treating slow responses as normal
+		if (longRtt / shortRtt > 2) {
+			longRtt *= 0.95;
+		}
+
+		// With few requests in flight, latency says nothing about the limit
+		if (inflightAtStart < limit / 2) {
+			return;
+		}
+
+		double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+		double estimate = limit * gradient + Math.sqrt(limit);
+		double smoothed = limit * (1 - smoothing) + estimate * smoothing;
+		limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+	}
+
+}
@@ -1,13 +1,25 @@
 package com.polarbookshop.catalogservice.web;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 
 import com.polarbookshop.catalogservice.domain.Book;
 import com.polarbookshop.catalogservice.domain.BookService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,26 +27,68 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("books")
+@Validated
 public class BookController {
     private static final Logger log = LoggerFactory.getLogger(BookController.class);
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * The listing is the same for everyone, so the gateway may keep it for a few seconds.
+     * Set before the body is written, it replaces the no-store default of Spring Security.
+     */
+    static final String LISTING_CACHE_CONTROL = CacheControl.maxAge(Duration.ofSeconds(5)).cachePublic().getHeaderValue();
+
     private final BookService bookService;
+    private final ObjectProvider<CatalogSnapshots> catalogSnapshots;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, ObjectProvider<CatalogSnapshots> catalogSnapshots) {
         this.bookService = bookService;
+        this.catalogSnapshots = catalogSnapshots;
     }
 
+    /**
+     * Sends the current snapshot file when there is one, or else reads the books from the database.
+     */
     @GetMapping
-    public Iterable<Book> get() {
+    public Iterable<Book> get(HttpServletRequest request, HttpServletResponse response) throws IOException {
         log.info("Fetching the list of books in the catalog.");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, LISTING_CACHE_CONTROL);
+        var snapshot = currentSnapshot();
+        if (snapshot != null) {
+            SnapshotFileSender.send(snapshot.full(), request, response);
+            return null;
+        }
         return bookService.viewBookList();
     }
 
+    @GetMapping(params = "page")
+    public Iterable<Book> getPage(@RequestParam @Min(0) int page,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) @Min(1) @Max(MAX_PAGE_SIZE) int size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.info("Fetching page {} of the books in the catalog.", page);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, LISTING_CACHE_CONTROL);
+        var snapshot = currentSnapshot();
+        if (snapshot != null && size == snapshot.pageSize() && page < snapshot.pages().size()) {
+            SnapshotFileSender.send(snapshot.pages().get(page), request, response);
+            return null;
+        }
+        return bookService.viewBookPage(page, size);
+    }
+
+    @GetMapping(params = "isbn")
+    public Iterable<Book> getByIsbns(@RequestParam List<String> isbn) {
+        log.info("Fetching the books with ISBN {} in the catalog.", isbn);
+        return bookService.viewBooksByIsbn(isbn);
+    }
+
     @GetMapping("{isbn}")
     public Book getByIsbn(@PathVariable String isbn) {
         log.info("Fetching the book with ISBN {} in the catalog.", isbn);
@@ -61,4 +115,9 @@ public class BookController {
         return bookService.editBookDetails(isbn, book);
     }
 
+    private CatalogSnapshot currentSnapshot() {
+        var snapshots = catalogSnapshots.getIfAvailable();
+        return snapshots != null ? snapshots.current() : null;
+    }
+
 }
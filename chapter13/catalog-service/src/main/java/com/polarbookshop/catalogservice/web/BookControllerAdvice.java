@@ -3,6 +3,9 @@ package com.polarbookshop.catalogservice.web;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.validation.ConstraintViolationException;
+import javax.validation.Path;
+
 import com.polarbookshop.catalogservice.domain.BookAlreadyExistsException;
 import com.polarbookshop.catalogservice.domain.BookNotFoundException;
 
@@ -40,4 +43,18 @@ public class BookControllerAdvice {
 		return errors;
 	}
 
+	@ExceptionHandler(ConstraintViolationException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public Map<String, String> handleConstraintViolations(ConstraintViolationException ex) {
+		var errors = new HashMap<String, String>();
+		ex.getConstraintViolations().forEach(violation -> {
+			String parameterName = null;
+			for (Path.Node node : violation.getPropertyPath()) {
+				parameterName = node.getName();
+			}
+			errors.put(parameterName, violation.getMessage());
+		});
+		return errors;
+	}
+
 }
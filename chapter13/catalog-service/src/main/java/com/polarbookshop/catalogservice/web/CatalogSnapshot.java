@@ -0,0 +1,44 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Book listing written to files at one version of the catalog, in full and in pages.
+ */
+public record CatalogSnapshot (
+
+	/**
+	 * Hash of the full listing, the same on every instance for the same catalog.
+	 */
+	String version,
+
+	SnapshotFile full,
+
+	List<SnapshotFile> pages,
+
+	int pageSize
+
+){
+
+	/**
+	 * A JSON document, also written compressed with gzip.
+	 */
+	public record SnapshotFile (
+
+		Path identity,
+
+		long identityLength,
+
+		Path gzip,
+
+		long gzipLength,
+
+		/**
+		 * Entity tag of the uncompressed document, whose compressed variant gets a "-gzip" suffix.
+		 */
+		String etag
+
+	){}
+
+}
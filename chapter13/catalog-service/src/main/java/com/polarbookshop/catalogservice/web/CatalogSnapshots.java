@@ -0,0 +1,256 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polarbookshop.catalogservice.config.CatalogSnapshotProperties;
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookService;
+import com.polarbookshop.catalogservice.domain.CatalogChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writes the book listing to JSON files whenever the catalog changes, so that reading
+ * it costs a file transfer instead of a query and a serialization. Changes made
+ * through this instance are picked up once committed, and changes made through the
+ * others at the next check of the catalog fingerprint. Until the snapshot of a change
+ * is written, the listing is read from the database.
+ */
+public class CatalogSnapshots implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogSnapshots.class);
+
+	private static final String FINGERPRINT_QUERY =
+			"select count(*), coalesce(sum(id), 0), coalesce(sum(version), 0), max(last_modified_date) from book";
+
+	private final BookService bookService;
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectMapper objectMapper;
+	private final CatalogSnapshotProperties properties;
+	private final TransactionTemplate transaction;
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		var thread = new Thread(runnable, "catalog-snapshots");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicBoolean rebuildPending = new AtomicBoolean();
+	private final AtomicLong changes = new AtomicLong();
+
+	private volatile CatalogSnapshot current;
+	private CatalogSnapshot lastWritten;
+	private String fingerprint;
+
+	public CatalogSnapshots(BookService bookService, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+			CatalogSnapshotProperties properties, PlatformTransactionManager transactionManager) {
+		this.bookService = bookService;
+		this.jdbcTemplate = jdbcTemplate;
+		this.objectMapper = objectMapper;
+		this.properties = properties;
+		this.transaction = new TransactionTemplate(transactionManager);
+		this.transaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+	}
+
+	/**
+	 * Returns the last snapshot written, or null until the first one is ready.
+	 */
+	@Nullable
+	public CatalogSnapshot current() {
+		return current;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		long interval = properties.refreshInterval().toMillis();
+		executor.scheduleWithFixedDelay(() -> refresh(false), 0, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onCatalogChanged(CatalogChangedEvent event) {
+		synchronized (this) {
+			changes.incrementAndGet();
+			current = null;
+		}
+		// Several changes in a row lead to one rebuild
+		if (rebuildPending.compareAndSet(false, true)) {
+			executor.execute(() -> {
+				rebuildPending.set(false);
+				refresh(true);
+			});
+		}
+	}
+
+	/**
+	 * The fingerprint and the books are read from the primary database, even when reads
+	 * go to a replica, so that a snapshot never goes back to a state older than the one
+	 * it replaces. They are read in the same repeatable read transaction, so they match.
+	 * A snapshot read before a change isn't published, the rebuild of the change replacing it.
+	 */
+	private void refresh(boolean force) {
+		long seenChanges = changes.get();
+		try {
+			var catalog = transaction.execute(status -> {
+				String latestFingerprint = readFingerprint();
+				if (!force && latestFingerprint.equals(fingerprint)) {
+					return null;
+				}
+				var books = StreamSupport.stream(bookService.viewBookList().spliterator(), false)
+						.sorted(Comparator.comparing(Book::id))
+						.toList();
+				return Map.entry(latestFingerprint, books);
+			});
+			if (catalog == null) {
+				return;
+			}
+			String latestFingerprint = catalog.getKey();
+			var books = catalog.getValue();
+			var snapshot = write(books);
+			CatalogSnapshot previous;
+			synchronized (this) {
+				if (changes.get() != seenChanges) {
+					return;
+				}
+				previous = lastWritten;
+				lastWritten = snapshot;
+				current = snapshot;
+			}
+			fingerprint = latestFingerprint;
+			if (previous == null || !previous.version().equals(snapshot.version())) {
+				log.info("Catalog snapshot {} written with {} books", snapshot.version(), books.size());
+				deleteOlderThan(previous, snapshot);
+			}
+		}
+		catch (RuntimeException | IOException exception) {
+			log.warn("Failed to write the catalog snapshot, the listing is read from the database meanwhile", exception);
+			current = null;
+			fingerprint = null;
+		}
+	}
+
+	private String readFingerprint() {
+		return jdbcTemplate.queryForObject(FINGERPRINT_QUERY, (resultSet, row) -> resultSet.getLong(1) + ":"
+				+ resultSet.getLong(2) + ":" + resultSet.getLong(3) + ":" + resultSet.getTimestamp(4));
+	}
+
+	CatalogSnapshot write(List<Book> books) throws IOException {
+		Files.createDirectories(properties.directory());
+		byte[] json = objectMapper.writeValueAsBytes(books);
+		String version = hash(json);
+		var full = writeFile(version, "books-" + version, json, "\"" + version + "\"");
+		var pages = new ArrayList<CatalogSnapshot.SnapshotFile>();
+		for (int page = 0; page * properties.pageSize() < books.size(); page++) {
+			var pageBooks = books.subList(page * properties.pageSize(), Math.min(books.size(), (page + 1) * properties.pageSize()));
+			pages.add(writeFile(version, "books-" + version + "-page-" + page, json(pageBooks),
+					"\"" + version + "-p" + page + "\""));
+		}
+		return new CatalogSnapshot(version, full, List.copyOf(pages), properties.pageSize());
+	}
+
+	private CatalogSnapshot.SnapshotFile writeFile(String version, String name, byte[] json, String etag) throws IOException {
+		Path identity = properties.directory().resolve(name + ".json");
+		Path gzip = properties.directory().resolve(name + ".json.gz");
+		byte[] compressed = gzip(json);
+		// Files of the same version have the same content, so existing ones are reused
+		if (!Files.exists(identity) || Files.size(identity) != json.length) {
+			atomicWrite(identity, json);
+		}
+		if (!Files.exists(gzip) || Files.size(gzip) != compressed.length) {
+			atomicWrite(gzip, compressed);
+		}
+		return new CatalogSnapshot.SnapshotFile(identity, json.length, gzip, compressed.length, etag);
+	}
+
+	private void atomicWrite(Path target, byte[] content) throws IOException {
+		Path temporary = Files.createTempFile(properties.directory(), "snapshot", ".tmp");
+		try {
+			Files.write(temporary, content);
+			Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Keeps the previous version, whose files may still be in transfer.
+	 */
+	private void deleteOlderThan(@Nullable CatalogSnapshot previous, CatalogSnapshot current) throws IOException {
+		var kept = new ArrayList<String>();
+		kept.add("books-" + current.version());
+		if (previous != null) {
+			kept.add("books-" + previous.version());
+		}
+		try (var files = Files.list(properties.directory())) {
+			for (Path file : files.toList()) {
+				String name = file.getFileName().toString();
+				if (name.startsWith("books-") && kept.stream().noneMatch(name::startsWith)) {
+					Files.deleteIfExists(file);
+				}
+			}
+		}
+	}
+
+	private byte[] json(List<Book> books) {
+		try {
+			return objectMapper.writeValueAsBytes(books);
+		}
+		catch (JsonProcessingException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		var output = new ByteArrayOutputStream(content.length / 4);
+		try (var gzip = new GZIPOutputStream(output)) {
+			gzip.write(content);
+		}
+		return output.toByteArray();
+	}
+
+	private static String hash(byte[] content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+			return HexFormat.of().formatHex(digest, 0, 8);
+		}
+		catch (NoSuchAlgorithmException exception) {
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.polarbookshop.catalogservice.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Admits requests to the book API against an adaptive concurrency limit and rejects
+ * the others right away with 503, rather than letting them wait for a database
+ * connection until they time out.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	private final AdaptiveConcurrencyLimiter limiter;
+	private final String retryAfter;
+	private final Counter rejected;
+
+	public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+		this.limiter = new AdaptiveConcurrencyLimiter(properties.initialLimit(), properties.minLimit(),
+				properties.maxLimit(), properties.smoothing());
+		this.retryAfter = String.valueOf(Math.max(1, properties.retryAfter().toSeconds()));
+		Gauge.builder("polar.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+				.description("Current limit of concurrent requests to the book API")
+				.register(meterRegistry);
+		Gauge.builder("polar.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::inflight)
+				.description("Requests to the book API being processed")
+				.register(meterRegistry);
+		this.rejected = Counter.builder("polar.concurrency.rejected")
+				.description("Requests to the book API rejected because of the concurrency limit")
+				.register(meterRegistry);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		int inflight = limiter.tryAcquire();
+		if (inflight < 0) {
+			rejected.increment();
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			limiter.release(System.nanoTime() - start, inflight);
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Sends a snapshot file with the sendfile support of Tomcat, which hands the file to the
+ * kernel once the request has been handled, without copying it through the JVM. Other
+ * containers get the file copied to the response. Since sendfile bypasses the compression
+ * of the container, the gzip variant is sent to the clients that accept it.
+ */
+final class SnapshotFileSender {
+
+	static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+	static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+	static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+	static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+	private SnapshotFileSender() {
+	}
+
+	static void send(CatalogSnapshot.SnapshotFile file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		boolean gzip = acceptsGzip(request);
+		String etag = gzip ? file.etag().replaceFirst("\"$", "-gzip\"") : file.etag();
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+			return;
+		}
+		Path path = gzip ? file.gzip() : file.identity();
+		long length = gzip ? file.gzipLength() : file.identityLength();
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setContentLengthLong(length);
+		if (gzip) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+			request.setAttribute(SENDFILE_FILENAME_ATTR, path.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START_ATTR, 0L);
+			request.setAttribute(SENDFILE_END_ATTR, length);
+		}
+		else {
+			Files.copy(path, response.getOutputStream());
+		}
+	}
+
+	private static boolean acceptsGzip(HttpServletRequest request) {
+		var values = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+		while (values != null && values.hasMoreElements()) {
+			for (String coding : values.nextElement().split(",")) {
+				var parts = coding.trim().split(";");
+				if (parts[0].trim().equalsIgnoreCase("gzip")
+						&& !(parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?"))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+}
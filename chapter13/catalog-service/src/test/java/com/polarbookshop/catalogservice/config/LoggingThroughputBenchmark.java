@@ -0,0 +1,136 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.polarbookshop.commons.logging.LogSamplingFilter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Compares how many INFO events per second the request threads can log with the
+ * synchronous appender and with the configuration in logback-spring.xml.
+ * Run with ./gradlew loggingBenchmark, the report is in build/reports/logging.
+ */
+@Tag("benchmark")
+class LoggingThroughputBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingThroughputBenchmark.class);
+    private static final int THREADS = 8;
+    private static final int EVENTS_PER_THREAD = 50_000;
+    private static final String PATTERN =
+            "%d{yyyy-MM-dd HH:mm:ss.SSS} %5p [catalog-service,%X{trace_id},%X{span_id}] %t --- %-40.40logger{39} : %m%n";
+
+    @TempDir
+    Path logDir;
+
+    @Test
+    void compareSynchronousAndAsynchronousLogging() throws Exception {
+        var results = new ArrayList<String>();
+        results.add(run("synchronous", context -> fileAppender(context, "sync.log")));
+        results.add(run("asynchronous", context -> asyncAppender(context, fileAppender(context, "async.log"), false)));
+        results.add(run("asynchronous + sampling", context -> asyncAppender(context, fileAppender(context, "sampled.log"), true)));
+
+        var report = Path.of("build", "reports", "logging", "throughput.txt");
+        Files.createDirectories(report.getParent());
+        Files.write(report, results);
+        results.forEach(log::info);
+    }
+
+    private String run(String name, Function<LoggerContext, Appender<ILoggingEvent>> appenderFactory) throws InterruptedException {
+        // The first run warms up the JIT, only the second one is measured
+        measure(appenderFactory);
+        double eventsPerSecond = measure(appenderFactory);
+        return String.format("%s: %,.0f events/s across %d threads", name, eventsPerSecond, THREADS);
+    }
+
+    private double measure(Function<LoggerContext, Appender<ILoggingEvent>> appenderFactory) throws InterruptedException {
+        var context = new LoggerContext();
+        var appender = appenderFactory.apply(context);
+        var logger = context.getLogger("com.polarbookshop.catalogservice.web.BookController");
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+
+        var start = new CountDownLatch(1);
+        var threads = new ArrayList<Thread>();
+        for (int i = 0; i < THREADS; i++) {
+            var thread = new Thread(() -> {
+                MDC.put("trace_id", "4bf92f3577b34da6a3ce929d0e0e4736");
+                MDC.put("span_id", "00f067aa0ba902b7");
+                awaitQuietly(start);
+                for (int event = 0; event < EVENTS_PER_THREAD; event++) {
+                    logger.info("Fetching the book with ISBN {} in the catalog.", "1234567890");
+                }
+                MDC.clear();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - startTime;
+        context.stop();
+        return THREADS * EVENTS_PER_THREAD / (elapsed / 1_000_000_000.0);
+    }
+
+    private Appender<ILoggingEvent> fileAppender(LoggerContext context, String fileName) {
+        var encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        var appender = new FileAppender<ILoggingEvent>();
+        appender.setContext(context);
+        appender.setFile(logDir.resolve(fileName).toString());
+        appender.setAppend(false);
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    private static Appender<ILoggingEvent> asyncAppender(LoggerContext context, Appender<ILoggingEvent> delegate, boolean sampling) {
+        var appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(8192);
+        appender.setDiscardingThreshold(1024);
+        appender.setIncludeCallerData(false);
+        appender.setNeverBlock(true);
+        appender.addAppender(delegate);
+        if (sampling) {
+            var filter = new LogSamplingFilter();
+            filter.start();
+            appender.addFilter(filter);
+        }
+        appender.start();
+        return appender;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
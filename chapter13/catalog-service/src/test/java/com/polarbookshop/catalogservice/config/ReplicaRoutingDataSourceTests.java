@@ -0,0 +1,76 @@
+package com.polarbookshop.catalogservice.config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import javax.sql.DataSource;
+
+import com.polarbookshop.catalogservice.domain.CatalogChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class ReplicaRoutingDataSourceTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReplicaLagMonitor lagMonitor = mock(ReplicaLagMonitor.class);
+    private final RecentWriters recentWriters = new RecentWriters(Duration.ofSeconds(5),
+            Clock.fixed(Instant.parse("2026-10-18T10:00:00Z"), ZoneOffset.UTC));
+    private final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(mock(DataSource.class),
+            mock(DataSource.class), lagMonitor, recentWriters, meterRegistry);
+
+    @AfterEach
+    void clean() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void whenReadOnlyTransactionThenReplica() {
+        given(lagMonitor.isWithinTolerance()).willReturn(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Target.REPLICA);
+        assertThat(meterRegistry.get("polar.datasource.reads").tag("target", "replica").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void whenReadWriteTransactionThenPrimary() {
+        given(lagMonitor.isWithinTolerance()).willReturn(true);
+
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Target.PRIMARY);
+    }
+
+    @Test
+    void whenReplicaBehindThenPrimary() {
+        given(lagMonitor.isWithinTolerance()).willReturn(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Target.PRIMARY);
+        assertThat(meterRegistry.get("polar.datasource.reads").tag("target", "primary").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void whenUserChangedCatalogThenTheirReadsGoToPrimary() {
+        given(lagMonitor.isWithinTolerance()).willReturn(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("isabelle", null, "employee"));
+
+        recentWriters.onCatalogChanged(new CatalogChangedEvent("1234567891"));
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Target.PRIMARY);
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("bjorn", null, "customer"));
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.Target.REPLICA);
+    }
+
+}
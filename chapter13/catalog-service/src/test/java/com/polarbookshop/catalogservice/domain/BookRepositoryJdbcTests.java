@@ -1,5 +1,6 @@
 package com.polarbookshop.catalogservice.domain;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -61,6 +62,18 @@ class BookRepositoryJdbcTests {
         assertThat(actualBook).isEmpty();
     }
 
+    @Test
+    void findAllBooksByIsbn() {
+        var book1 = Book.of("1234561241", "Title", "Author", 12.90, "Polarsophia");
+        var book2 = Book.of("1234561242", "Another Title", "Author", 12.90, "Polarsophia");
+        jdbcAggregateTemplate.insert(book1);
+        jdbcAggregateTemplate.insert(book2);
+
+        Iterable<Book> actualBooks = bookRepository.findAllByIsbnIn(List.of(book1.isbn(), book2.isbn(), "1234561243"));
+
+        assertThat(actualBooks).extracting(Book::isbn).containsExactlyInAnyOrder(book1.isbn(), book2.isbn());
+    }
+
     @Test
     void existsByIsbnWhenExisting() {
         var bookIsbn = "1234561239";
@@ -0,0 +1,68 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofMillis(200).toNanos();
+
+    @Test
+    void whenLimitReachedThenRequestRejected() {
+        var limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.2);
+
+        assertThat(limiter.tryAcquire()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isEqualTo(2);
+        assertThat(limiter.tryAcquire()).isEqualTo(-1);
+    }
+
+    @Test
+    void whenLatencyStableUnderLoadThenLimitGrows() {
+        var limiter = new AdaptiveConcurrencyLimiter(10, 2, 50, 0.2);
+
+        runAtLimit(limiter, FAST, 50);
+
+        assertThat(limiter.limit()).isGreaterThan(10);
+    }
+
+    @Test
+    void whenLatencyIncreasesThenLimitShrinks() {
+        var limiter = new AdaptiveConcurrencyLimiter(20, 2, 50, 0.2);
+        runAtLimit(limiter, FAST, 20);
+        int limitBeforeOverload = limiter.limit();
+
+        runAtLimit(limiter, SLOW, 20);
+
+        assertThat(limiter.limit()).isLessThan(limitBeforeOverload).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void whenFewRequestsInFlightThenLimitUnchanged() {
+        var limiter = new AdaptiveConcurrencyLimiter(10, 2, 50, 0.2);
+
+        for (int i = 0; i < 50; i++) {
+            int inflight = limiter.tryAcquire();
+            limiter.release(i % 2 == 0 ? FAST : SLOW, inflight);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(10);
+        assertThat(limiter.inflight()).isZero();
+    }
+
+    private static void runAtLimit(AdaptiveConcurrencyLimiter limiter, long rttNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int limit = limiter.limit();
+            for (int i = 0; i < limit; i++) {
+                limiter.tryAcquire();
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.release(rttNanos, limit);
+            }
+        }
+    }
+
+}
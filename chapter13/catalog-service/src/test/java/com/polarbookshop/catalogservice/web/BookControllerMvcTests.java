@@ -1,5 +1,7 @@
 package com.polarbookshop.catalogservice.web;
 
+import java.util.List;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.polarbookshop.catalogservice.config.SecurityConfig;
 import com.polarbookshop.catalogservice.domain.Book;
@@ -11,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
@@ -22,6 +25,9 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookController.class)
@@ -54,6 +60,59 @@ class BookControllerMvcTests {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void whenGetBooksThenPubliclyCacheable() throws Exception {
+        given(bookService.viewBookList()).willReturn(List.of(Book.of("7373731394", "Title", "Author", 9.90, "Polarsophia")));
+        mockMvc
+                .perform(get("/books"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=5, public"));
+    }
+
+    @Test
+    void whenGetNegativePageThenShouldReturn400() throws Exception {
+        mockMvc
+                .perform(get("/books").param("page", "-1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.page").exists());
+    }
+
+    @Test
+    void whenGetPageLargerThanMaxThenShouldReturn400() throws Exception {
+        mockMvc
+                .perform(get("/books").param("page", "0").param("size", "" + (BookController.MAX_PAGE_SIZE + 1)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.size").exists());
+    }
+
+    @Test
+    void whenGetEmptyPageThenShouldReturn400() throws Exception {
+        mockMvc
+                .perform(get("/books").param("page", "0").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenGetBookThenNotCacheable() throws Exception {
+        var isbn = "7373731394";
+        given(bookService.viewBookDetails(isbn)).willReturn(Book.of(isbn, "Title", "Author", 9.90, "Polarsophia"));
+        mockMvc
+                .perform(get("/books/" + isbn))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, max-age=0, must-revalidate"));
+    }
+
+    @Test
+    void whenGetBooksByIsbnThenShouldReturn200() throws Exception {
+        var isbns = List.of("7373731394", "7373731395");
+        var expectedBooks = List.of(Book.of(isbns.get(0), "Title", "Author", 9.90, "Polarsophia"));
+        given(bookService.viewBooksByIsbn(isbns)).willReturn(expectedBooks);
+        mockMvc
+                .perform(get("/books").param("isbn", String.join(",", isbns)))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(expectedBooks)));
+    }
+
     @Test
     void whenGetBookExistingAndNotAuthenticatedThenShouldReturn200() throws Exception {
         var isbn = "7373731394";
@@ -0,0 +1,104 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.polarbookshop.catalogservice.config.CatalogSnapshotProperties;
+import com.polarbookshop.catalogservice.domain.Book;
+import com.polarbookshop.catalogservice.domain.BookService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CatalogSnapshotsTests {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final List<Book> books = List.of(
+            new Book(1L, "1234567891", "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 0),
+            new Book(2L, "1234567892", "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 0),
+            new Book(3L, "1234567893", "Title", "Author", 9.90, "Polarsophia", null, null, null, null, 0));
+
+    @Test
+    void whenWrittenThenFullListingAndPagesInFiles() throws IOException {
+        var snapshot = catalogSnapshots().write(books);
+
+        assertThat(objectMapper.readTree(Files.readAllBytes(snapshot.full().identity()))).hasSize(3);
+        assertThat(snapshot.pages()).hasSize(2);
+        assertThat(objectMapper.readTree(Files.readAllBytes(snapshot.pages().get(1).identity()))).hasSize(1);
+        assertThat(snapshot.full().etag()).isEqualTo("\"" + snapshot.version() + "\"");
+    }
+
+    @Test
+    void whenSameBooksThenSameVersion() throws IOException {
+        var first = catalogSnapshots().write(books);
+        var second = catalogSnapshots().write(books);
+        var changed = catalogSnapshots().write(books.subList(0, 2));
+
+        assertThat(second.version()).isEqualTo(first.version());
+        assertThat(changed.version()).isNotEqualTo(first.version());
+    }
+
+    @Test
+    void whenSentThenFileHandedToSendfile() throws IOException {
+        var snapshot = catalogSnapshots().write(books);
+        var request = new MockHttpServletRequest("GET", "/books");
+        request.setAttribute(SnapshotFileSender.SENDFILE_SUPPORTED_ATTR, Boolean.TRUE);
+        var response = new MockHttpServletResponse();
+
+        SnapshotFileSender.send(snapshot.full(), request, response);
+
+        assertThat(request.getAttribute(SnapshotFileSender.SENDFILE_FILENAME_ATTR))
+                .isEqualTo(snapshot.full().identity().toAbsolutePath().toString());
+        assertThat(response.getContentLengthLong()).isEqualTo(snapshot.full().identityLength());
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(snapshot.full().etag());
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void whenGzipAcceptedThenCompressedFileSent() throws IOException {
+        var snapshot = catalogSnapshots().write(books);
+        var request = new MockHttpServletRequest("GET", "/books");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        var response = new MockHttpServletResponse();
+
+        SnapshotFileSender.send(snapshot.full(), request, response);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getContentAsByteArray()).isEqualTo(Files.readAllBytes(snapshot.full().gzip()));
+    }
+
+    @Test
+    void whenEtagMatchesThenNotModified() throws IOException {
+        var snapshot = catalogSnapshots().write(books);
+        var request = new MockHttpServletRequest("GET", "/books");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, snapshot.full().etag());
+        var response = new MockHttpServletResponse();
+
+        SnapshotFileSender.send(snapshot.full(), request, response);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    private CatalogSnapshots catalogSnapshots() {
+        var properties = new CatalogSnapshotProperties(true, directory, 2, Duration.ofSeconds(5));
+        return new CatalogSnapshots(mock(BookService.class), null, objectMapper, properties,
+                mock(PlatformTransactionManager.class));
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.polarbookshop.catalogservice.web;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.Filter;
+import javax.servlet.http.HttpServlet;
+
+import com.polarbookshop.catalogservice.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+            new ConcurrencyLimitProperties(true, 1, 1, 10, 0.2, Duration.ofSeconds(2)), meterRegistry);
+
+    @Test
+    void whenUnderLimitThenRequestProcessed() throws Exception {
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/books"), response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("polar.concurrency.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    void whenLimitReachedThenServiceUnavailableWithRetryAfter() throws Exception {
+        var rejectedResponse = new AtomicReference<MockHttpServletResponse>();
+        // The second request arrives while the first one is still being processed
+        Filter concurrentRequest = (request, response, chain) -> {
+            var concurrentResponse = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/books"), concurrentResponse, new MockFilterChain());
+            rejectedResponse.set(concurrentResponse);
+        };
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/books"), new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {}, concurrentRequest));
+
+        assertThat(rejectedResponse.get().getStatus()).isEqualTo(503);
+        assertThat(rejectedResponse.get().getHeader("Retry-After")).isEqualTo("2");
+        assertThat(meterRegistry.get("polar.concurrency.rejected").counter().count()).isEqualTo(1);
+    }
+
+}
@@ -2,10 +2,12 @@ package com.polarbookshop.configservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.cloud.config.server.EnableConfigServer;
 
 @SpringBootApplication
 @EnableConfigServer
+@ConfigurationPropertiesScan
 public class ConfigServiceApplication {
 
 	public static void main(String[] args) {
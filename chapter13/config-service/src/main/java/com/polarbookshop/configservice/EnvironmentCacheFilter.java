@@ -0,0 +1,113 @@
+package com.polarbookshop.configservice;
+
+import java.io.IOException;
+import java.time.Clock;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Serves rendered environments from memory, so that a client fetching its configuration
+ * doesn't wait for a pull from the Git backend. Entries are keyed by the version of the
+ * backend they were rendered from and by the request, which includes the label. A new
+ * commit notified to the monitor endpoint of any instance is sent to all of them as an
+ * {@link EnvironmentChangedEvent}, which moves each one to a new version. Each entry
+ * also expires after the configured TTL, in case a change is not notified, and the
+ * least used entries are evicted past the configured size, since any query string
+ * makes a new entry.
+ */
+@Component
+@ConditionalOnProperty(prefix = "polar.environment-cache", name = "enabled", havingValue = "true")
+public class EnvironmentCacheFilter extends OncePerRequestFilter {
+
+	private static final Logger log = LoggerFactory.getLogger(EnvironmentCacheFilter.class);
+
+	private final Cache<String, CachedEnvironment> cache;
+	private final EnvironmentCacheProperties properties;
+	private volatile String version = "startup";
+
+	public EnvironmentCacheFilter(EnvironmentCacheProperties properties) {
+		this(properties, Clock.systemUTC());
+	}
+
+	EnvironmentCacheFilter(EnvironmentCacheProperties properties, Clock clock) {
+		this.properties = properties;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(properties.maxEntries())
+				.expireAfterWrite(properties.ttl())
+				.ticker(() -> clock.millis() * 1_000_000)
+				.build();
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !HttpMethod.GET.matches(request.getMethod())
+				|| properties.excludedPaths().stream().anyMatch(request.getRequestURI()::startsWith);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		var renderedVersion = version;
+		var key = cacheKey(renderedVersion, request);
+		var cached = cache.getIfPresent(key);
+		if (cached != null) {
+			response.setStatus(HttpStatus.OK.value());
+			response.setContentType(cached.contentType());
+			response.setContentLength(cached.body().length);
+			response.getOutputStream().write(cached.body());
+			return;
+		}
+
+		var responseWrapper = new ContentCachingResponseWrapper(response);
+		filterChain.doFilter(request, responseWrapper);
+		// An environment rendered while the backend changed might be from either version
+		if (responseWrapper.getStatus() == HttpStatus.OK.value() && renderedVersion.equals(version)) {
+			cache.put(key, new CachedEnvironment(responseWrapper.getContentType(), responseWrapper.getContentAsByteArray()));
+		}
+		responseWrapper.copyBodyToResponse();
+	}
+
+	@EventListener
+	public void onEnvironmentChanged(EnvironmentChangedEvent event) {
+		evict(event.getVersion());
+	}
+
+	void evict(String newVersion) {
+		if (newVersion.equals(version)) {
+			return;
+		}
+		log.info("Configuration changed in the backend, evicting {} cached environments", cache.estimatedSize());
+		version = newVersion;
+		cache.invalidateAll();
+	}
+
+	long cachedEnvironments() {
+		cache.cleanUp();
+		return cache.estimatedSize();
+	}
+
+	private static String cacheKey(String version, HttpServletRequest request) {
+		var query = request.getQueryString() != null ? "?" + request.getQueryString() : "";
+		return version + " " + request.getRequestURI() + query + " " + request.getHeader(HttpHeaders.ACCEPT);
+	}
+
+	private record CachedEnvironment(String contentType, byte[] body) {}
+
+}
@@ -0,0 +1,32 @@
+package com.polarbookshop.configservice;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "polar.environment-cache")
+public record EnvironmentCacheProperties (
+
+	/**
+	 * Whether rendered environments are served from memory.
+	 */
+	boolean enabled,
+
+	/**
+	 * How long a rendered environment is served before the backend is read again,
+	 * in case a change is not notified through the monitor endpoint.
+	 */
+	Duration ttl,
+
+	/**
+	 * Maximum number of rendered environments kept, the least used being evicted first.
+	 */
+	int maxEntries,
+
+	/**
+	 * Path prefixes that are never cached.
+	 */
+	List<String> excludedPaths
+
+){}
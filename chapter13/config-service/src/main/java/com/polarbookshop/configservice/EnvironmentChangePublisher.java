@@ -0,0 +1,50 @@
+package com.polarbookshop.configservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.bus.ServiceMatcher;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RefreshRemoteApplicationEvent;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns a change notified to the monitor endpoint of this instance into an
+ * {@link EnvironmentChangedEvent} for all the Config Service instances, including
+ * this one, since the webhook only reaches one of them.
+ */
+@Component
+@ConditionalOnProperty(prefix = "polar.environment-cache", name = "enabled", havingValue = "true")
+@RemoteApplicationEventScan(basePackageClasses = EnvironmentChangedEvent.class)
+public class EnvironmentChangePublisher {
+
+	private final ApplicationEventPublisher eventPublisher;
+	private final ServiceMatcher serviceMatcher;
+	private final Destination.Factory destinationFactory;
+	private final String applicationName;
+
+	public EnvironmentChangePublisher(ApplicationEventPublisher eventPublisher, ServiceMatcher serviceMatcher,
+			Destination.Factory destinationFactory, @Value("${spring.application.name}") String applicationName) {
+		this.eventPublisher = eventPublisher;
+		this.serviceMatcher = serviceMatcher;
+		this.destinationFactory = destinationFactory;
+		this.applicationName = applicationName;
+	}
+
+	// Runs before the refresh event is sent on the bus, so that the eviction is sent first
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	@EventListener
+	public void onRefresh(RefreshRemoteApplicationEvent event) {
+		// Refresh events from other services don't mean that the backend changed
+		if (!serviceMatcher.isFromSelf(event)) {
+			return;
+		}
+		eventPublisher.publishEvent(new EnvironmentChangedEvent(this, serviceMatcher.getBusId(),
+				destinationFactory.getDestination(applicationName + ":**"), event.getId()));
+	}
+
+}
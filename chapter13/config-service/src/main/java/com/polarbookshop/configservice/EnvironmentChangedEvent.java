@@ -0,0 +1,31 @@
+package com.polarbookshop.configservice;
+
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+/**
+ * Sent on the bus to every Config Service instance when the backend changes, so that
+ * each one evicts the environments it rendered from the previous version.
+ */
+public class EnvironmentChangedEvent extends RemoteApplicationEvent {
+
+	private String version;
+
+	@SuppressWarnings("unused")
+	EnvironmentChangedEvent() {
+		// For deserialization
+	}
+
+	public EnvironmentChangedEvent(Object source, String originService, Destination destination, String version) {
+		super(source, originService, destination);
+		this.version = version;
+	}
+
+	/**
+	 * Identifies the change, the same on every instance.
+	 */
+	public String getVersion() {
+		return version;
+	}
+
+}
@@ -0,0 +1,160 @@
+package com.polarbookshop.configservice;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnvironmentCacheFilterTests {
+
+	private static final String ENVIRONMENT = "{\"name\":\"catalog-service\",\"version\":\"a1b2c3\"}";
+
+	private final AtomicInteger backendCalls = new AtomicInteger();
+	private final FilterChain backend = (request, response) -> {
+		backendCalls.incrementAndGet();
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.getOutputStream().write(ENVIRONMENT.getBytes(StandardCharsets.UTF_8));
+	};
+
+	private MutableClock clock;
+	private EnvironmentCacheFilter filter;
+
+	@BeforeEach
+	void setup() {
+		clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+		var properties = new EnvironmentCacheProperties(true, Duration.ofMinutes(5), 2, List.of("/actuator", "/monitor"));
+		filter = new EnvironmentCacheFilter(properties, clock);
+	}
+
+	@Test
+	void whenEnvironmentRequestedTwiceThenBackendReadOnce() throws ServletException, IOException {
+		var first = get("/catalog-service/default");
+		var second = get("/catalog-service/default");
+
+		assertThat(backendCalls).hasValue(1);
+		assertThat(second.getContentAsString()).isEqualTo(ENVIRONMENT).isEqualTo(first.getContentAsString());
+		assertThat(second.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+	}
+
+	@Test
+	void whenDifferentEnvironmentsRequestedThenCachedSeparately() throws ServletException, IOException {
+		get("/catalog-service/default");
+		get("/catalog-service/prod");
+
+		assertThat(backendCalls).hasValue(2);
+	}
+
+	@Test
+	void whenTtlExpiredThenBackendReadAgain() throws ServletException, IOException {
+		get("/catalog-service/default");
+		clock.advance(Duration.ofMinutes(6));
+		get("/catalog-service/default");
+
+		assertThat(backendCalls).hasValue(2);
+	}
+
+	@Test
+	void whenBackendChangedThenBackendReadAgain() throws ServletException, IOException {
+		get("/catalog-service/default");
+		filter.evict("b2c3d4");
+		get("/catalog-service/default");
+		get("/catalog-service/default");
+
+		assertThat(backendCalls).hasValue(2);
+	}
+
+	@Test
+	void whenBackendChangedWhileRenderingThenNotCached() throws ServletException, IOException {
+		FilterChain changingBackend = (request, response) -> {
+			backend.doFilter(request, response);
+			filter.evict("b2c3d4");
+		};
+		filter.doFilter(new MockHttpServletRequest("GET", "/catalog-service/default"), new MockHttpServletResponse(),
+				changingBackend);
+		get("/catalog-service/default");
+
+		assertThat(backendCalls).hasValue(2);
+	}
+
+	@Test
+	void whenDifferentLabelsRequestedThenCachedSeparately() throws ServletException, IOException {
+		get("/catalog-service/default/main");
+		get("/catalog-service/default/v1.0");
+
+		assertThat(backendCalls).hasValue(2);
+	}
+
+	@Test
+	void whenQueryStringsVaryThenCacheStaysBounded() throws ServletException, IOException {
+		for (int i = 0; i < 10; i++) {
+			var request = new MockHttpServletRequest("GET", "/catalog-service/default");
+			request.setQueryString("nocache=" + i);
+			filter.doFilter(request, new MockHttpServletResponse(), backend);
+		}
+
+		assertThat(backendCalls).hasValue(10);
+		assertThat(filter.cachedEnvironments()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void whenExcludedPathThenNeverCached() throws ServletException, IOException {
+		get("/actuator/health");
+		get("/actuator/health");
+
+		assertThat(backendCalls).hasValue(2);
+	}
+
+	private MockHttpServletResponse get(String path) throws ServletException, IOException {
+		var request = new MockHttpServletRequest("GET", path);
+		var response = new MockHttpServletResponse();
+		filter.doFilter(request, response, backend);
+		return response;
+	}
+
+	private static class MutableClock extends Clock {
+
+		private Instant instant;
+
+		MutableClock(Instant instant) {
+			this.instant = instant;
+		}
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+
+		@Override
+		public ZoneOffset getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.polarbookshop.configservice;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.cloud.bus.ServiceMatcher;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RefreshRemoteApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class EnvironmentChangePublisherTests {
+
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+	private final ServiceMatcher serviceMatcher = mock(ServiceMatcher.class);
+	private final Destination.Factory destinationFactory = mock(Destination.Factory.class);
+	private final EnvironmentChangePublisher publisher =
+			new EnvironmentChangePublisher(eventPublisher, serviceMatcher, destinationFactory, "config-service");
+
+	private final RefreshRemoteApplicationEvent refresh =
+			new RefreshRemoteApplicationEvent(this, "config-service:8888:a1b2", () -> "catalog-service:**");
+
+	@Test
+	void whenBackendChangeNotifiedHereThenSentToAllInstances() {
+		Destination allInstances = () -> "config-service:**";
+		given(serviceMatcher.isFromSelf(refresh)).willReturn(true);
+		given(serviceMatcher.getBusId()).willReturn("config-service:8888:a1b2");
+		given(destinationFactory.getDestination("config-service:**")).willReturn(allInstances);
+
+		publisher.onRefresh(refresh);
+
+		var event = ArgumentCaptor.forClass(EnvironmentChangedEvent.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		assertThat(event.getValue().getVersion()).isEqualTo(refresh.getId());
+		assertThat(event.getValue().getDestinationService()).isEqualTo("config-service:**");
+		assertThat(event.getValue().getOriginService()).isEqualTo("config-service:8888:a1b2");
+	}
+
+	@Test
+	void whenRefreshFromOtherServiceThenNothingSent() {
+		given(serviceMatcher.isFromSelf(refresh)).willReturn(false);
+
+		publisher.onRefresh(refresh);
+
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.polarbookshop.dispatcherservice;
+
+import com.polarbookshop.commons.config.ConfigSnapshotFallbackEnvironmentPostProcessor;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Environment post-processors are instantiated from spring.factories,
+ * which needs reflection in the native image.
+ */
+class ConfigSnapshotRuntimeHints implements RuntimeHintsRegistrar {
+
+	@Override
+	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+		hints.reflection().registerType(ConfigSnapshotFallbackEnvironmentPostProcessor.class,
+				MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+	}
+
+}
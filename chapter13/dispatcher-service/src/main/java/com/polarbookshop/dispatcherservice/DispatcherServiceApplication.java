@@ -2,8 +2,10 @@ package com.polarbookshop.dispatcherservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints({ ConfigSnapshotRuntimeHints.class, LoggingRuntimeHints.class })
 public class DispatcherServiceApplication {
 
 	public static void main(String[] args) {
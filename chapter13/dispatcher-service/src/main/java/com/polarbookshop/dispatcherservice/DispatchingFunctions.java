@@ -2,32 +2,46 @@ package com.polarbookshop.dispatcherservice;
 
 import java.util.function.Function;
 
+import com.polarbookshop.commons.messaging.DeadLetterRouter;
+import com.polarbookshop.commons.messaging.MessageProcessingMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
 
 @Configuration
+@RegisterReflectionForBinding({ OrderAcceptedMessage.class, OrderDispatchedMessage.class })
 public class DispatchingFunctions {
 
 	private static final Logger log = LoggerFactory.getLogger(DispatchingFunctions.class);
 
 	@Bean
-	public Function<OrderAcceptedMessage, Long> pack() {
-		return orderAcceptedMessage -> {
-			log.info("The order with id {} is packed.", orderAcceptedMessage.orderId());
-			return orderAcceptedMessage.orderId();
-		};
+	public Function<Flux<Message<OrderAcceptedMessage>>, Flux<Long>> pack(DeadLetterRouter deadLetterRouter, MeterRegistry meterRegistry) {
+		return messageFlux -> messageFlux.concatMap(message ->
+				MessageProcessingMetrics.timed("pack", meterRegistry, Mono.fromCallable(() -> packOrder(message.getPayload())))
+						.onErrorResume(exception -> deadLetterRouter.route(message, exception).then(Mono.empty())));
 	}
 
 	@Bean
-	public Function<Flux<Long>, Flux<OrderDispatchedMessage>> label() {
-		return orderFlux -> orderFlux.map(orderId -> {
-			log.info("The order with id {} is labeled.", orderId);
-			return new OrderDispatchedMessage(orderId);
-		});
+	public Function<Flux<Long>, Flux<OrderDispatchedMessage>> label(MeterRegistry meterRegistry) {
+		return orderFlux -> orderFlux.concatMap(orderId ->
+				MessageProcessingMetrics.timed("label", meterRegistry, Mono.fromCallable(() -> labelOrder(orderId))));
+	}
+
+	private Long packOrder(OrderAcceptedMessage orderAcceptedMessage) {
+		log.info("The order with id {} is packed.", orderAcceptedMessage.orderId());
+		return orderAcceptedMessage.orderId();
+	}
+
+	private OrderDispatchedMessage labelOrder(Long orderId) {
+		log.info("The order with id {} is labeled.", orderId);
+		return new OrderDispatchedMessage(orderId);
 	}
 
 }
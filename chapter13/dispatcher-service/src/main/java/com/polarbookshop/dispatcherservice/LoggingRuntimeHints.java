@@ -0,0 +1,24 @@
+package com.polarbookshop.dispatcherservice;
+
+import ch.qos.logback.classic.AsyncAppender;
+import com.polarbookshop.commons.logging.LogSamplingFilter;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Logback instantiates the appenders and filters in logback-spring.xml and calls
+ * their setters reflectively, which needs reflection in the native image.
+ */
+class LoggingRuntimeHints implements RuntimeHintsRegistrar {
+
+	@Override
+	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+		hints.reflection()
+				.registerType(AsyncAppender.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS)
+				.registerType(LogSamplingFilter.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+		hints.resources().registerPattern("logback-spring.xml");
+	}
+
+}
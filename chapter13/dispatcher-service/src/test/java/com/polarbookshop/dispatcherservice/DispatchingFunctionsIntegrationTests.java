@@ -10,8 +10,8 @@ import reactor.test.StepVerifier;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.function.context.FunctionCatalog;
 import org.springframework.cloud.function.context.test.FunctionalSpringBootTest;
-
-import static org.assertj.core.api.Assertions.assertThat;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
 
 @FunctionalSpringBootTest
 @Disabled("These tests are only necessary when using the functions alone (no bindings)")
@@ -22,9 +22,12 @@ class DispatchingFunctionsIntegrationTests {
 
 	@Test
 	void packOrder() {
-		Function<OrderAcceptedMessage, Long> pack = catalog.lookup(Function.class, "pack");
+		Function<Flux<Message<OrderAcceptedMessage>>, Flux<Long>> pack = catalog.lookup(Function.class, "pack");
 		long orderId = 121;
-		assertThat(pack.apply(new OrderAcceptedMessage(orderId))).isEqualTo(orderId);
+
+		StepVerifier.create(pack.apply(Flux.just(MessageBuilder.withPayload(new OrderAcceptedMessage(orderId)).build())))
+				.expectNext(orderId)
+				.verifyComplete();
 	}
 
 	@Test
@@ -40,11 +43,11 @@ class DispatchingFunctionsIntegrationTests {
 
 	@Test
 	void packAndLabelOrder() {
-		Function<OrderAcceptedMessage, Flux<OrderDispatchedMessage>> packAndLabel =
+		Function<Flux<Message<OrderAcceptedMessage>>, Flux<OrderDispatchedMessage>> packAndLabel =
 				catalog.lookup(Function.class, "pack|label");
 		long orderId = 121;
 
-		StepVerifier.create(packAndLabel.apply(new OrderAcceptedMessage(orderId)))
+		StepVerifier.create(packAndLabel.apply(Flux.just(MessageBuilder.withPayload(new OrderAcceptedMessage(orderId)).build())))
 				.expectNextMatches(dispatchedOrder ->
 						dispatchedOrder.equals(new OrderDispatchedMessage(orderId)))
 				.verifyComplete();
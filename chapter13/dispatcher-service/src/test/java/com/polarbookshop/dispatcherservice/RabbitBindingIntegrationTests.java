@@ -0,0 +1,71 @@
+package com.polarbookshop.dispatcherservice;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the pack|label composition against a real broker, so that it also verifies
+ * the bindings in the native image (./gradlew nativeTest).
+ */
+@SpringBootTest
+@Testcontainers
+class RabbitBindingIntegrationTests {
+
+	@Container
+	static RabbitMQContainer rabbitmq = new RabbitMQContainer(DockerImageName.parse("rabbitmq:3.12-management"));
+
+	@Autowired
+	private AmqpAdmin amqpAdmin;
+
+	@Autowired
+	private RabbitTemplate rabbitTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@DynamicPropertySource
+	static void rabbitmqProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.rabbitmq.host", rabbitmq::getHost);
+		registry.add("spring.rabbitmq.port", rabbitmq::getAmqpPort);
+		registry.add("spring.rabbitmq.username", rabbitmq::getAdminUsername);
+		registry.add("spring.rabbitmq.password", rabbitmq::getAdminPassword);
+	}
+
+	@Test
+	void whenOrderAcceptedThenOrderDispatchedPublished() throws IOException {
+		var dispatchedQueue = amqpAdmin.declareQueue();
+		amqpAdmin.declareBinding(BindingBuilder.bind(dispatchedQueue)
+				.to(new TopicExchange("order-dispatched")).with("#"));
+
+		var orderAccepted = MessageBuilder.withBody("{\"orderId\":394}".getBytes(StandardCharsets.UTF_8))
+				.setContentType(MessageProperties.CONTENT_TYPE_JSON)
+				.build();
+		rabbitTemplate.send("order-accepted", "#", orderAccepted);
+
+		var orderDispatched = rabbitTemplate.receive(dispatchedQueue.getName(), 10_000);
+		assertThat(orderDispatched).isNotNull();
+		assertThat(objectMapper.readValue(orderDispatched.getBody(), OrderDispatchedMessage.class))
+				.isEqualTo(new OrderDispatchedMessage(394L));
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.polarbookshop.edgeservice.compression;
+
+import java.time.Instant;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Response body compressed ahead of time, in each encoding available.
+ */
+record PrecompressedBody (
+
+	String contentType,
+
+	byte[] gzip,
+
+	/**
+	 * Missing when the Brotli native library isn't available on this platform.
+	 */
+	@Nullable
+	byte[] brotli,
+
+	Instant expiresAt
+
+){
+
+	@Nullable
+	byte[] encodedAs(String encoding) {
+		return switch (encoding) {
+			case "br" -> brotli;
+			case "gzip" -> gzip;
+			default -> null;
+		};
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.polarbookshop.edgeservice.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import io.netty.handler.codec.compression.Brotli;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Keeps the compressed bodies of the most recently requested responses in memory.
+ * Since they are compressed once and served many times, they use the highest
+ * compression levels, which would be too slow for compressing on the fly.
+ */
+class PrecompressedCache {
+
+	private static final int BROTLI_QUALITY = 11;
+
+	private final PrecompressedProperties properties;
+	private final Clock clock;
+	private final boolean brotliAvailable;
+	private final Map<String, PrecompressedBody> bodies;
+
+	PrecompressedCache(PrecompressedProperties properties, Clock clock) {
+		this.properties = properties;
+		this.clock = clock;
+		this.brotliAvailable = Brotli.isAvailable();
+		this.bodies = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PrecompressedBody> eldest) {
+				return size() > properties.maxEntries();
+			}
+		};
+	}
+
+	@Nullable
+	PrecompressedBody find(String key) {
+		synchronized (bodies) {
+			var body = bodies.get(key);
+			if (body != null && !body.expiresAt().isAfter(clock.instant())) {
+				bodies.remove(key);
+				return null;
+			}
+			return body;
+		}
+	}
+
+	/**
+	 * Compresses the body in every available encoding. It takes a while, so it
+	 * mustn't run on the event loop. The body is kept for the configured TTL, or
+	 * less when the downstream service allows a shorter max-age.
+	 */
+	void compressAndPut(String key, String contentType, byte[] body, @Nullable Duration maxAge) {
+		Duration ttl = maxAge != null && maxAge.compareTo(properties.ttl()) < 0 ? maxAge : properties.ttl();
+		Instant expiresAt = clock.instant().plus(ttl);
+		var compressed = new PrecompressedBody(contentType, gzip(body), brotliAvailable ? brotli(body) : null, expiresAt);
+		synchronized (bodies) {
+			bodies.put(key, compressed);
+		}
+	}
+
+	/**
+	 * Drops the bodies whose key starts with the given path, after a change made through this instance.
+	 */
+	void evict(String pathPrefix) {
+		synchronized (bodies) {
+			bodies.keySet().removeIf(key -> key.startsWith(pathPrefix));
+		}
+	}
+
+	boolean fits(long size) {
+		return size <= properties.maxBodySize().toBytes();
+	}
+
+	static byte[] gzip(byte[] body) {
+		var output = new ByteArrayOutputStream(body.length / 4);
+		try (var gzip = new GZIPOutputStream(output) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+			gzip.write(body);
+		}
+		catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		return output.toByteArray();
+	}
+
+	static byte[] brotli(byte[] body) {
+		try {
+			return Encoder.compress(body, new Encoder.Parameters().setQuality(BROTLI_QUALITY));
+		}
+		catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+}
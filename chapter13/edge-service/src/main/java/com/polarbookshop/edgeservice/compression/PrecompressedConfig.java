@@ -0,0 +1,29 @@
+package com.polarbookshop.edgeservice.compression;
+
+import java.time.Clock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(PrecompressedProperties.class)
+public class PrecompressedConfig {
+
+	/**
+	 * Uses the same MIME types and size threshold as the compression on the fly
+	 * configured under server.compression.
+	 */
+	@Bean
+	PrecompressedGatewayFilterFactory precompressedGatewayFilterFactory(PrecompressedProperties precompressedProperties,
+			ServerProperties serverProperties, MeterRegistry meterRegistry) {
+		var cache = new PrecompressedCache(precompressedProperties, Clock.systemUTC());
+		return new PrecompressedGatewayFilterFactory(cache, serverProperties.getCompression(), meterRegistry,
+				Schedulers.boundedElastic());
+	}
+
+}
@@ -0,0 +1,262 @@
+package com.polarbookshop.edgeservice.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.boot.web.server.Compression;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import org.springframework.web.server.ServerWebExchange;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR;
+
+/**
+ * Serves the responses of a cacheable route compressed ahead of time. On a miss, the
+ * downstream service is asked for an uncompressed body, so that the gateway negotiates
+ * the encoding with the client. The body is streamed to the client, compressed on the
+ * fly by the server, while a copy is compressed in the background for the next requests.
+ * Only the responses that the downstream service explicitly allows shared caches to keep,
+ * with public or a max-age, are stored, for no longer than their max-age. A change made through the route drops the bodies
+ * stored under the same top-level path, on this instance only: the other instances serve
+ * theirs until they expire.
+ */
+public class PrecompressedGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+
+	private static final Logger log = LoggerFactory.getLogger(PrecompressedGatewayFilterFactory.class);
+
+	private static final List<String> ENCODINGS = List.of("br", "gzip");
+	private static final Pattern MAX_AGE = Pattern.compile("(?:^|[,\\s])(s-maxage|max-age)=(\\d+)");
+
+	private final PrecompressedCache cache;
+	private final Scheduler compressionScheduler;
+	private final List<MimeType> mimeTypes;
+	private final long minResponseSize;
+	private final Counter hits;
+	private final Counter misses;
+
+	PrecompressedGatewayFilterFactory(PrecompressedCache cache, Compression compression, MeterRegistry meterRegistry,
+			Scheduler compressionScheduler) {
+		super(Object.class);
+		this.cache = cache;
+		this.compressionScheduler = compressionScheduler;
+		this.mimeTypes = Arrays.stream(compression.getMimeTypes()).map(MimeType::valueOf).toList();
+		this.minResponseSize = compression.getMinResponseSize().toBytes();
+		this.hits = Counter.builder("polar.gateway.precompressed.requests")
+				.description("Requests served with a body compressed ahead of time")
+				.tag("outcome", "hit")
+				.register(meterRegistry);
+		this.misses = Counter.builder("polar.gateway.precompressed.requests")
+				.description("Requests served with a body compressed ahead of time")
+				.tag("outcome", "miss")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public GatewayFilter apply(Object config) {
+		return (exchange, chain) -> {
+			var request = exchange.getRequest();
+			if (HttpMethod.HEAD.equals(request.getMethod()) || HttpMethod.OPTIONS.equals(request.getMethod())) {
+				return chain.filter(exchange);
+			}
+			if (!HttpMethod.GET.equals(request.getMethod())) {
+				String pathPrefix = topLevelPath(request.getURI().getRawPath());
+				return chain.filter(exchange).doFinally(signal -> cache.evict(pathPrefix));
+			}
+			String query = request.getURI().getRawQuery();
+			String key = request.getURI().getRawPath() + (query != null ? "?" + query : "");
+			var body = cache.find(key);
+			if (body != null) {
+				String encoding = preferredEncoding(request.getHeaders().get(HttpHeaders.ACCEPT_ENCODING), body);
+				if (encoding != null) {
+					hits.increment();
+					return write(exchange, body, encoding);
+				}
+			}
+			misses.increment();
+			var uncompressed = exchange.mutate()
+					.request(builder -> builder.headers(headers -> headers.remove(HttpHeaders.ACCEPT_ENCODING)))
+					.build();
+			return chain.filter(uncompressed.mutate().response(new CapturingResponse(uncompressed, key)).build());
+		};
+	}
+
+	/**
+	 * Returns the first segment of the path, which the changes and the listings share,
+	 * like /books for PUT /books/1234567891 and GET /books?page=1.
+	 */
+	static String topLevelPath(String path) {
+		int end = path.indexOf('/', 1);
+		return end < 0 ? path : path.substring(0, end);
+	}
+
+	/**
+	 * Returns how long a shared cache may keep the response, or null when the
+	 * Cache-Control header doesn't say. s-maxage takes precedence over max-age.
+	 */
+	@Nullable
+	static Duration maxAge(@Nullable String cacheControl) {
+		if (cacheControl == null) {
+			return null;
+		}
+		Duration maxAge = null;
+		var matcher = MAX_AGE.matcher(cacheControl.toLowerCase());
+		while (matcher.find()) {
+			var seconds = Duration.ofSeconds(Long.parseLong(matcher.group(2)));
+			if (matcher.group(1).equals("s-maxage")) {
+				return seconds;
+			}
+			maxAge = seconds;
+		}
+		return maxAge;
+	}
+
+	private static Mono<Void> write(ServerWebExchange exchange, PrecompressedBody body, String encoding) {
+		byte[] bytes = body.encodedAs(encoding);
+		var response = exchange.getResponse();
+		response.setStatusCode(HttpStatus.OK);
+		var headers = response.getHeaders();
+		headers.setContentType(MediaType.parseMediaType(body.contentType()));
+		headers.set(HttpHeaders.CONTENT_ENCODING, encoding);
+		headers.setContentLength(bytes.length);
+		headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+	}
+
+	/**
+	 * Returns the encoding of the body preferred by the client, or null if it accepts none of them.
+	 * Brotli wins a tie, since it's the smaller one.
+	 */
+	@Nullable
+	static String preferredEncoding(@Nullable List<String> acceptEncoding, PrecompressedBody body) {
+		if (acceptEncoding == null) {
+			return null;
+		}
+		var qualities = new HashMap<String, Double>();
+		for (String value : acceptEncoding) {
+			for (String coding : value.split(",")) {
+				var parts = coding.trim().split(";");
+				qualities.put(parts[0].trim().toLowerCase(), quality(parts));
+			}
+		}
+		String preferred = null;
+		double preferredQuality = 0;
+		for (String encoding : ENCODINGS) {
+			double quality = qualities.getOrDefault(encoding, qualities.getOrDefault("*", 0.0));
+			if (body.encodedAs(encoding) != null && quality > preferredQuality) {
+				preferred = encoding;
+				preferredQuality = quality;
+			}
+		}
+		return preferred;
+	}
+
+	private static double quality(String[] parts) {
+		for (int i = 1; i < parts.length; i++) {
+			var parameter = parts[i].trim();
+			if (parameter.startsWith("q=")) {
+				try {
+					return Double.parseDouble(parameter.substring(2));
+				}
+				catch (NumberFormatException exception) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+	private final class CapturingResponse extends ServerHttpResponseDecorator {
+
+		private final ServerWebExchange exchange;
+		private final String key;
+
+		private CapturingResponse(ServerWebExchange exchange, String key) {
+			super(exchange.getResponse());
+			this.exchange = exchange;
+			this.key = key;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			MediaType contentType = getHeaders().getContentType();
+			if (!isCacheable(contentType)) {
+				return super.writeWith(body);
+			}
+			var content = new ByteArrayOutputStream();
+			var tooLarge = new AtomicBoolean();
+			Flux<? extends DataBuffer> captured = Flux.from(body).doOnNext(dataBuffer -> {
+				if (tooLarge.get()) {
+					return;
+				}
+				if (!cache.fits(content.size() + (long) dataBuffer.readableByteCount())) {
+					tooLarge.set(true);
+					return;
+				}
+				var bytes = dataBuffer.asByteBuffer();
+				var copy = new byte[bytes.remaining()];
+				bytes.get(copy);
+				content.writeBytes(copy);
+			});
+			return super.writeWith(captured).doOnSuccess(done -> {
+				if (!tooLarge.get() && content.size() >= minResponseSize) {
+					Duration maxAge = maxAge(getHeaders().getCacheControl());
+					Mono.fromRunnable(() -> cache.compressAndPut(key, contentType.toString(), content.toByteArray(), maxAge))
+							.subscribeOn(compressionScheduler)
+							.doOnError(exception -> log.warn("Failed to compress the response for {}", key, exception))
+							.onErrorResume(exception -> Mono.empty())
+							.subscribe();
+				}
+			});
+		}
+
+		private boolean isCacheable(@Nullable MediaType contentType) {
+			if (getStatusCode() != HttpStatus.OK || contentType == null
+					|| exchange.getAttributes().containsKey(CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR)
+					|| getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+				return false;
+			}
+			String cacheControl = getHeaders().getCacheControl();
+			if (cacheControl == null) {
+				return false;
+			}
+			String directives = cacheControl.toLowerCase();
+			if (directives.contains("no-store") || directives.contains("private") || directives.contains("no-cache")) {
+				return false;
+			}
+			Duration maxAge = maxAge(cacheControl);
+			if (maxAge == null ? !directives.contains("public") : maxAge.isZero()) {
+				return false;
+			}
+			long contentLength = getHeaders().getContentLength();
+			if (contentLength >= 0 && (contentLength < minResponseSize || !cache.fits(contentLength))) {
+				return false;
+			}
+			return mimeTypes.stream().anyMatch(mimeType -> mimeType.isCompatibleWith(contentType));
+		}
+
+	}
+
+}
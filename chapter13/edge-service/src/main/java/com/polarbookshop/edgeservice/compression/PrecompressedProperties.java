@@ -0,0 +1,26 @@
+package com.polarbookshop.edgeservice.compression;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "polar.precompressed")
+public record PrecompressedProperties (
+
+	/**
+	 * How long a compressed response is served before asking the downstream service again.
+	 */
+	Duration ttl,
+
+	/**
+	 * Responses larger than this are compressed on the fly but not kept.
+	 */
+	DataSize maxBodySize,
+
+	/**
+	 * Maximum number of responses kept, the least recently used ones being dropped first.
+	 */
+	int maxEntries
+
+){}
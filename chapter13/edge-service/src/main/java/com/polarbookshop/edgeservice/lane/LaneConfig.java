@@ -0,0 +1,118 @@
+package com.polarbookshop.edgeservice.lane;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.transport.ProxyProvider;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+@Configuration
+@EnableConfigurationProperties(LaneProperties.class)
+public class LaneConfig {
+
+	private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+	@Bean
+	PriorityLanes priorityLanes(LaneProperties laneProperties, HttpClient gatewayHttpClient, HttpClientProperties httpClientProperties,
+			ObjectProvider<HttpClientCustomizer> customizers, MeterRegistry meterRegistry) {
+		var lanes = new HashMap<String, PriorityLane>();
+		laneProperties.lanes().forEach((name, settings) -> {
+			var connectionProvider = connectionProvider(name, settings, httpClientProperties.getPool());
+			var httpClient = laneHttpClient(connectionProvider, gatewayHttpClient, httpClientProperties,
+					customizers.orderedStream().toList());
+			lanes.put(name, new PriorityLane(name, settings, httpClient, connectionProvider, meterRegistry));
+		});
+		return new PriorityLanes(lanes);
+	}
+
+	@Bean
+	PriorityLaneFilter priorityLaneFilter(PriorityLanes priorityLanes) {
+		return new PriorityLaneFilter(priorityLanes, RETRY_AFTER);
+	}
+
+	/**
+	 * Replaces the routing filter of the gateway, disabled through
+	 * spring.cloud.gateway.global-filter.netty-routing.enabled.
+	 */
+	@Bean
+	LaneRoutingFilter laneRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+			HttpClientProperties httpClientProperties, PriorityLanes priorityLanes) {
+		return new LaneRoutingFilter(httpClient, headersFilters, httpClientProperties, priorityLanes);
+	}
+
+	/**
+	 * A client like the one of the gateway, built from the same spring.cloud.gateway.httpclient
+	 * properties and customizers, but with the connection pool of the lane. The pool can't
+	 * be replaced on an existing client, so the SSL settings are copied from the gateway one.
+	 */
+	static HttpClient laneHttpClient(ConnectionProvider connectionProvider, HttpClient gatewayHttpClient,
+			HttpClientProperties properties, List<HttpClientCustomizer> customizers) {
+		var httpClient = HttpClient.create(connectionProvider)
+				.httpResponseDecoder(spec -> {
+					if (properties.getMaxHeaderSize() != null) {
+						spec.maxHeaderSize((int) properties.getMaxHeaderSize().toBytes());
+					}
+					if (properties.getMaxInitialLineLength() != null) {
+						spec.maxInitialLineLength((int) properties.getMaxInitialLineLength().toBytes());
+					}
+					return spec;
+				});
+		if (properties.getConnectTimeout() != null) {
+			httpClient = httpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, properties.getConnectTimeout());
+		}
+		var proxy = properties.getProxy();
+		if (StringUtils.hasText(proxy.getHost())) {
+			httpClient = httpClient.proxy(proxySpec -> {
+				var builder = proxySpec.type(ProxyProvider.Proxy.HTTP).host(proxy.getHost());
+				var map = PropertyMapper.get();
+				map.from(proxy::getPort).whenNonNull().to(builder::port);
+				map.from(proxy::getUsername).whenHasText().to(builder::username);
+				map.from(proxy::getPassword).whenHasText().to(password -> builder.password(username -> password));
+				map.from(proxy::getNonProxyHostsPattern).whenHasText().to(builder::nonProxyHosts);
+			});
+		}
+		var sslProvider = gatewayHttpClient.configuration().sslProvider();
+		if (sslProvider != null) {
+			httpClient = httpClient.secure(sslProvider);
+		}
+		if (properties.isWiretap()) {
+			httpClient = httpClient.wiretap(true);
+		}
+		if (properties.isCompression()) {
+			httpClient = httpClient.compress(true);
+		}
+		for (var customizer : customizers) {
+			httpClient = customizer.customize(httpClient);
+		}
+		return httpClient;
+	}
+
+	private static ConnectionProvider connectionProvider(String lane, LaneProperties.Lane settings, HttpClientProperties.Pool pool) {
+		var builder = ConnectionProvider.builder("gateway-" + lane)
+				.maxConnections(settings.maxConnections())
+				.pendingAcquireTimeout(settings.maxWait())
+				.metrics(true);
+		if (pool.getMaxIdleTime() != null) {
+			builder.maxIdleTime(pool.getMaxIdleTime());
+		}
+		if (pool.getMaxLifeTime() != null) {
+			builder.maxLifeTime(pool.getMaxLifeTime());
+		}
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,9 @@
+package com.polarbookshop.edgeservice.lane;
+
+public class LaneFullException extends RuntimeException {
+
+	public LaneFullException(String lane) {
+		super("The " + lane + " lane is full");
+	}
+
+}
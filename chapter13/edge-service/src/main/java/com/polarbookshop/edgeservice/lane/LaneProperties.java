@@ -0,0 +1,42 @@
+package com.polarbookshop.edgeservice.lane;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "polar")
+public record LaneProperties (
+
+	/**
+	 * Priority lanes by name. A route joins a lane through its "lane" metadata.
+	 */
+	Map<String, Lane> lanes
+
+){
+
+	public record Lane (
+
+		/**
+		 * Maximum number of requests of the lane forwarded at the same time.
+		 */
+		int maxConcurrent,
+
+		/**
+		 * Maximum number of requests waiting for their turn. Further requests are rejected.
+		 */
+		int maxQueued,
+
+		/**
+		 * Maximum time a request waits for its turn before being rejected.
+		 */
+		Duration maxWait,
+
+		/**
+		 * Size of the connection pool dedicated to the lane.
+		 */
+		int maxConnections
+
+	){}
+
+}
@@ -0,0 +1,34 @@
+package com.polarbookshop.edgeservice.lane;
+
+import java.util.List;
+
+import reactor.netty.http.client.HttpClient;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Forwards the requests of a lane through the lane's own connection pool.
+ * Routes without a lane use the shared gateway client.
+ */
+public class LaneRoutingFilter extends NettyRoutingFilter {
+
+	private final PriorityLanes priorityLanes;
+
+	public LaneRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+			HttpClientProperties properties, PriorityLanes priorityLanes) {
+		super(httpClient, headersFiltersProvider, properties);
+		this.priorityLanes = priorityLanes;
+	}
+
+	@Override
+	protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+		PriorityLane lane = priorityLanes.forRoute(route);
+		return lane != null ? lane.httpClient() : super.getHttpClient(route, exchange);
+	}
+
+}
@@ -0,0 +1,189 @@
+package com.polarbookshop.edgeservice.lane;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+
+/**
+ * A class of routes with its own concurrency budget, waiting queue and connection pool,
+ * so that a burst of requests in one lane can't delay the requests in another.
+ */
+public class PriorityLane {
+
+	private final String name;
+	private final LaneProperties.Lane settings;
+	private final ConnectionProvider connectionProvider;
+	private final HttpClient httpClient;
+	private final Queue<Waiter> waiters = new ArrayDeque<>();
+	private int active;
+
+	private final MeterRegistry meterRegistry;
+	private final Timer waitTimer;
+	private final Counter rejected;
+
+	public PriorityLane(String name, LaneProperties.Lane settings, HttpClient httpClient,
+			ConnectionProvider connectionProvider, MeterRegistry meterRegistry) {
+		this.name = name;
+		this.settings = settings;
+		this.httpClient = httpClient;
+		this.connectionProvider = connectionProvider;
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("polar.gateway.lane.active", this, PriorityLane::active)
+				.description("Requests of the lane being forwarded")
+				.tag("lane", name)
+				.register(meterRegistry);
+		Gauge.builder("polar.gateway.lane.queued", this, PriorityLane::queued)
+				.description("Requests of the lane waiting for their turn")
+				.tag("lane", name)
+				.register(meterRegistry);
+		this.waitTimer = Timer.builder("polar.gateway.lane.wait")
+				.description("Time requests of the lane wait for their turn")
+				.tag("lane", name)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		this.rejected = Counter.builder("polar.gateway.lane.rejected")
+				.description("Requests of the lane rejected because the queue was full or the wait too long")
+				.tag("lane", name)
+				.register(meterRegistry);
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public HttpClient httpClient() {
+		return httpClient;
+	}
+
+	/**
+	 * Completes when the request can be forwarded, after which {@link #release()} must be
+	 * called, or fails with {@link LaneFullException} if it has to be rejected.
+	 */
+	public Mono<Void> acquire() {
+		return Mono.<Void>create(sink -> {
+			Waiter waiter = null;
+			boolean admitted = false;
+			synchronized (this) {
+				if (active < settings.maxConcurrent()) {
+					active++;
+					admitted = true;
+				}
+				else if (waiters.size() < settings.maxQueued()) {
+					waiter = new Waiter(sink, System.nanoTime());
+					waiters.add(waiter);
+				}
+			}
+			if (admitted) {
+				waitTimer.record(0, TimeUnit.NANOSECONDS);
+				sink.success();
+			}
+			else if (waiter != null) {
+				var queued = waiter;
+				sink.onCancel(() -> cancel(queued));
+			}
+			else {
+				rejected.increment();
+				sink.error(new LaneFullException(name));
+			}
+		})
+		.timeout(settings.maxWait())
+		.onErrorMap(TimeoutException.class, exception -> {
+			rejected.increment();
+			return new LaneFullException(name);
+		});
+	}
+
+	public void release() {
+		Waiter next;
+		synchronized (this) {
+			next = waiters.poll();
+			while (next != null && !next.grant()) {
+				next = waiters.poll();
+			}
+			if (next == null) {
+				active--;
+				return;
+			}
+		}
+		// The permit goes straight to the next waiter, so active stays the same
+		waitTimer.record(System.nanoTime() - next.start, TimeUnit.NANOSECONDS);
+		next.sink.success();
+	}
+
+	/**
+	 * Records the time from admission until the response has been written, by outcome.
+	 */
+	public void recordResponse(@Nullable HttpStatus status, long durationNanos) {
+		String outcome = status != null ? status.series().name() : "UNKNOWN";
+		Timer.builder("polar.gateway.lane.requests")
+				.description("Time from admission until the response of the lane has been written")
+				.tags("lane", name, "outcome", outcome)
+				.publishPercentileHistogram()
+				.register(meterRegistry)
+				.record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	void dispose() {
+		connectionProvider.dispose();
+	}
+
+	synchronized int active() {
+		return active;
+	}
+
+	synchronized int queued() {
+		return waiters.size();
+	}
+
+	private void cancel(Waiter waiter) {
+		if (waiter.cancel()) {
+			synchronized (this) {
+				waiters.remove(waiter);
+			}
+		}
+		else {
+			// Granted while being cancelled: the permit will never be used
+			release();
+		}
+	}
+
+	private static final class Waiter {
+
+		private static final int WAITING = 0;
+		private static final int GRANTED = 1;
+		private static final int CANCELLED = 2;
+
+		private final MonoSink<Void> sink;
+		private final long start;
+		private final AtomicInteger state = new AtomicInteger(WAITING);
+
+		private Waiter(MonoSink<Void> sink, long start) {
+			this.sink = sink;
+			this.start = start;
+		}
+
+		boolean grant() {
+			return state.compareAndSet(WAITING, GRANTED);
+		}
+
+		boolean cancel() {
+			return state.compareAndSet(WAITING, CANCELLED);
+		}
+
+	}
+
+}
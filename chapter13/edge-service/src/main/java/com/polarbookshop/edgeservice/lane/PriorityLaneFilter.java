@@ -0,0 +1,64 @@
+package com.polarbookshop.edgeservice.lane;
+
+import java.time.Duration;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Admits requests through the lane of their route. It runs before the filter writing
+ * the response body, so that a request holds its permit until the body has been
+ * streamed to the client, and before the route filters, so that a rejected request
+ * is neither retried nor counted as a failure by the circuit breakers. Rejected
+ * requests are counted by the lane, since the gateway metrics filter runs later.
+ */
+public class PriorityLaneFilter implements GlobalFilter, Ordered {
+
+	static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+	private final PriorityLanes priorityLanes;
+	private final String retryAfter;
+
+	public PriorityLaneFilter(PriorityLanes priorityLanes, Duration retryAfter) {
+		this.priorityLanes = priorityLanes;
+		this.retryAfter = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		PriorityLane lane = priorityLanes.forRoute(route);
+		if (lane == null) {
+			return chain.filter(exchange);
+		}
+		return lane.acquire()
+				.then(Mono.defer(() -> {
+					long start = System.nanoTime();
+					return chain.filter(exchange).doFinally(signal -> {
+						lane.release();
+						lane.recordResponse(exchange.getResponse().getStatusCode(), System.nanoTime() - start);
+					});
+				}))
+				.onErrorResume(LaneFullException.class, exception -> {
+					var response = exchange.getResponse();
+					response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+					response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfter);
+					return response.setComplete();
+				});
+	}
+
+	@Override
+	public int getOrder() {
+		return ORDER;
+	}
+
+}
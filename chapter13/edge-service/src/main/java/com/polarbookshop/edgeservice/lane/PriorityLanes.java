@@ -0,0 +1,36 @@
+package com.polarbookshop.edgeservice.lane;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.lang.Nullable;
+
+public class PriorityLanes implements DisposableBean {
+
+	static final String LANE_METADATA = "lane";
+
+	private final Map<String, PriorityLane> lanes;
+
+	public PriorityLanes(Map<String, PriorityLane> lanes) {
+		this.lanes = Map.copyOf(lanes);
+	}
+
+	/**
+	 * Returns the lane named in the route metadata, or null if the route has none.
+	 */
+	@Nullable
+	public PriorityLane forRoute(@Nullable Route route) {
+		if (route == null) {
+			return null;
+		}
+		Object lane = route.getMetadata().get(LANE_METADATA);
+		return lane != null ? lanes.get(lane.toString()) : null;
+	}
+
+	@Override
+	public void destroy() {
+		lanes.values().forEach(PriorityLane::dispose);
+	}
+
+}
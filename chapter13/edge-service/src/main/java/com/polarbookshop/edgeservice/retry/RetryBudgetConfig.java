@@ -0,0 +1,16 @@
+package com.polarbookshop.edgeservice.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RetryBudgetConfig {
+
+	@Bean
+	RetryBudgetGatewayFilterFactory retryBudgetGatewayFilterFactory(MeterRegistry meterRegistry) {
+		return new RetryBudgetGatewayFilterFactory(meterRegistry);
+	}
+
+}
@@ -0,0 +1,204 @@
+package com.polarbookshop.edgeservice.retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+import com.polarbookshop.commons.resilience.RequestBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Retries failed requests like the Retry filter of the gateway, but only as long as
+ * the {@link RequestBudget} of the route allows it. The number of retries per request
+ * is still capped, but it's the budget that protects a struggling downstream service
+ * from being sent several times its normal traffic. Requests are retried without
+ * caching their body, so only methods without one should be configured.
+ */
+public class RetryBudgetGatewayFilterFactory extends AbstractGatewayFilterFactory<RetryBudgetGatewayFilterFactory.Config> {
+
+	private static final int MAX_SAVED_RETRIES = 100;
+
+	private final MeterRegistry meterRegistry;
+	private final Map<String, RequestBudget> budgets = new ConcurrentHashMap<>();
+
+	public RetryBudgetGatewayFilterFactory(MeterRegistry meterRegistry) {
+		super(Config.class);
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public GatewayFilter apply(Config config) {
+		return (exchange, chain) -> {
+			Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+			if (route == null || !config.getMethods().contains(exchange.getRequest().getMethod())) {
+				return chain.filter(exchange);
+			}
+			RequestBudget budget = budgets.computeIfAbsent(route.getId(), id ->
+					new RequestBudget("polar.gateway.retries", Tags.of("route", id), config.getBudgetRatio(),
+							MAX_SAVED_RETRIES, config.getMinRetriesPerSecond(), meterRegistry));
+			return attempt(exchange, chain, config, budget, 0);
+		};
+	}
+
+	RequestBudget budget(String routeId) {
+		return budgets.get(routeId);
+	}
+
+	private Mono<Void> attempt(ServerWebExchange exchange, GatewayFilterChain chain, Config config, RequestBudget budget, int retry) {
+		return chain.filter(exchange)
+				.then(Mono.just(Optional.<Throwable>empty()))
+				.onErrorResume(exception -> Mono.just(Optional.of(exception)))
+				.flatMap(failure -> {
+					boolean retryable = failure.map(exception -> isRetryable(exception, config))
+							.orElseGet(() -> isRetryable(exchange.getResponse().getStatusCode(), config));
+					if (!retryable) {
+						budget.deposit();
+					}
+					else if (retry < config.getRetries() && !exchange.getResponse().isCommitted() && budget.tryWithdraw()) {
+						reset(exchange);
+						return Mono.delay(config.backoff(retry))
+								.then(Mono.defer(() -> attempt(exchange, chain, config, budget, retry + 1)));
+					}
+					return failure.<Mono<Void>>map(Mono::error).orElseGet(Mono::empty);
+				});
+	}
+
+	private static boolean isRetryable(HttpStatus status, Config config) {
+		return status != null && config.getSeries().contains(status.series());
+	}
+
+	private static boolean isRetryable(Throwable exception, Config config) {
+		for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+			for (Class<? extends Throwable> type : config.getExceptions()) {
+				if (type.isInstance(cause)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Releases the failed response and lets the request be routed again.
+	 */
+	private static void reset(ServerWebExchange exchange) {
+		Connection connection = exchange.getAttribute(CLIENT_RESPONSE_CONN_ATTR);
+		if (connection != null) {
+			connection.channel().close();
+			connection.dispose();
+		}
+		ServerWebExchangeUtils.reset(exchange);
+	}
+
+	public static class Config {
+
+		private int retries = 3;
+		private Set<HttpMethod> methods = Set.of(HttpMethod.GET);
+		private Set<HttpStatus.Series> series = Set.of(HttpStatus.Series.SERVER_ERROR);
+		private List<Class<? extends Throwable>> exceptions = List.of(IOException.class, TimeoutException.class);
+		private Duration firstBackoff = Duration.ofMillis(50);
+		private Duration maxBackoff = Duration.ofMillis(500);
+		private int factor = 2;
+		private double budgetRatio = 0.1;
+		private int minRetriesPerSecond = 5;
+
+		Duration backoff(int retry) {
+			long delay = firstBackoff.toMillis() * (long) Math.pow(factor, retry);
+			return Duration.ofMillis(Math.min(delay, maxBackoff.toMillis()));
+		}
+
+		public int getRetries() {
+			return retries;
+		}
+
+		public void setRetries(int retries) {
+			this.retries = retries;
+		}
+
+		public Set<HttpMethod> getMethods() {
+			return methods;
+		}
+
+		public void setMethods(Set<HttpMethod> methods) {
+			this.methods = methods;
+		}
+
+		public Set<HttpStatus.Series> getSeries() {
+			return series;
+		}
+
+		public void setSeries(Set<HttpStatus.Series> series) {
+			this.series = series;
+		}
+
+		public List<Class<? extends Throwable>> getExceptions() {
+			return exceptions;
+		}
+
+		public void setExceptions(List<Class<? extends Throwable>> exceptions) {
+			this.exceptions = exceptions;
+		}
+
+		public Duration getFirstBackoff() {
+			return firstBackoff;
+		}
+
+		public void setFirstBackoff(Duration firstBackoff) {
+			this.firstBackoff = firstBackoff;
+		}
+
+		public Duration getMaxBackoff() {
+			return maxBackoff;
+		}
+
+		public void setMaxBackoff(Duration maxBackoff) {
+			this.maxBackoff = maxBackoff;
+		}
+
+		public int getFactor() {
+			return factor;
+		}
+
+		public void setFactor(int factor) {
+			this.factor = factor;
+		}
+
+		public double getBudgetRatio() {
+			return budgetRatio;
+		}
+
+		public void setBudgetRatio(double budgetRatio) {
+			this.budgetRatio = budgetRatio;
+		}
+
+		public int getMinRetriesPerSecond() {
+			return minRetriesPerSecond;
+		}
+
+		public void setMinRetriesPerSecond(int minRetriesPerSecond) {
+			this.minRetriesPerSecond = minRetriesPerSecond;
+		}
+
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.polarbookshop.edgeservice.snapshot;
+
+import java.time.Instant;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Last successful response for a path, as sent by the downstream service.
+ */
+public record Snapshot (
+
+	byte[] body,
+
+	@Nullable
+	String contentType,
+
+	@Nullable
+	String contentEncoding,
+
+	Instant storedAt
+
+){}
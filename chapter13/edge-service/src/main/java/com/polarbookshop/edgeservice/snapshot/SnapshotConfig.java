@@ -0,0 +1,24 @@
+package com.polarbookshop.edgeservice.snapshot;
+
+import java.time.Clock;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+@Configuration
+@EnableConfigurationProperties(SnapshotProperties.class)
+public class SnapshotConfig {
+
+	@Bean
+	SnapshotStore snapshotStore(ReactiveStringRedisTemplate redisTemplate, SnapshotProperties snapshotProperties) {
+		return new SnapshotStore(redisTemplate, snapshotProperties);
+	}
+
+	@Bean
+	SnapshotGatewayFilterFactory snapshotGatewayFilterFactory(SnapshotStore snapshotStore) {
+		return new SnapshotGatewayFilterFactory(snapshotStore, Clock.systemUTC());
+	}
+
+}
@@ -0,0 +1,152 @@
+package com.polarbookshop.edgeservice.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR;
+
+/**
+ * Keeps the last successful response to each GET request of the route, so that a
+ * circuit breaker fallback can serve it while the downstream service is unavailable.
+ * It must come before the CircuitBreaker filter, since it also records the original
+ * path for the fallback. Only the query parameters in {@link Config#getQueryParams()}
+ * are part of the key, in a fixed order: requests with any other parameter are not
+ * kept, so clients can't fill the store with arbitrary queries.
+ */
+public class SnapshotGatewayFilterFactory extends AbstractGatewayFilterFactory<SnapshotGatewayFilterFactory.Config> {
+
+	/**
+	 * Exchange attribute with the key of the snapshot for the current request.
+	 */
+	public static final String SNAPSHOT_KEY_ATTR = SnapshotGatewayFilterFactory.class.getName() + ".key";
+
+	private final SnapshotStore snapshotStore;
+	private final Clock clock;
+
+	public SnapshotGatewayFilterFactory(SnapshotStore snapshotStore, Clock clock) {
+		super(Config.class);
+		this.snapshotStore = snapshotStore;
+		this.clock = clock;
+	}
+
+	@Override
+	public GatewayFilter apply(Config config) {
+		return (exchange, chain) -> {
+			if (!HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+				return chain.filter(exchange);
+			}
+			String key = keyOf(exchange.getRequest().getURI().getRawPath(), exchange.getRequest().getQueryParams(),
+					config.getQueryParams());
+			if (key == null) {
+				return chain.filter(exchange);
+			}
+			exchange.getAttributes().put(SNAPSHOT_KEY_ATTR, key);
+			return chain.filter(exchange.mutate().response(new CapturingResponse(exchange, key)).build());
+		};
+	}
+
+	/**
+	 * The path followed by the allowed query parameters in the configured order, with
+	 * their first value, or {@code null} if the request has any other parameter.
+	 */
+	@Nullable
+	static String keyOf(String path, MultiValueMap<String, String> queryParams, List<String> allowedParams) {
+		if (!allowedParams.containsAll(queryParams.keySet())) {
+			return null;
+		}
+		var key = new StringBuilder(path);
+		char separator = '?';
+		for (String name : allowedParams) {
+			String value = queryParams.getFirst(name);
+			if (value != null) {
+				key.append(separator).append(name).append('=').append(value);
+				separator = '&';
+			}
+		}
+		return key.toString();
+	}
+
+	private final class CapturingResponse extends ServerHttpResponseDecorator {
+
+		private final ServerWebExchange exchange;
+		private final String key;
+
+		private CapturingResponse(ServerWebExchange exchange, String key) {
+			super(exchange.getResponse());
+			this.exchange = exchange;
+			this.key = key;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			// Responses written by the circuit breaker fallback are not from the downstream service
+			if (getStatusCode() != HttpStatus.OK || exchange.getAttributes().containsKey(CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR)) {
+				return super.writeWith(body);
+			}
+			var content = new ByteArrayOutputStream();
+			var tooLarge = new AtomicBoolean();
+			Flux<? extends DataBuffer> captured = Flux.from(body).doOnNext(dataBuffer -> {
+				if (tooLarge.get()) {
+					return;
+				}
+				if (!snapshotStore.fits(content.size() + dataBuffer.readableByteCount())) {
+					tooLarge.set(true);
+					return;
+				}
+				// A view of the readable bytes, which leaves the buffer untouched for the client
+				var bytes = dataBuffer.asByteBuffer();
+				var copy = new byte[bytes.remaining()];
+				bytes.get(copy);
+				content.writeBytes(copy);
+			});
+			return super.writeWith(captured).doOnSuccess(done -> {
+				if (!tooLarge.get()) {
+					save(getDelegate(), content.toByteArray());
+				}
+			});
+		}
+
+		private void save(ServerHttpResponse response, byte[] body) {
+			HttpHeaders headers = response.getHeaders();
+			var contentType = headers.getContentType();
+			var snapshot = new Snapshot(body, contentType != null ? contentType.toString() : null,
+					headers.getFirst(HttpHeaders.CONTENT_ENCODING), clock.instant());
+			// Saved in the background, so that clients don't wait for Redis
+			snapshotStore.save(key, snapshot).subscribe();
+		}
+
+	}
+
+	public static class Config {
+
+		private List<String> queryParams = List.of();
+
+		public List<String> getQueryParams() {
+			return queryParams;
+		}
+
+		public void setQueryParams(List<String> queryParams) {
+			this.queryParams = queryParams;
+		}
+
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.polarbookshop.edgeservice.snapshot;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "polar.snapshots")
+public record SnapshotProperties (
+
+	/**
+	 * How long the last successful response for a path is kept to be served by a fallback.
+	 */
+	Duration ttl,
+
+	/**
+	 * Responses larger than this are not kept.
+	 */
+	DataSize maxBodySize,
+
+	/**
+	 * New paths are not kept once the store holds this many snapshots.
+	 */
+	int maxEntries
+
+){}
@@ -0,0 +1,96 @@
+package com.polarbookshop.edgeservice.snapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Keeps the snapshots in Redis, shared by all the Edge Service instances. Each one
+ * expires after the configured TTL, and an index of the snapshots by time of storage
+ * bounds their number: once it's full, new paths are not kept until older ones expire.
+ * A snapshot is saved by a script, so it's never seen half written, and one that
+ * hasn't changed only gets its time of storage updated.
+ */
+public class SnapshotStore {
+
+	private static final Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+
+	private static final String KEY_PREFIX = "polar:edge:snapshot:";
+	private static final String INDEX_KEY = "polar:edge:snapshots";
+	private static final RedisScript<Long> SAVE_SCRIPT =
+			RedisScript.of(new ClassPathResource("META-INF/scripts/save_snapshot.lua"), Long.class);
+	private static final String BODY = "body";
+	private static final String CONTENT_TYPE = "contentType";
+	private static final String CONTENT_ENCODING = "contentEncoding";
+	private static final String STORED_AT = "storedAt";
+
+	private final ReactiveStringRedisTemplate redisTemplate;
+	private final SnapshotProperties properties;
+
+	public SnapshotStore(ReactiveStringRedisTemplate redisTemplate, SnapshotProperties properties) {
+		this.redisTemplate = redisTemplate;
+		this.properties = properties;
+	}
+
+	public Mono<Void> save(String key, Snapshot snapshot) {
+		var args = List.of(
+				String.valueOf(snapshot.storedAt().toEpochMilli()),
+				String.valueOf(properties.ttl().toMillis()),
+				String.valueOf(properties.maxEntries()),
+				digest(snapshot),
+				snapshot.storedAt().toString(),
+				Base64.getEncoder().encodeToString(snapshot.body()),
+				Objects.requireNonNullElse(snapshot.contentType(), ""),
+				Objects.requireNonNullElse(snapshot.contentEncoding(), ""));
+		return redisTemplate.execute(SAVE_SCRIPT, List.of(KEY_PREFIX + key, INDEX_KEY), args)
+				.next()
+				.doOnNext(saved -> {
+					if (saved == 0) {
+						log.debug("Snapshot for {} not kept, the store is full", key);
+					}
+				})
+				.doOnError(exception -> log.warn("Failed to save the snapshot for {}", key, exception))
+				.onErrorResume(exception -> Mono.empty())
+				.then();
+	}
+
+	public Mono<Snapshot> find(String key) {
+		return redisTemplate.<String, String>opsForHash()
+				.multiGet(KEY_PREFIX + key, List.of(BODY, CONTENT_TYPE, CONTENT_ENCODING, STORED_AT))
+				.filter(values -> values.get(0) != null && values.get(3) != null)
+				.map(values -> new Snapshot(Base64.getDecoder().decode(values.get(0)), values.get(1), values.get(2),
+						Instant.parse(values.get(3))))
+				.doOnError(exception -> log.warn("Failed to read the snapshot for {}", key, exception))
+				.onErrorResume(exception -> Mono.empty());
+	}
+
+	boolean fits(int size) {
+		return size <= properties.maxBodySize().toBytes();
+	}
+
+	static String digest(Snapshot snapshot) {
+		try {
+			var digest = MessageDigest.getInstance("SHA-256");
+			digest.update(snapshot.body());
+			digest.update(String.valueOf(snapshot.contentType()).getBytes(StandardCharsets.UTF_8));
+			digest.update(String.valueOf(snapshot.contentEncoding()).getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(digest.digest());
+		}
+		catch (NoSuchAlgorithmException exception) {
+			throw new IllegalStateException("SHA-256 is required by every Java platform", exception);
+		}
+	}
+
+}
@@ -1,25 +1,72 @@
 package com.polarbookshop.edgeservice.web;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+
+import com.polarbookshop.edgeservice.snapshot.Snapshot;
+import com.polarbookshop.edgeservice.snapshot.SnapshotStore;
 import reactor.core.publisher.Mono;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
+import static com.polarbookshop.edgeservice.snapshot.SnapshotGatewayFilterFactory.SNAPSHOT_KEY_ATTR;
+
 @Configuration
 public class WebEndpoints {
 
+	private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
 	@Bean
-	public RouterFunction<ServerResponse> routerFunction() {
+	public RouterFunction<ServerResponse> routerFunction(SnapshotStore snapshotStore) {
 		return RouterFunctions.route()
 				.GET("/catalog-fallback", request ->
-						ServerResponse.ok().body(Mono.just(""), String.class))
+						lastKnownResponse(request, snapshotStore, Clock.systemUTC())
+								.switchIfEmpty(ServerResponse.ok().body(Mono.just(""), String.class)))
 				.POST("/catalog-fallback", request ->
 						ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).build())
 				.build();
 	}
-	
+
+	static Mono<ServerResponse> lastKnownResponse(ServerRequest request, SnapshotStore snapshotStore, Clock clock) {
+		return request.attribute(SNAPSHOT_KEY_ATTR)
+				.map(key -> snapshotStore.find(key.toString()))
+				.orElseGet(Mono::empty)
+				.filter(snapshot -> acceptsEncoding(request, snapshot))
+				.flatMap(snapshot -> {
+					long age = Math.max(0, Duration.between(snapshot.storedAt(), clock.instant()).toSeconds());
+					var response = ServerResponse.ok()
+							.header(HttpHeaders.AGE, Long.toString(age))
+							.header(HttpHeaders.WARNING, STALE_WARNING);
+					if (snapshot.contentType() != null) {
+						response.contentType(MediaType.parseMediaType(snapshot.contentType()));
+					}
+					if (snapshot.contentEncoding() != null) {
+						response.header(HttpHeaders.CONTENT_ENCODING, snapshot.contentEncoding());
+					}
+					return response.bodyValue(snapshot.body());
+				});
+	}
+
+	/**
+	 * A compressed snapshot can only be served to clients that accept its encoding.
+	 */
+	private static boolean acceptsEncoding(ServerRequest request, Snapshot snapshot) {
+		if (snapshot.contentEncoding() == null || "identity".equalsIgnoreCase(snapshot.contentEncoding())) {
+			return true;
+		}
+		return request.headers().header(HttpHeaders.ACCEPT_ENCODING).stream()
+				.flatMap(value -> Arrays.stream(value.split(",")))
+				.map(coding -> coding.split(";")[0].trim())
+				.anyMatch(coding -> coding.equalsIgnoreCase(snapshot.contentEncoding()) || coding.equals("*"));
+	}
+
 }
@@ -0,0 +1,28 @@
+-- Saves a snapshot in a single step. An unchanged snapshot only gets its time of storage
+-- updated, and a new path is not saved once the index holds max entries snapshots.
+-- KEYS[1]: the snapshot hash, KEYS[2]: the index of the snapshots by time of storage
+-- ARGV[1]: now (ms), ARGV[2]: ttl (ms), ARGV[3]: max entries, ARGV[4]: digest,
+-- ARGV[5]: stored at, ARGV[6]: body, ARGV[7]: content type, ARGV[8]: content encoding
+local now = tonumber(ARGV[1])
+local ttl = tonumber(ARGV[2])
+
+redis.call('zremrangebyscore', KEYS[2], '-inf', now - ttl)
+if redis.call('hget', KEYS[1], 'digest') == ARGV[4] then
+  redis.call('hset', KEYS[1], 'storedAt', ARGV[5])
+else
+  if not redis.call('zscore', KEYS[2], KEYS[1]) and redis.call('zcard', KEYS[2]) >= tonumber(ARGV[3]) then
+    return 0
+  end
+  redis.call('del', KEYS[1])
+  redis.call('hset', KEYS[1], 'digest', ARGV[4], 'storedAt', ARGV[5], 'body', ARGV[6])
+  if ARGV[7] ~= '' then
+    redis.call('hset', KEYS[1], 'contentType', ARGV[7])
+  end
+  if ARGV[8] ~= '' then
+    redis.call('hset', KEYS[1], 'contentEncoding', ARGV[8])
+  end
+end
+redis.call('pexpire', KEYS[1], ttl)
+redis.call('zadd', KEYS[2], now, KEYS[1])
+redis.call('pexpire', KEYS[2], ttl)
+return 1
@@ -0,0 +1,197 @@
+package com.polarbookshop.edgeservice.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.boot.web.server.Compression;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrecompressedGatewayFilterFactoryTests {
+
+	private static final byte[] BOOKS = "[{\"isbn\":\"1234567891\"}]".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+	private final PrecompressedBody body = new PrecompressedBody("application/json",
+			new byte[] { 1 }, new byte[] { 2 }, Instant.MAX);
+	private final PrecompressedBody gzipOnlyBody = new PrecompressedBody("application/json",
+			new byte[] { 1 }, null, Instant.MAX);
+
+	@Test
+	void whenClientAcceptsBrotliThenBrotliPreferred() {
+		assertThat(PrecompressedGatewayFilterFactory.preferredEncoding(List.of("gzip, deflate, br"), body))
+				.isEqualTo("br");
+	}
+
+	@Test
+	void whenClientPrefersGzipThenGzip() {
+		assertThat(PrecompressedGatewayFilterFactory.preferredEncoding(List.of("br;q=0.5, gzip"), body))
+				.isEqualTo("gzip");
+	}
+
+	@Test
+	void whenBrotliNotAvailableThenGzip() {
+		assertThat(PrecompressedGatewayFilterFactory.preferredEncoding(List.of("br, gzip"), gzipOnlyBody))
+				.isEqualTo("gzip");
+	}
+
+	@Test
+	void whenClientAcceptsAnyEncodingThenBrotli() {
+		assertThat(PrecompressedGatewayFilterFactory.preferredEncoding(List.of("*"), body))
+				.isEqualTo("br");
+	}
+
+	@Test
+	void whenClientRefusesEncodingsThenNone() {
+		assertThat(PrecompressedGatewayFilterFactory.preferredEncoding(List.of("gzip;q=0, identity"), gzipOnlyBody))
+				.isNull();
+		assertThat(PrecompressedGatewayFilterFactory.preferredEncoding(null, body))
+				.isNull();
+	}
+
+	@Test
+	void whenGzippedThenOriginalBodyRestored() throws IOException {
+		var compressed = PrecompressedCache.gzip(BOOKS);
+
+		assertThat(compressed.length).isLessThan(BOOKS.length);
+		try (var input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			assertThat(input.readAllBytes()).isEqualTo(BOOKS);
+		}
+	}
+
+	@Test
+	void whenMaxAgeThenSharedCacheMaxAgePreferred() {
+		assertThat(PrecompressedGatewayFilterFactory.maxAge("max-age=5, public")).isEqualTo(Duration.ofSeconds(5));
+		assertThat(PrecompressedGatewayFilterFactory.maxAge("max-age=60, s-maxage=5")).isEqualTo(Duration.ofSeconds(5));
+		assertThat(PrecompressedGatewayFilterFactory.maxAge("public")).isNull();
+		assertThat(PrecompressedGatewayFilterFactory.maxAge(null)).isNull();
+	}
+
+	@Test
+	void whenCacheableResponseThenNextRequestServedPrecompressed() throws IOException {
+		var downstream = new Downstream("max-age=5, public");
+		var filter = filter();
+
+		var first = get("/books");
+		filter.filter(first, downstream).block();
+		var second = get("/books");
+		filter.filter(second, downstream).block();
+
+		assertThat(downstream.requests).hasValue(1);
+		assertThat(downstream.acceptEncoding).isNull();
+		assertThat(first.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+		var headers = second.getResponse().getHeaders();
+		assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(headers.getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+		try (var input = new GZIPInputStream(new ByteArrayInputStream(body(second)))) {
+			assertThat(input.readAllBytes()).isEqualTo(BOOKS);
+		}
+	}
+
+	@Test
+	void whenResponseNotToBeStoredThenNextRequestSentDownstream() {
+		var downstream = new Downstream("no-cache, no-store, max-age=0, must-revalidate");
+		var filter = filter();
+
+		filter.filter(get("/books"), downstream).block();
+		var second = get("/books");
+		filter.filter(second, downstream).block();
+
+		assertThat(downstream.requests).hasValue(2);
+		assertThat(second.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+		assertThat(body(second)).isEqualTo(BOOKS);
+	}
+
+	@Test
+	void whenResponseWithoutCacheControlThenNextRequestSentDownstream() {
+		var downstream = new Downstream(null);
+		var filter = filter();
+
+		filter.filter(get("/books"), downstream).block();
+		filter.filter(get("/books"), downstream).block();
+
+		assertThat(downstream.requests).hasValue(2);
+	}
+
+	@Test
+	void whenBookChangedThenListingSentDownstream() {
+		var downstream = new Downstream("max-age=5, public");
+		var filter = filter();
+
+		filter.filter(get("/books"), downstream).block();
+		filter.filter(MockServerWebExchange.from(MockServerHttpRequest.put("/books/1234567891").build()), downstream).block();
+		filter.filter(get("/books"), downstream).block();
+
+		assertThat(downstream.requests).hasValue(3);
+	}
+
+	private static GatewayFilter filter() {
+		var properties = new PrecompressedProperties(Duration.ofMinutes(1), DataSize.ofMegabytes(1), 16);
+		var compression = new Compression();
+		compression.setMinResponseSize(DataSize.ofBytes(1));
+		var factory = new PrecompressedGatewayFilterFactory(new PrecompressedCache(properties, Clock.systemUTC()),
+				compression, new SimpleMeterRegistry(), Schedulers.immediate());
+		return factory.apply(new Object());
+	}
+
+	private static MockServerWebExchange get(String path) {
+		return MockServerWebExchange.from(MockServerHttpRequest.get(path)
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+	}
+
+	private static byte[] body(MockServerWebExchange exchange) {
+		return DataBufferUtils.join(exchange.getResponse().getBody())
+				.map(dataBuffer -> {
+					var bytes = new byte[dataBuffer.readableByteCount()];
+					dataBuffer.read(bytes);
+					return bytes;
+				})
+				.block();
+	}
+
+	private static class Downstream implements GatewayFilterChain {
+
+		private final String cacheControl;
+		private final AtomicInteger requests = new AtomicInteger();
+		private volatile String acceptEncoding;
+
+		Downstream(String cacheControl) {
+			this.cacheControl = cacheControl;
+		}
+
+		@Override
+		public Mono<Void> filter(ServerWebExchange exchange) {
+			requests.incrementAndGet();
+			acceptEncoding = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+			var response = exchange.getResponse();
+			response.setStatusCode(HttpStatus.OK);
+			response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+			response.getHeaders().setCacheControl(cacheControl);
+			response.getHeaders().setContentLength(BOOKS.length);
+			return response.writeWith(Mono.just(response.bufferFactory().wrap(BOOKS)));
+		}
+
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.polarbookshop.edgeservice.lane;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class LaneRoutingFilterTests {
+
+	private final HttpClient gatewayHttpClient = HttpClient.create();
+	private final ConnectionProvider connectionProvider = ConnectionProvider.newConnection();
+	private final PriorityLane lane = new PriorityLane("browse", new LaneProperties.Lane(1, 1, Duration.ofMillis(200), 1),
+			HttpClient.create(connectionProvider), connectionProvider, new SimpleMeterRegistry());
+
+	@AfterEach
+	void clean() {
+		lane.dispose();
+	}
+
+	@Test
+	void whenRouteInLaneThenLaneClientUsed() {
+		var filter = filter();
+
+		assertThat(filter.getHttpClient(route("browse"), exchange())).isSameAs(lane.httpClient());
+	}
+
+	@Test
+	void whenRouteWithoutLaneThenGatewayClientUsed() {
+		var filter = filter();
+
+		assertThat(filter.getHttpClient(route(null), exchange())).isSameAs(gatewayHttpClient);
+	}
+
+	@Test
+	void whenLaneClientBuiltThenGatewaySettingsKept() {
+		var properties = new HttpClientProperties();
+		properties.setConnectTimeout(2000);
+		properties.setCompression(true);
+
+		var httpClient = LaneConfig.laneHttpClient(connectionProvider, gatewayHttpClient, properties,
+				List.of(client -> client.responseTimeout(Duration.ofSeconds(5))));
+
+		assertThat(httpClient.configuration().options()).containsEntry(ChannelOption.CONNECT_TIMEOUT_MILLIS, 2000);
+		assertThat(httpClient.configuration().isAcceptGzip()).isTrue();
+		assertThat(httpClient.configuration().responseTimeout()).isEqualTo(Duration.ofSeconds(5));
+	}
+
+	@SuppressWarnings("unchecked")
+	private LaneRoutingFilter filter() {
+		return new LaneRoutingFilter(gatewayHttpClient, mock(ObjectProvider.class), new HttpClientProperties(),
+				new PriorityLanes(Map.of("browse", lane)));
+	}
+
+	private static Route route(String lane) {
+		var route = Route.async().id("catalog-route").uri("http://localhost:9001").predicate(exchange -> true);
+		if (lane != null) {
+			route.metadata(PriorityLanes.LANE_METADATA, lane);
+		}
+		return route.build();
+	}
+
+	private static MockServerWebExchange exchange() {
+		return MockServerWebExchange.from(MockServerHttpRequest.get("/books"));
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.polarbookshop.edgeservice.lane;
+
+import java.time.Duration;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class PriorityLaneFilterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ConnectionProvider connectionProvider = ConnectionProvider.newConnection();
+	private final PriorityLane lane = new PriorityLane("browse",
+			new LaneProperties.Lane(1, 0, Duration.ofMillis(200), 1),
+			HttpClient.create(connectionProvider), connectionProvider, meterRegistry);
+	private final PriorityLaneFilter filter = new PriorityLaneFilter(new PriorityLanes(Map.of("browse", lane)),
+			Duration.ofSeconds(1));
+
+	@AfterEach
+	void clean() {
+		lane.dispose();
+	}
+
+	@Test
+	void whenResponseBeingWrittenThenPermitHeld() {
+		Sinks.Empty<Void> responseWritten = Sinks.empty();
+		GatewayFilterChain chain = exchange -> {
+			exchange.getResponse().setStatusCode(HttpStatus.OK);
+			return responseWritten.asMono();
+		};
+
+		StepVerifier.create(filter.filter(exchange("browse"), chain))
+				.then(() -> assertThat(lane.active()).isEqualTo(1))
+				.then(responseWritten::tryEmitEmpty)
+				.verifyComplete();
+
+		assertThat(lane.active()).isZero();
+		assertThat(meterRegistry.get("polar.gateway.lane.requests").tags("lane", "browse", "outcome", "SUCCESSFUL")
+				.timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void whenLaneFullThenServiceUnavailable() {
+		StepVerifier.create(lane.acquire()).verifyComplete();
+		var exchange = exchange("browse");
+
+		StepVerifier.create(filter.filter(exchange, forwarded -> Mono.empty())).verifyComplete();
+
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+	}
+
+	@Test
+	void whenRouteWithoutLaneThenForwardedDirectly() {
+		StepVerifier.create(lane.acquire()).verifyComplete();
+		var exchange = exchange(null);
+
+		StepVerifier.create(filter.filter(exchange, forwarded -> {
+			forwarded.getResponse().setStatusCode(HttpStatus.OK);
+			return Mono.empty();
+		})).verifyComplete();
+
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	void whenOrderedThenBeforeResponseWrittenAndRouteFilters() {
+		assertThat(filter.getOrder()).isLessThan(-1);
+	}
+
+	private static MockServerWebExchange exchange(String lane) {
+		var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/books"));
+		var route = Route.async().id("catalog-route").uri("http://localhost:9001").predicate(serverWebExchange -> true);
+		if (lane != null) {
+			route.metadata(PriorityLanes.LANE_METADATA, lane);
+		}
+		exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route.build());
+		return exchange;
+	}
+
+}
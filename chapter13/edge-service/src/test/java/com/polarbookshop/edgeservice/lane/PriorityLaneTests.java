@@ -0,0 +1,71 @@
+package com.polarbookshop.edgeservice.lane;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriorityLaneTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ConnectionProvider connectionProvider = ConnectionProvider.newConnection();
+	private final PriorityLane lane = new PriorityLane("browse",
+			new LaneProperties.Lane(1, 1, Duration.ofMillis(200), 1),
+			HttpClient.create(connectionProvider), connectionProvider, meterRegistry);
+
+	@AfterEach
+	void clean() {
+		lane.dispose();
+	}
+
+	@Test
+	void whenBudgetAvailableThenAdmittedImmediately() {
+		StepVerifier.create(lane.acquire()).verifyComplete();
+		assertThat(lane.active()).isEqualTo(1);
+
+		lane.release();
+		assertThat(lane.active()).isZero();
+	}
+
+	@Test
+	void whenBudgetUsedThenQueuedUntilRelease() {
+		StepVerifier.create(lane.acquire()).verifyComplete();
+
+		StepVerifier.create(lane.acquire())
+				.then(() -> assertThat(lane.queued()).isEqualTo(1))
+				.then(lane::release)
+				.verifyComplete();
+
+		assertThat(lane.active()).isEqualTo(1);
+		assertThat(lane.queued()).isZero();
+	}
+
+	@Test
+	void whenQueueFullThenRejected() {
+		StepVerifier.create(lane.acquire()).verifyComplete();
+		lane.acquire().subscribe();
+
+		StepVerifier.create(lane.acquire())
+				.verifyError(LaneFullException.class);
+		assertThat(meterRegistry.get("polar.gateway.lane.rejected").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void whenWaitTooLongThenRejectedAndDequeued() {
+		StepVerifier.create(lane.acquire()).verifyComplete();
+
+		StepVerifier.create(lane.acquire())
+				.verifyError(LaneFullException.class);
+		assertThat(lane.queued()).isZero();
+
+		lane.release();
+		assertThat(lane.active()).isZero();
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.polarbookshop.edgeservice.retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class RetryBudgetGatewayFilterFactoryTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RetryBudgetGatewayFilterFactory factory = new RetryBudgetGatewayFilterFactory(meterRegistry);
+	private final AtomicInteger calls = new AtomicInteger();
+
+	@Test
+	void whenBudgetAvailableThenRetriedUpToLimit() {
+		var exchange = exchange(MockServerHttpRequest.get("/books"));
+
+		factory.apply(config(5)).filter(exchange, failing(false)).block();
+
+		assertThat(calls).hasValue(4);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(meterRegistry.get("polar.gateway.retries.issued").tag("route", "catalog-route").counter().count())
+				.isEqualTo(3);
+	}
+
+	@Test
+	void whenBudgetExhaustedThenNotRetried() {
+		var exchange = exchange(MockServerHttpRequest.get("/books"));
+
+		factory.apply(config(0)).filter(exchange, failing(false)).block();
+
+		assertThat(calls).hasValue(1);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(meterRegistry.get("polar.gateway.retries.denied").tag("route", "catalog-route").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void whenSuccessfulResponsesThenBudgetEarned() {
+		var filter = factory.apply(config(0));
+		GatewayFilterChain succeeding = exchange -> {
+			exchange.getResponse().setStatusCode(HttpStatus.OK);
+			return Mono.empty();
+		};
+		for (int i = 0; i < 10; i++) {
+			filter.filter(exchange(MockServerHttpRequest.get("/books")), succeeding).block();
+		}
+
+		filter.filter(exchange(MockServerHttpRequest.get("/books")), failing(false)).block();
+
+		// 10 successful requests at a 0.1 ratio earn exactly one retry
+		assertThat(calls).hasValue(2);
+		assertThat(factory.budget("catalog-route").balance()).isZero();
+	}
+
+	@Test
+	void whenResponseCommittedThenNotRetried() {
+		var exchange = exchange(MockServerHttpRequest.get("/books"));
+
+		factory.apply(config(5)).filter(exchange, failing(true)).block();
+
+		assertThat(calls).hasValue(1);
+	}
+
+	@Test
+	void whenMethodNotConfiguredThenNotRetried() {
+		var exchange = exchange(MockServerHttpRequest.post("/orders"));
+
+		factory.apply(config(5)).filter(exchange, failing(false)).block();
+
+		assertThat(calls).hasValue(1);
+		assertThat(factory.budget("catalog-route")).isNull();
+	}
+
+	private GatewayFilterChain failing(boolean commit) {
+		return exchange -> {
+			calls.incrementAndGet();
+			exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+			return commit ? exchange.getResponse().setComplete() : Mono.empty();
+		};
+	}
+
+	private static RetryBudgetGatewayFilterFactory.Config config(int minRetriesPerSecond) {
+		var config = new RetryBudgetGatewayFilterFactory.Config();
+		config.setFirstBackoff(Duration.ofMillis(1));
+		config.setMaxBackoff(Duration.ofMillis(1));
+		config.setMinRetriesPerSecond(minRetriesPerSecond);
+		return config;
+	}
+
+	private static ServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+		var exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, Route.async().id("catalog-route")
+				.uri("http://localhost:9001").predicate(serverWebExchange -> true).build());
+		return exchange;
+	}
+
+}
@@ -0,0 +1,139 @@
+package com.polarbookshop.edgeservice.snapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR;
+
+class SnapshotGatewayFilterFactoryTests {
+
+	private static final byte[] BOOKS = "[{\"isbn\":\"1234567891\"}]".getBytes(StandardCharsets.UTF_8);
+	private static final Instant NOW = Instant.parse("2024-05-01T10:15:30Z");
+
+	private final SnapshotStore snapshotStore = mock(SnapshotStore.class);
+
+	@Test
+	void whenAllowedQueryParamsThenKeyInConfiguredOrder() {
+		MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
+		queryParams.add("size", "10");
+		queryParams.add("page", "2");
+		queryParams.add("page", "3");
+
+		assertThat(SnapshotGatewayFilterFactory.keyOf("/books", queryParams, List.of("page", "size")))
+				.isEqualTo("/books?page=2&size=10");
+		assertThat(SnapshotGatewayFilterFactory.keyOf("/books", new LinkedMultiValueMap<>(), List.of("page", "size")))
+				.isEqualTo("/books");
+	}
+
+	@Test
+	void whenOtherQueryParamThenNoKey() {
+		MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
+		queryParams.add("page", "0");
+		queryParams.add("cacheBuster", "42");
+
+		assertThat(SnapshotGatewayFilterFactory.keyOf("/books", queryParams, List.of("page", "size"))).isNull();
+	}
+
+	@Test
+	void whenSuccessfulResponseThenSnapshotSaved() {
+		given(snapshotStore.fits(anyInt())).willReturn(true);
+		given(snapshotStore.save(anyString(), any())).willReturn(Mono.empty());
+		var exchange = get("/books?size=10&page=0");
+
+		filter().filter(exchange, downstream(HttpStatus.OK)).block();
+
+		var snapshot = ArgumentCaptor.forClass(Snapshot.class);
+		verify(snapshotStore).save(eq("/books?page=0&size=10"), snapshot.capture());
+		assertThat(snapshot.getValue().body()).isEqualTo(BOOKS);
+		assertThat(snapshot.getValue().contentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+		assertThat(snapshot.getValue().storedAt()).isEqualTo(NOW);
+		assertThat(exchange.<String>getAttribute(SnapshotGatewayFilterFactory.SNAPSHOT_KEY_ATTR))
+				.isEqualTo("/books?page=0&size=10");
+	}
+
+	@Test
+	void whenErrorResponseThenSnapshotNotSaved() {
+		given(snapshotStore.fits(anyInt())).willReturn(true);
+
+		filter().filter(get("/books"), downstream(HttpStatus.INTERNAL_SERVER_ERROR)).block();
+
+		verify(snapshotStore, never()).save(anyString(), any());
+	}
+
+	@Test
+	void whenResponseTooLargeThenSnapshotNotSaved() {
+		given(snapshotStore.fits(anyInt())).willReturn(false);
+		var exchange = get("/books");
+
+		filter().filter(exchange, downstream(HttpStatus.OK)).block();
+
+		verify(snapshotStore, never()).save(anyString(), any());
+	}
+
+	@Test
+	void whenFallbackResponseThenSnapshotNotSaved() {
+		given(snapshotStore.fits(anyInt())).willReturn(true);
+		var exchange = get("/books");
+		exchange.getAttributes().put(CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR, new IllegalStateException("Open"));
+
+		filter().filter(exchange, downstream(HttpStatus.OK)).block();
+
+		verify(snapshotStore, never()).save(anyString(), any());
+	}
+
+	@Test
+	void whenOtherQueryParamThenSnapshotNotSaved() {
+		var exchange = get("/books?isbn=1234567891");
+
+		filter().filter(exchange, downstream(HttpStatus.OK)).block();
+
+		verify(snapshotStore, never()).save(anyString(), any());
+		assertThat(exchange.getAttributes()).doesNotContainKey(SnapshotGatewayFilterFactory.SNAPSHOT_KEY_ATTR);
+	}
+
+	private GatewayFilter filter() {
+		var config = new SnapshotGatewayFilterFactory.Config();
+		config.setQueryParams(List.of("page", "size"));
+		return new SnapshotGatewayFilterFactory(snapshotStore, Clock.fixed(NOW, ZoneOffset.UTC)).apply(config);
+	}
+
+	private static MockServerWebExchange get(String uri) {
+		return MockServerWebExchange.from(MockServerHttpRequest.get(uri));
+	}
+
+	private static GatewayFilterChain downstream(HttpStatus status) {
+		return (ServerWebExchange exchange) -> {
+			var response = exchange.getResponse();
+			response.setStatusCode(status);
+			response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+			return response.writeWith(Mono.just(response.bufferFactory().wrap(BOOKS)));
+		};
+	}
+
+}
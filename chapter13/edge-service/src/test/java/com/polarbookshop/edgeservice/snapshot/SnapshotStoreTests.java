@@ -0,0 +1,99 @@
+package com.polarbookshop.edgeservice.snapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.test.StepVerifier;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+class SnapshotStoreTests {
+
+	private static final int REDIS_PORT = 6379;
+	private static final Instant NOW = Instant.parse("2024-05-01T10:15:30Z");
+
+	@Container
+	static GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7.0"))
+			.withExposedPorts(REDIS_PORT);
+
+	private static LettuceConnectionFactory connectionFactory;
+	private static ReactiveStringRedisTemplate redisTemplate;
+
+	private final SnapshotStore snapshotStore = new SnapshotStore(redisTemplate,
+			new SnapshotProperties(Duration.ofHours(1), DataSize.ofKilobytes(256), 2));
+
+	@BeforeAll
+	static void connect() {
+		connectionFactory = new LettuceConnectionFactory(
+				new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(REDIS_PORT)));
+		connectionFactory.afterPropertiesSet();
+		redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+	}
+
+	@AfterAll
+	static void disconnect() {
+		connectionFactory.destroy();
+	}
+
+	@BeforeEach
+	void flush() {
+		redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+	}
+
+	@Test
+	void whenSavedThenFound() {
+		snapshotStore.save("/books", snapshot("[]", NOW)).block();
+
+		StepVerifier.create(snapshotStore.find("/books"))
+				.assertNext(snapshot -> {
+					assertThat(new String(snapshot.body(), StandardCharsets.UTF_8)).isEqualTo("[]");
+					assertThat(snapshot.contentType()).isEqualTo("application/json");
+					assertThat(snapshot.contentEncoding()).isNull();
+					assertThat(snapshot.storedAt()).isEqualTo(NOW);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void whenSavedUnchangedThenOnlyTimeOfStorageUpdated() {
+		snapshotStore.save("/books", snapshot("[]", NOW)).block();
+		snapshotStore.save("/books", snapshot("[]", NOW.plusSeconds(60))).block();
+
+		StepVerifier.create(snapshotStore.find("/books"))
+				.assertNext(snapshot -> assertThat(snapshot.storedAt()).isEqualTo(NOW.plusSeconds(60)))
+				.verifyComplete();
+	}
+
+	@Test
+	void whenStoreFullThenOnlyKnownPathsSaved() {
+		snapshotStore.save("/books", snapshot("[]", NOW)).block();
+		snapshotStore.save("/books?page=1", snapshot("[]", NOW)).block();
+		snapshotStore.save("/books?page=2", snapshot("[]", NOW)).block();
+		snapshotStore.save("/books", snapshot("[{}]", NOW)).block();
+
+		StepVerifier.create(snapshotStore.find("/books?page=2")).verifyComplete();
+		StepVerifier.create(snapshotStore.find("/books"))
+				.assertNext(snapshot -> assertThat(new String(snapshot.body(), StandardCharsets.UTF_8)).isEqualTo("[{}]"))
+				.verifyComplete();
+	}
+
+	private static Snapshot snapshot(String body, Instant storedAt) {
+		return new Snapshot(body.getBytes(StandardCharsets.UTF_8), "application/json", null, storedAt);
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.polarbookshop.edgeservice.web;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import com.polarbookshop.edgeservice.snapshot.Snapshot;
+import com.polarbookshop.edgeservice.snapshot.SnapshotStore;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.web.reactive.function.server.EntityResponse;
+
+import static com.polarbookshop.edgeservice.snapshot.SnapshotGatewayFilterFactory.SNAPSHOT_KEY_ATTR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class WebEndpointsTests {
+
+	private static final Instant NOW = Instant.parse("2026-10-18T10:00:00Z");
+
+	private final SnapshotStore snapshotStore = mock(SnapshotStore.class);
+	private final Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
+	@Test
+	void whenSnapshotAvailableThenServedAsStale() {
+		var body = "[{\"isbn\":\"1234567891\"}]".getBytes(StandardCharsets.UTF_8);
+		given(snapshotStore.find("/books")).willReturn(Mono.just(
+				new Snapshot(body, "application/json", null, NOW.minusSeconds(42))));
+		var request = MockServerRequest.builder().attribute(SNAPSHOT_KEY_ATTR, "/books").build();
+
+		StepVerifier.create(WebEndpoints.lastKnownResponse(request, snapshotStore, clock))
+				.assertNext(response -> {
+					assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+					assertThat(response.headers().getFirst(HttpHeaders.AGE)).isEqualTo("42");
+					assertThat(response.headers().getFirst(HttpHeaders.WARNING)).startsWith("110");
+					assertThat(response.headers().getContentType()).hasToString("application/json");
+					assertThat(((EntityResponse<?>) response).entity()).isEqualTo(body);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void whenSnapshotEncodingNotAcceptedThenNotServed() {
+		given(snapshotStore.find("/books")).willReturn(Mono.just(
+				new Snapshot(new byte[] { 1 }, "application/json", "gzip", NOW)));
+		var request = MockServerRequest.builder()
+				.attribute(SNAPSHOT_KEY_ATTR, "/books")
+				.header(HttpHeaders.ACCEPT_ENCODING, "br")
+				.build();
+
+		StepVerifier.create(WebEndpoints.lastKnownResponse(request, snapshotStore, clock))
+				.verifyComplete();
+	}
+
+	@Test
+	void whenSnapshotEncodingAcceptedThenServedWithEncoding() {
+		given(snapshotStore.find("/books")).willReturn(Mono.just(
+				new Snapshot(new byte[] { 1 }, "application/json", "gzip", NOW)));
+		var request = MockServerRequest.builder()
+				.attribute(SNAPSHOT_KEY_ATTR, "/books")
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+				.build();
+
+		StepVerifier.create(WebEndpoints.lastKnownResponse(request, snapshotStore, clock))
+				.assertNext(response ->
+						assertThat(response.headers().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip"))
+				.verifyComplete();
+	}
+
+	@Test
+	void whenNoSnapshotKeyThenNothingServed() {
+		var request = MockServerRequest.builder().build();
+
+		StepVerifier.create(WebEndpoints.lastKnownResponse(request, snapshotStore, clock))
+				.verifyComplete();
+	}
+
+}
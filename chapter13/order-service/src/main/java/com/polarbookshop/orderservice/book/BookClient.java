@@ -1,10 +1,15 @@
 package com.polarbookshop.orderservice.book;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 
+import com.polarbookshop.commons.resilience.RequestBudget;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
@@ -13,22 +18,54 @@ import org.springframework.web.reactive.function.client.WebClientResponseExcepti
 public class BookClient {
 
 	private static final String BOOKS_ROOT_API = "/books/";
+	private static final String BOOKS_API = "/books";
 	private final WebClient webClient;
+	private final RequestHedger requestHedger;
+	private final RequestBudget retryBudget;
 
-	public BookClient(WebClient webClient) {
+	public BookClient(WebClient webClient, RequestHedger requestHedger, RequestBudget retryBudget) {
 		this.webClient = webClient;
+		this.requestHedger = requestHedger;
+		this.retryBudget = retryBudget;
 	}
 
 	public Mono<Book> getBookByIsbn(String isbn) {
+		return requestHedger.hedge(() -> webClient
+						.get()
+						.uri(BOOKS_ROOT_API + isbn)
+						.retrieve()
+						.bodyToMono(Book.class))
+				.doOnSuccess(book -> retryBudget.deposit())
+				.timeout(Duration.ofSeconds(3), Mono.empty())
+				.onErrorResume(WebClientResponseException.NotFound.class, exception -> Mono.empty())
+				.retryWhen(retries())
+				.onErrorResume(Exception.class, exception -> Mono.empty());
+	}
+
+	/**
+	 * Looks up all the books in one request. Books that don't exist in the catalog are omitted.
+	 * The response is read in full before any book is emitted, so that a retry doesn't repeat
+	 * books and a timeout doesn't truncate the list: either all the books are found, or none.
+	 */
+	public Flux<Book> getBooksByIsbn(Collection<String> isbns) {
 		return webClient
 				.get()
-				.uri(BOOKS_ROOT_API + isbn)
+				.uri(uriBuilder -> uriBuilder.path(BOOKS_API).queryParam("isbn", String.join(",", isbns)).build())
 				.retrieve()
-				.bodyToMono(Book.class)
+				.bodyToMono(new ParameterizedTypeReference<List<Book>>() {})
+				.doOnSuccess(books -> retryBudget.deposit())
 				.timeout(Duration.ofSeconds(3), Mono.empty())
-				.onErrorResume(WebClientResponseException.NotFound.class, exception -> Mono.empty())
-				.retryWhen(Retry.backoff(3, Duration.ofMillis(100)))
-				.onErrorResume(Exception.class, exception -> Mono.empty());
+				.retryWhen(retries())
+				.onErrorResume(Exception.class, exception -> Mono.empty())
+				.flatMapIterable(books -> books);
+	}
+
+	/**
+	 * Retries failed requests up to three times, as long as the budget allows it.
+	 */
+	private Retry retries() {
+		return Retry.backoff(3, Duration.ofMillis(100))
+				.filter(exception -> retryBudget.tryWithdraw());
 	}
 
 }
@@ -0,0 +1,112 @@
+package com.polarbookshop.orderservice.book;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import com.polarbookshop.commons.resilience.RequestBudget;
+import com.polarbookshop.orderservice.config.ClientProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends a second copy of a request when the first one hasn't answered within a
+ * percentile of the recent response times, and returns whichever answers first.
+ * Hedges are paid from a {@link RequestBudget} that grows by a fraction of a token with each
+ * request, so they can't add more than that fraction of extra load, even when
+ * the whole downstream service is slow. When a hedged request wins, the time the
+ * first one had been waiting is recorded as a lower bound of its response time,
+ * otherwise the window would only keep the fast responses and the delay would
+ * shrink precisely when the downstream service slows down.
+ */
+public class RequestHedger {
+
+	private static final int WINDOW_SIZE = 1024;
+	private static final int RECOMPUTE_INTERVAL = 64;
+	private static final int MIN_SAMPLES = 128;
+	private static final int MAX_SAVED_HEDGES = 10;
+
+	private final ClientProperties.Hedging hedging;
+	private final AtomicLongArray latencies = new AtomicLongArray(WINDOW_SIZE);
+	private final AtomicLong samples = new AtomicLong();
+	private final RequestBudget budget;
+	private final Counter won;
+	private volatile long delayNanos;
+
+	public RequestHedger(String client, ClientProperties.Hedging hedging, MeterRegistry meterRegistry) {
+		this.hedging = hedging;
+		this.delayNanos = hedging.maxDelay().toNanos();
+		// Reports polar.client.hedges.issued, denied and balance
+		this.budget = new RequestBudget("polar.client.hedges", Tags.of("client", client), hedging.budgetRatio(),
+				MAX_SAVED_HEDGES, 0, meterRegistry);
+		this.won = Counter.builder("polar.client.hedges.won")
+				.description("Hedged requests that answered before the first one")
+				.tag("client", client)
+				.register(meterRegistry);
+		Gauge.builder("polar.client.hedges.delay", this, hedger -> hedger.delayNanos / 1e9)
+				.description("Time after which a hedged request is sent")
+				.tag("client", client)
+				.baseUnit("seconds")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Subscribes to the request, and to a second one from the same supplier if needed.
+	 * An error from the first request ends the exchange, whereas an error from the
+	 * hedged one is ignored in favour of the first.
+	 */
+	public <T> Mono<T> hedge(Supplier<Mono<T>> request) {
+		if (!hedging.enabled()) {
+			return request.get();
+		}
+		return Mono.defer(() -> {
+			budget.deposit();
+			Mono<T> primary = timed(request, true);
+			Mono<T> hedged = Mono.delay(Duration.ofNanos(delayNanos))
+					.filter(tick -> budget.tryWithdraw())
+					.flatMap(tick -> timed(request, false))
+					.doOnNext(result -> won.increment())
+					.onErrorResume(exception -> Mono.never())
+					.switchIfEmpty(Mono.never());
+			return Mono.firstWithSignal(primary, hedged);
+		});
+	}
+
+	Duration delay() {
+		return Duration.ofNanos(delayNanos);
+	}
+
+	private <T> Mono<T> timed(Supplier<Mono<T>> request, boolean recordCancelled) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			Mono<T> response = request.get().doOnNext(result -> record(System.nanoTime() - start));
+			// A cancelled hedged request started late, so its time says nothing about the tail
+			return recordCancelled ? response.doOnCancel(() -> record(System.nanoTime() - start)) : response;
+		});
+	}
+
+	void record(long latencyNanos) {
+		long sample = samples.getAndIncrement();
+		latencies.set((int) (sample % WINDOW_SIZE), latencyNanos);
+		long count = sample + 1;
+		if (count >= MIN_SAMPLES && count % RECOMPUTE_INTERVAL == 0) {
+			recomputeDelay((int) Math.min(count, WINDOW_SIZE));
+		}
+	}
+
+	private void recomputeDelay(int size) {
+		var window = new long[size];
+		for (int i = 0; i < size; i++) {
+			window[i] = latencies.get(i);
+		}
+		Arrays.sort(window);
+		long percentile = window[(int) Math.ceil(hedging.percentile() * size) - 1];
+		delayNanos = Math.max(hedging.minDelay().toNanos(), Math.min(hedging.maxDelay().toNanos(), percentile));
+	}
+
+}
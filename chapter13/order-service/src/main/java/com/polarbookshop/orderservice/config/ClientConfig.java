@@ -1,17 +1,77 @@
 package com.polarbookshop.orderservice.config;
 
+import com.polarbookshop.commons.resilience.RequestBudget;
+import com.polarbookshop.orderservice.book.RequestHedger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 public class ClientConfig {
 
+	private static final int MAX_SAVED_RETRIES = 100;
+
+	/**
+	 * The pool publishes its reactor.netty.connection.provider.* metrics to the global
+	 * Micrometer registry, which Spring Boot includes in the Prometheus endpoint.
+	 */
+	@Bean(destroyMethod = "dispose")
+	ConnectionProvider catalogConnectionProvider(ClientProperties clientProperties) {
+		var catalogClient = clientProperties.catalogClient();
+		return ConnectionProvider.builder("catalog-service")
+				.maxConnections(catalogClient.maxConnections())
+				.maxIdleTime(catalogClient.maxIdleTime())
+				.maxLifeTime(catalogClient.maxLifeTime())
+				.pendingAcquireMaxCount(catalogClient.pendingAcquireMaxCount())
+				.pendingAcquireTimeout(catalogClient.pendingAcquireTimeout())
+				.evictInBackground(catalogClient.evictionInterval())
+				.metrics(true)
+				.build();
+	}
+
 	@Bean
-	WebClient webClient(ClientProperties clientProperties, WebClient.Builder webClientBuilder) {
-		return webClientBuilder
+	WebClient webClient(ClientProperties clientProperties, ConnectionProvider catalogConnectionProvider, WebClient.Builder webClientBuilder,
+			ObjectProvider<ReactorLoadBalancerExchangeFilterFunction> loadBalancerFunction) {
+		var httpClient = catalogHttpClient(catalogConnectionProvider, clientProperties.catalogClient());
+		webClientBuilder
 				.baseUrl(clientProperties.catalogServiceUri().toString())
-				.build();
+				.clientConnector(new ReactorClientHttpConnector(httpClient));
+		if (clientProperties.catalogClient().loadBalanced()) {
+			// Each request, hedged ones included, goes to the replica chosen at that moment
+			webClientBuilder.filter(loadBalancerFunction.getObject());
+		}
+		return webClientBuilder.build();
+	}
+
+	@Bean
+	RequestHedger catalogRequestHedger(ClientProperties clientProperties, MeterRegistry meterRegistry) {
+		return new RequestHedger("catalog-service", clientProperties.catalogClient().hedging(), meterRegistry);
+	}
+
+	@Bean
+	RequestBudget catalogRetryBudget(ClientProperties clientProperties, MeterRegistry meterRegistry) {
+		var retries = clientProperties.catalogClient().retries();
+		return new RequestBudget("polar.client.retries", Tags.of("client", "catalog-service"), retries.budgetRatio(),
+				MAX_SAVED_RETRIES, retries.minRetriesPerSecond(), meterRegistry);
+	}
+
+	static HttpClient catalogHttpClient(ConnectionProvider connectionProvider, ClientProperties.CatalogClient catalogClient) {
+		var httpClient = HttpClient.create(connectionProvider)
+				.compress(catalogClient.compression());
+		if (catalogClient.h2c()) {
+			// Keeping HTTP/1.1 makes the client upgrade each connection, and fall back if the upgrade is refused
+			httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+		}
+		return httpClient;
 	}
 
 }
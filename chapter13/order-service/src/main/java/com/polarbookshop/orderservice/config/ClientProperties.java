@@ -1,15 +1,158 @@
 package com.polarbookshop.orderservice.config;
 
 import java.net.URI;
+import java.time.Duration;
 
+import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
 
+@Validated
 @ConfigurationProperties(prefix = "polar")
 public record ClientProperties (
 
 	@NotNull
-	URI catalogServiceUri
+	URI catalogServiceUri,
 
-){}
+	/**
+	 * Connection settings for the Catalog Service client.
+	 */
+	@Valid
+	@NotNull
+	CatalogClient catalogClient
+
+){
+
+	public record CatalogClient (
+
+		/**
+		 * Maximum number of connections kept open to Catalog Service.
+		 * With h2c, each connection carries several requests at once.
+		 */
+		@Min(1)
+		int maxConnections,
+
+		/**
+		 * Time after which an unused connection is closed.
+		 */
+		@NotNull
+		Duration maxIdleTime,
+
+		/**
+		 * Age after which a connection is retired. A connection in use isn't interrupted:
+		 * it's closed when released to the pool, or by the background eviction if idle,
+		 * so that connections are spread again when Catalog Service scales out.
+		 */
+		@NotNull
+		Duration maxLifeTime,
+
+		/**
+		 * Maximum number of requests waiting for a connection once the pool is exhausted.
+		 * Further requests fail immediately.
+		 */
+		@Min(1)
+		int pendingAcquireMaxCount,
+
+		/**
+		 * Maximum time a request waits for a connection.
+		 */
+		@NotNull
+		Duration pendingAcquireTimeout,
+
+		/**
+		 * Interval at which idle and expired connections are closed in the background.
+		 */
+		@NotNull
+		Duration evictionInterval,
+
+		/**
+		 * Whether to upgrade connections to cleartext HTTP/2, so that concurrent
+		 * requests share a connection instead of queuing behind each other.
+		 */
+		boolean h2c,
+
+		/**
+		 * Whether to ask Catalog Service for gzip-compressed responses.
+		 */
+		boolean compression,
+
+		/**
+		 * Whether catalog-service-uri names a service whose replica is chosen for each
+		 * request by the client-side load balancer, instead of a single address.
+		 */
+		boolean loadBalanced,
+
+		/**
+		 * Hedging of the book lookups.
+		 */
+		@Valid
+		@NotNull
+		Hedging hedging,
+
+		/**
+		 * Budget of the retries of failed requests.
+		 */
+		@Valid
+		@NotNull
+		Retries retries
+
+	){}
+
+	public record Hedging (
+
+		/**
+		 * Whether to send a second request when the first one is slower than usual.
+		 */
+		boolean enabled,
+
+		/**
+		 * Percentile of the recent response times after which the second request is sent.
+		 */
+		@DecimalMin("0.5")
+		@DecimalMax("0.999")
+		double percentile,
+
+		/**
+		 * Lower bound of the hedging delay.
+		 */
+		@NotNull
+		Duration minDelay,
+
+		/**
+		 * Upper bound of the hedging delay, also used until enough responses have been observed.
+		 */
+		@NotNull
+		Duration maxDelay,
+
+		/**
+		 * Maximum number of hedged requests as a fraction of all requests.
+		 */
+		@DecimalMin("0.0")
+		@DecimalMax("1.0")
+		double budgetRatio
+
+	){}
+
+	public record Retries (
+
+		/**
+		 * Maximum number of retries as a fraction of the successful requests.
+		 */
+		@DecimalMin("0.0")
+		@DecimalMax("1.0")
+		double budgetRatio,
+
+		/**
+		 * Retries allowed each second regardless of the budget.
+		 */
+		@Min(0)
+		int minRetriesPerSecond
+
+	){}
+
+}
@@ -0,0 +1,24 @@
+package com.polarbookshop.orderservice.config;
+
+import io.r2dbc.pool.ConnectionPool;
+
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the pool Spring Boot creates, to apply the polar.database settings. With
+ * read replicas, the pools are created by {@link ReadReplicaConfig} instead.
+ */
+@Configuration
+@Conditional(ReadReplicasCondition.Absent.class)
+public class ConnectionPoolConfig {
+
+	@Bean(destroyMethod = "dispose")
+	ConnectionPool connectionFactory(R2dbcProperties r2dbcProperties, DatabaseProperties databaseProperties) {
+		return ConnectionPools.create("connectionFactory", r2dbcProperties.getUrl(), r2dbcProperties.getUsername(),
+				r2dbcProperties.getPassword(), r2dbcProperties.getPool().getMaxSize(), r2dbcProperties, databaseProperties);
+	}
+
+}
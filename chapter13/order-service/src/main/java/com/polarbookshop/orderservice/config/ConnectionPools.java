@@ -0,0 +1,58 @@
+package com.polarbookshop.orderservice.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Option;
+
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.util.StringUtils;
+
+/**
+ * Builds the pools from spring.r2dbc, like Spring Boot does, plus the settings Spring
+ * Boot doesn't expose: statement caching, acquire retries, validation timeout and
+ * background eviction.
+ */
+final class ConnectionPools {
+
+	/**
+	 * Option of the Postgres driver, which is only on the runtime classpath.
+	 */
+	private static final Option<Integer> PREPARED_STATEMENT_CACHE_QUERIES = Option.valueOf("preparedStatementCacheQueries");
+
+	private ConnectionPools() {
+	}
+
+	static ConnectionPool create(String name, String url, String username, String password, int maxSize,
+			R2dbcProperties r2dbcProperties, DatabaseProperties databaseProperties) {
+		var options = ConnectionFactoryOptions.parse(url).mutate();
+		if (StringUtils.hasText(username)) {
+			options.option(ConnectionFactoryOptions.USER, username);
+		}
+		if (StringUtils.hasText(password)) {
+			options.option(ConnectionFactoryOptions.PASSWORD, password);
+		}
+		r2dbcProperties.getProperties().forEach((key, value) -> options.option(Option.valueOf(key), value));
+		options.option(PREPARED_STATEMENT_CACHE_QUERIES, databaseProperties.preparedStatementCacheQueries());
+
+		var pool = r2dbcProperties.getPool();
+		var builder = ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+				.name(name)
+				.initialSize(Math.min(pool.getInitialSize(), maxSize))
+				.maxSize(maxSize)
+				.acquireRetry(databaseProperties.acquireRetry())
+				.maxValidationTime(databaseProperties.maxValidationTime())
+				.backgroundEvictionInterval(databaseProperties.backgroundEvictionInterval());
+		var map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+		map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+		map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+		map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+		map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+		map.from(pool.getValidationQuery()).whenHasText().to(builder::validationQuery);
+		map.from(pool.getValidationDepth()).to(builder::validationDepth);
+		return new ConnectionPool(builder.build());
+	}
+
+}
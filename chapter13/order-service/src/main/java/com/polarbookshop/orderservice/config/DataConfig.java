@@ -1,15 +1,22 @@
 package com.polarbookshop.orderservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.ReactiveAuditorAware;
 import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 
 @Configuration
 @EnableR2dbcAuditing
+@EnableScheduling
 public class DataConfig {
 
 	@Bean
@@ -20,4 +27,19 @@ public class DataConfig {
 				.map(Authentication::getName);
 	}
 
+	@Bean
+	static BeanPostProcessor timedConnectionFactoryPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				// The replica routing factory isn't a pool, its pools are timed each
+				if (bean instanceof ConnectionFactory connectionFactory && !(bean instanceof TimedConnectionFactory)
+						&& !(bean instanceof ReplicaRoutingConnectionFactory)) {
+					return new TimedConnectionFactory(connectionFactory, meterRegistry, beanName);
+				}
+				return bean;
+			}
+		};
+	}
+
 }
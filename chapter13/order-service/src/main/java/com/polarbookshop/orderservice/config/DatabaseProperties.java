@@ -0,0 +1,41 @@
+package com.polarbookshop.orderservice.config;
+
+import java.time.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "polar.database")
+public record DatabaseProperties (
+
+	/**
+	 * Number of prepared statements kept by each connection, least recently used
+	 * evicted first. -1 keeps them all, 0 prepares each statement every time.
+	 */
+	@Min(-1)
+	int preparedStatementCacheQueries,
+
+	/**
+	 * Number of times a failed connection acquisition is retried by the pool.
+	 */
+	@Min(0)
+	int acquireRetry,
+
+	/**
+	 * Longest time a connection may take to be validated before it's discarded.
+	 */
+	@NotNull
+	Duration maxValidationTime,
+
+	/**
+	 * Interval at which idle and expired connections are evicted, instead of on acquisition
+	 * and release. Zero turns the background eviction off.
+	 */
+	@NotNull
+	Duration backgroundEvictionInterval
+
+){}
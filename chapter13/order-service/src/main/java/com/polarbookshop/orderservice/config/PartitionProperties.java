@@ -0,0 +1,35 @@
+package com.polarbookshop.orderservice.config;
+
+import java.time.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@ConfigurationProperties(prefix = "polar.orders.partitions")
+public record PartitionProperties (
+
+	/**
+	 * Number of monthly partitions to create ahead of the current month.
+	 */
+	@Min(1)
+	int monthsAhead,
+
+	/**
+	 * Number of past months kept attached to the orders table. Older partitions
+	 * are detached and moved to the orders_archive schema. 0 keeps everything.
+	 */
+	@Min(0)
+	int retentionMonths,
+
+	/**
+	 * How far back an order is first looked up when handling its events, so that
+	 * only the most recent partitions are scanned.
+	 */
+	@NotNull
+	Duration recentOrderWindow
+
+){}
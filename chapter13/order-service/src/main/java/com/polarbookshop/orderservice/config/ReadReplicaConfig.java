@@ -0,0 +1,62 @@
+package com.polarbookshop.orderservice.config;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.spi.ConnectionFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.ReactiveTransactionManager;
+
+/**
+ * Replaces the single connection pool with one routing read-only transactions to the
+ * replicas. The pools aren't beans, since there is one per replica, so their metrics
+ * are bound here with the pool name as the name tag.
+ */
+@Configuration
+@Conditional(ReadReplicasCondition.class)
+public class ReadReplicaConfig {
+
+	@Bean
+	RecentWriters recentWriters(ReadReplicaProperties readReplicaProperties) {
+		return new RecentWriters(readReplicaProperties.readYourWritesWindow(), Clock.systemUTC());
+	}
+
+	@Bean(destroyMethod = "dispose")
+	ReplicaRoutingConnectionFactory connectionFactory(R2dbcProperties r2dbcProperties, ReadReplicaProperties readReplicaProperties,
+			DatabaseProperties databaseProperties, RecentWriters recentWriters, ObjectProvider<MeterRegistry> meterRegistry) {
+		var primary = pool(ReplicaRoutingConnectionFactory.PRIMARY, r2dbcProperties.getUrl(), r2dbcProperties.getUsername(),
+				r2dbcProperties.getPassword(), r2dbcProperties.getPool().getMaxSize(), r2dbcProperties, databaseProperties, meterRegistry);
+		var replicas = new LinkedHashMap<String, ConnectionFactory>();
+		for (var url : readReplicaProperties.urls()) {
+			var name = "replica-" + replicas.size();
+			replicas.put(name, pool(name, url,
+					readReplicaProperties.username() != null ? readReplicaProperties.username() : r2dbcProperties.getUsername(),
+					readReplicaProperties.password() != null ? readReplicaProperties.password() : r2dbcProperties.getPassword(),
+					readReplicaProperties.maxSize(), r2dbcProperties, databaseProperties, meterRegistry));
+		}
+		var lagMonitor = new ReplicaLagMonitor(replicas, readReplicaProperties.maxLag(),
+				readReplicaProperties.lagCheckInterval(), meterRegistry.getObject());
+		return new ReplicaRoutingConnectionFactory(primary, replicas, lagMonitor, recentWriters, meterRegistry.getObject());
+	}
+
+	@Bean
+	ReactiveTransactionManager transactionManager(ReplicaRoutingConnectionFactory connectionFactory, RecentWriters recentWriters) {
+		return new ReplicaAwareTransactionManager(connectionFactory, recentWriters);
+	}
+
+	private static ConnectionFactory pool(String name, String url, String username, String password, int maxSize,
+			R2dbcProperties r2dbcProperties, DatabaseProperties databaseProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+		var pool = ConnectionPools.create(name, url, username, password, maxSize, r2dbcProperties, databaseProperties);
+		meterRegistry.ifAvailable(registry -> new ConnectionPoolMetrics(pool, name, Tags.empty()).bindTo(registry));
+		return new TimedConnectionFactory(pool, meterRegistry, name);
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.polarbookshop.orderservice.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "polar.read-replicas")
+public record ReadReplicaProperties (
+
+	/**
+	 * R2DBC URLs of the replicas serving read-only transactions, comma-separated or as a list.
+	 * Without them, all queries go to spring.r2dbc.
+	 */
+	List<String> urls,
+
+	String username,
+
+	String password,
+
+	/**
+	 * Size of the connection pool of each replica.
+	 */
+	int maxSize,
+
+	/**
+	 * Replication lag beyond which a replica is skipped. When all the replicas are
+	 * behind, read-only transactions go to the primary database.
+	 */
+	Duration maxLag,
+
+	/**
+	 * Interval at which the replication lag is measured.
+	 */
+	Duration lagCheckInterval,
+
+	/**
+	 * How long the reads of a user go to the primary database after they submitted
+	 * an order, so that they see it. Zero turns it off.
+	 */
+	Duration readYourWritesWindow
+
+){}
@@ -0,0 +1,50 @@
+package com.polarbookshop.orderservice.config;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.util.StringUtils;
+
+/**
+ * Matches when polar.read-replicas.urls lists at least one replica. The URLs are bound
+ * like {@link ReadReplicaProperties}, so that both a comma-separated value and an indexed
+ * list (urls[0], urls[1]) match, which a property or SpEL condition on the plain key misses.
+ */
+class ReadReplicasCondition extends SpringBootCondition {
+
+	static final String URLS_PROPERTY = "polar.read-replicas.urls";
+
+	@Override
+	public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+		List<String> urls = Binder.get(context.getEnvironment())
+				.bind(URLS_PROPERTY, Bindable.listOf(String.class))
+				.orElse(List.of());
+		if (urls.stream().anyMatch(StringUtils::hasText)) {
+			return ConditionOutcome.match(URLS_PROPERTY + " lists " + urls.size() + " replicas");
+		}
+		return ConditionOutcome.noMatch("No replicas listed in " + URLS_PROPERTY);
+	}
+
+	/**
+	 * Matches when {@link ReadReplicasCondition} doesn't.
+	 */
+	static class Absent extends NoneNestedConditions {
+
+		Absent() {
+			super(ConfigurationPhase.PARSE_CONFIGURATION);
+		}
+
+		@Conditional(ReadReplicasCondition.class)
+		static class ReadReplicas {
+		}
+
+	}
+
+}
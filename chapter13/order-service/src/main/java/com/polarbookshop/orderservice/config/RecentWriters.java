@@ -0,0 +1,65 @@
+package com.polarbookshop.orderservice.config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+
+/**
+ * Remembers the users who recently committed a change, whose reads go to the primary
+ * database until the replicas have likely caught up. Changes made without a user,
+ * like the dispatch events, are not tracked. The writers are only known to the instance
+ * that handled the change: a read handled by another instance may go to a replica that
+ * hasn't replayed the change yet, within max-lag.
+ */
+class RecentWriters {
+
+	private final Duration window;
+	private final Clock clock;
+	private final Map<String, Instant> lastWrites = new ConcurrentHashMap<>();
+
+	RecentWriters(Duration window, Clock clock) {
+		this.window = window;
+		this.clock = clock;
+	}
+
+	Mono<Void> recordCurrentUser() {
+		if (window.isZero()) {
+			return Mono.empty();
+		}
+		return currentUser()
+				.doOnNext(user -> {
+					var now = clock.instant();
+					lastWrites.values().removeIf(lastWrite -> lastWrite.plus(window).isBefore(now));
+					lastWrites.put(user, now);
+				})
+				.then();
+	}
+
+	Mono<Boolean> wroteRecently() {
+		if (lastWrites.isEmpty()) {
+			return Mono.just(false);
+		}
+		return currentUser()
+				.map(user -> {
+					var lastWrite = lastWrites.get(user);
+					return lastWrite != null && lastWrite.isAfter(clock.instant().minus(window));
+				})
+				.defaultIfEmpty(false);
+	}
+
+	private static Mono<String> currentUser() {
+		return ReactiveSecurityContextHolder.getContext()
+				.map(SecurityContext::getAuthentication)
+				.filter(Authentication::isAuthenticated)
+				.map(Authentication::getName);
+	}
+
+}
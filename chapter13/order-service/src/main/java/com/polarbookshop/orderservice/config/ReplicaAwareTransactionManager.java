@@ -0,0 +1,41 @@
+package com.polarbookshop.orderservice.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+
+/**
+ * Makes the read-only flag of a transaction visible to {@link ReplicaRoutingConnectionFactory}
+ * when doBegin takes the connection, since the transaction synchronization is otherwise only
+ * set up after it. Read-only methods with the SUPPORTS propagation don't begin a transaction,
+ * and get the flag from the synchronization set up before their first query. Also remembers
+ * who committed changes for the read-your-writes window.
+ */
+class ReplicaAwareTransactionManager extends R2dbcTransactionManager {
+
+	private final RecentWriters recentWriters;
+
+	ReplicaAwareTransactionManager(ConnectionFactory connectionFactory, RecentWriters recentWriters) {
+		super(connectionFactory);
+		this.recentWriters = recentWriters;
+	}
+
+	@Override
+	protected Mono<Void> doBegin(TransactionSynchronizationManager synchronizationManager, Object transaction,
+			TransactionDefinition definition) {
+		synchronizationManager.setCurrentTransactionReadOnly(definition.isReadOnly());
+		return super.doBegin(synchronizationManager, transaction, definition);
+	}
+
+	@Override
+	protected Mono<Void> doCommit(TransactionSynchronizationManager synchronizationManager,
+			GenericReactiveTransaction status) {
+		var commit = super.doCommit(synchronizationManager, status);
+		return status.isReadOnly() ? commit : commit.then(recentWriters.recordCurrentUser());
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.polarbookshop.orderservice.config;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Measures the replication lag of each replica in the background. A replica is
+ * considered behind when its lag exceeds the tolerance or can't be measured.
+ */
+class ReplicaLagMonitor implements Disposable {
+
+	private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+	/**
+	 * Zero when the replica has replayed all it received, since the time of the last
+	 * replayed transaction only grows while the primary is idle. Null when the replica
+	 * isn't streaming from the primary, since it then doesn't know what it's missing.
+	 * Reading the status of the WAL receiver takes the pg_monitor role. Zero on a primary.
+	 */
+	private static final String LAG_QUERY = """
+			select (case
+				when not pg_is_in_recovery() then 0
+				when not exists (select 1 from pg_stat_wal_receiver where status = 'streaming') then null
+				when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+				else extract(epoch from now() - pg_last_xact_replay_timestamp()) end)::float8
+			""";
+
+	private final Map<String, DatabaseClient> replicas = new ConcurrentHashMap<>();
+	private final Map<String, Double> lagSeconds = new ConcurrentHashMap<>();
+	private final Duration maxLag;
+	private final Disposable checks;
+
+	ReplicaLagMonitor(Map<String, ConnectionFactory> replicas, Duration maxLag, Duration checkInterval,
+			MeterRegistry meterRegistry) {
+		this.maxLag = maxLag;
+		replicas.forEach((name, connectionFactory) -> {
+			this.replicas.put(name, DatabaseClient.create(connectionFactory));
+			this.lagSeconds.put(name, Double.NaN);
+			Gauge.builder("polar.r2dbc.replica.lag", lagSeconds, lags -> lags.get(name))
+					.description("Replication lag of a read replica, NaN when it can't be measured")
+					.baseUnit("seconds")
+					.tag("name", name)
+					.register(meterRegistry);
+		});
+		this.checks = Flux.interval(Duration.ZERO, checkInterval)
+				.onBackpressureDrop()
+				.concatMap(tick -> Flux.fromIterable(this.replicas.keySet())
+						.flatMap(name -> check(name, checkInterval)))
+				.subscribe();
+	}
+
+	boolean isWithinTolerance(String replica) {
+		double lag = lagSeconds.getOrDefault(replica, Double.NaN);
+		return !Double.isNaN(lag) && lag <= maxLag.toMillis() / 1000.0;
+	}
+
+	Mono<Void> check(String replica, Duration timeout) {
+		return replicas.get(replica).sql(LAG_QUERY)
+				.map(row -> Optional.ofNullable(row.get(0, Double.class)))
+				.one()
+				.timeout(timeout)
+				.doOnNext(lag -> {
+					if (lag.isEmpty() && !Double.isNaN(lagSeconds.get(replica))) {
+						log.warn("The replica {} isn't streaming from the primary database, it gets no reads", replica);
+					}
+					lagSeconds.put(replica, lag.orElse(Double.NaN));
+				})
+				.onErrorResume(exception -> {
+					if (!Double.isNaN(lagSeconds.get(replica))) {
+						log.warn("Failed to measure the replication lag of {}, it gets no reads", replica, exception);
+					}
+					lagSeconds.put(replica, Double.NaN);
+					return Mono.empty();
+				})
+				.then();
+	}
+
+	@Override
+	public void dispose() {
+		checks.dispose();
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.polarbookshop.orderservice.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replicas in turn, skipping those behind, and
+ * everything else to the primary database. Reads go to the primary database as well
+ * when all the replicas are behind or the current user has just submitted an order.
+ */
+class ReplicaRoutingConnectionFactory extends AbstractRoutingConnectionFactory implements Disposable {
+
+	static final String PRIMARY = "primary";
+
+	private final List<ConnectionFactory> pools = new ArrayList<>();
+	private final List<String> replicas;
+	private final ReplicaLagMonitor lagMonitor;
+	private final RecentWriters recentWriters;
+	private final Map<String, Counter> reads = new HashMap<>();
+	private final AtomicInteger nextReplica = new AtomicInteger();
+
+	ReplicaRoutingConnectionFactory(ConnectionFactory primary, Map<String, ConnectionFactory> replicas,
+			ReplicaLagMonitor lagMonitor, RecentWriters recentWriters, MeterRegistry meterRegistry) {
+		this.replicas = List.copyOf(replicas.keySet());
+		this.lagMonitor = lagMonitor;
+		this.recentWriters = recentWriters;
+		var targets = new HashMap<String, ConnectionFactory>(replicas);
+		targets.put(PRIMARY, primary);
+		targets.forEach((name, connectionFactory) -> {
+			pools.add(connectionFactory);
+			reads.put(name, Counter.builder("polar.r2dbc.reads")
+					.description("Read-only transactions by the database serving them")
+					.tag("target", name)
+					.register(meterRegistry));
+		});
+		setTargetConnectionFactories(targets);
+		setDefaultTargetConnectionFactory(primary);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Called when a transaction takes its connection. The read-only flag is already
+	 * known then thanks to {@link ReplicaAwareTransactionManager}.
+	 */
+	@Override
+	protected Mono<Object> determineCurrentLookupKey() {
+		return TransactionSynchronizationManager.forCurrentTransaction()
+				.filter(TransactionSynchronizationManager::isCurrentTransactionReadOnly)
+				.onErrorResume(NoTransactionException.class, exception -> Mono.empty())
+				.flatMap(synchronizationManager -> recentWriters.wroteRecently())
+				.map(wroteRecently -> {
+					var target = wroteRecently ? PRIMARY : nextReplica();
+					reads.get(target).increment();
+					return (Object) target;
+				})
+				.defaultIfEmpty(PRIMARY);
+	}
+
+	private String nextReplica() {
+		int start = nextReplica.getAndIncrement();
+		for (int i = 0; i < replicas.size(); i++) {
+			var replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+			if (lagMonitor.isWithinTolerance(replica)) {
+				return replica;
+			}
+		}
+		return PRIMARY;
+	}
+
+	@Override
+	public void dispose() {
+		lagMonitor.dispose();
+		for (var pool : pools) {
+			if (pool instanceof Disposable disposable) {
+				disposable.dispose();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.polarbookshop.orderservice.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.R2dbcTimeoutException;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Records the time to get a connection from the pool, which is the R2DBC
+ * counterpart of hikaricp.connections.acquire. The pool itself only exposes gauges.
+ * Failed and cancelled acquisitions are recorded as well, tagged by outcome, since
+ * the time spent waiting before the acquire timeout is the latency the caller saw.
+ */
+public class TimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+	static final String METRIC_NAME = "r2dbc.connections.acquire";
+
+	private final ConnectionFactory delegate;
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+	private final String name;
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	/**
+	 * @param name the pool name, as in the name tag of the r2dbc.pool.* metrics
+	 */
+	public TimedConnectionFactory(ConnectionFactory delegate, ObjectProvider<MeterRegistry> meterRegistry, String name) {
+		this.delegate = delegate;
+		this.meterRegistry = meterRegistry;
+		this.name = name;
+	}
+
+	@Override
+	public Publisher<? extends Connection> create() {
+		var registry = meterRegistry.getIfAvailable();
+		if (registry == null) {
+			return delegate.create();
+		}
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return Mono.from(delegate.create())
+					.doOnSuccess(connection -> record(registry, "success", start))
+					.doOnError(exception -> record(registry, outcome(exception), start))
+					.doOnCancel(() -> record(registry, "cancelled", start));
+		});
+	}
+
+	@Override
+	public ConnectionFactoryMetadata getMetadata() {
+		return delegate.getMetadata();
+	}
+
+	@Override
+	public ConnectionFactory unwrap() {
+		return delegate;
+	}
+
+	/**
+	 * The pool bean is declared with destroyMethod = "dispose", which is now called on this wrapper.
+	 */
+	@Override
+	public void dispose() {
+		if (delegate instanceof Disposable disposable) {
+			disposable.dispose();
+		}
+	}
+
+	private void record(MeterRegistry registry, String outcome, long start) {
+		timers.computeIfAbsent(outcome, key -> Timer.builder(METRIC_NAME)
+						.description("Time to acquire a connection from the R2DBC pool")
+						.tag("name", name)
+						.tag("outcome", key)
+						.register(registry))
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	private static String outcome(Throwable exception) {
+		// The pool reports its acquire timeout with either, depending on its version
+		return exception instanceof R2dbcTimeoutException || exception instanceof TimeoutException ? "timeout" : "error";
+	}
+
+}
@@ -0,0 +1,9 @@
+package com.polarbookshop.orderservice.order.domain;
+
+public class InvalidOrderCursorException extends RuntimeException {
+
+	public InvalidOrderCursorException(Long orderId) {
+		super("The order " + orderId + " can't be used to page through your orders.");
+	}
+
+}
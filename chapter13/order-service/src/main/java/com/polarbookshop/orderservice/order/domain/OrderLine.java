@@ -0,0 +1,16 @@
+package com.polarbookshop.orderservice.order.domain;
+
+public record OrderLine (
+		Long orderId,
+		int lineNumber,
+		String bookIsbn,
+		String bookName,
+		Double bookPrice,
+		Integer quantity
+){
+
+	public static OrderLine of(String bookIsbn, Integer quantity) {
+		return new OrderLine(null, 0, bookIsbn, null, null, quantity);
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import java.util.List;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data R2DBC saves entities one statement at a time, so the lines
+ * are written with a single batched statement through the DatabaseClient.
+ */
+@Repository
+public class OrderLineRepository {
+
+	private static final String INSERT_LINE = """
+			insert into order_lines (order_id, line_number, book_isbn, book_name, book_price, quantity)
+			values ($1, $2, $3, $4, $5, $6)
+			""";
+
+	private final DatabaseClient databaseClient;
+
+	public OrderLineRepository(DatabaseClient databaseClient) {
+		this.databaseClient = databaseClient;
+	}
+
+	public Mono<Void> saveAll(Long orderId, List<OrderLine> lines) {
+		if (lines.isEmpty()) {
+			return Mono.empty();
+		}
+		return databaseClient.inConnectionMany(connection -> {
+			var statement = connection.createStatement(INSERT_LINE);
+			for (int i = 0; i < lines.size(); i++) {
+				if (i > 0) {
+					statement.add();
+				}
+				var line = lines.get(i);
+				statement.bind(0, orderId)
+						.bind(1, line.lineNumber())
+						.bind(2, line.bookIsbn())
+						.bind(5, line.quantity());
+				bindNullable(statement, 3, line.bookName(), String.class);
+				bindNullable(statement, 4, line.bookPrice(), Double.class);
+			}
+			return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+		}).then();
+	}
+
+	public Flux<OrderLine> findAllByOrderId(Long orderId) {
+		return databaseClient.sql("select * from order_lines where order_id = :orderId order by line_number")
+				.bind("orderId", orderId)
+				.map(row -> new OrderLine(
+						row.get("order_id", Long.class),
+						row.get("line_number", Integer.class),
+						row.get("book_isbn", String.class),
+						row.get("book_name", String.class),
+						row.get("book_price", Double.class),
+						row.get("quantity", Integer.class)))
+				.all();
+	}
+
+	private static <T> void bindNullable(Statement statement, int index, T value, Class<T> type) {
+		if (value != null) {
+			statement.bind(index, value);
+		} else {
+			statement.bindNull(index, type);
+		}
+	}
+
+}
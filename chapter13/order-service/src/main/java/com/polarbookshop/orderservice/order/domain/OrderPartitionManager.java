@@ -0,0 +1,39 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import com.polarbookshop.orderservice.config.PartitionProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OrderPartitionManager {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderPartitionManager.class);
+
+	private final DatabaseClient databaseClient;
+	private final PartitionProperties partitionProperties;
+
+	public OrderPartitionManager(DatabaseClient databaseClient, PartitionProperties partitionProperties) {
+		this.databaseClient = databaseClient;
+		this.partitionProperties = partitionProperties;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(cron = "${polar.orders.partitions.cron}")
+	public void maintainPartitions() {
+		databaseClient.sql("select * from maintain_orders_partitions(:monthsAhead, :retentionMonths)")
+				.bind("monthsAhead", partitionProperties.monthsAhead())
+				.bind("retentionMonths", partitionProperties.retentionMonths())
+				.map(row -> row.get(0, String.class))
+				.all()
+				.doOnNext(partition -> log.info("Archived orders partition {}", partition))
+				.doOnComplete(() -> log.info("Orders partitions are up to date"))
+				.subscribe(partition -> {}, error -> log.error("Failed to maintain orders partitions", error));
+	}
+
+}
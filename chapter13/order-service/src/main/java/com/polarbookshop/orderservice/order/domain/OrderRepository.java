@@ -1,9 +1,74 @@
 package com.polarbookshop.orderservice.order.domain;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * The read-only queries can be served by a read replica. They don't start a transaction,
+ * which would cost a BEGIN and a COMMIT per query, but mark the connection they take as
+ * read-only. Called from a read-write transaction, they join it and read from the primary database.
+ */
 public interface OrderRepository extends ReactiveCrudRepository<Order,Long> {
+	/**
+	 * Goes through every attached partition, each with its created_by index. How many
+	 * there are is bounded by polar.orders.partitions.retention-months.
+	 */
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
 	Flux<Order> findAllByCreatedBy(String userId);
+
+	@Override
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+	Mono<Order> findById(Long id);
+
+	/**
+	 * Bounding the creation date lets Postgres prune the partitions older than {@code since}.
+	 */
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+	@Query("select * from orders where id = :id and created_date >= :since")
+	Mono<Order> findRecentById(Long id, Instant since);
+
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+	@Query("""
+			select * from orders
+			where created_by = :userId
+			order by created_date desc, id desc
+			limit :limit
+			""")
+	Flux<Order> findFirstPageByCreatedBy(String userId, int limit);
+
+	/**
+	 * Returns the orders placed before the given one, which skips the partitions of the later months.
+	 * The creation date is compared as read, without a time zone.
+	 */
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+	@Query("""
+			select * from orders
+			where created_by = :userId
+			  and created_date <= :createdDate
+			  and (created_date, id) < (:createdDate, :id)
+			order by created_date desc, id desc
+			limit :limit
+			""")
+	Flux<Order> findPageByCreatedByBefore(String userId, LocalDateTime createdDate, Long id, int limit);
+
+	/**
+	 * Unlike save(), the update is given the creation date of the order, so that only its
+	 * partition is scanned. The creation date is compared as read, without a time zone.
+	 * Returns nothing when the order was changed in between.
+	 */
+	@Query("""
+			update orders
+			set status = :status, last_modified_date = :lastModifiedDate, version = version + 1
+			where id = :id and created_date = :createdDate and version = :version
+			returning *
+			""")
+	Mono<Order> updateStatus(Long id, LocalDateTime createdDate, int version, String status, Instant lastModifiedDate);
 }
@@ -1,7 +1,15 @@
 package com.polarbookshop.orderservice.order.domain;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import com.polarbookshop.orderservice.book.Book;
 import com.polarbookshop.orderservice.book.BookClient;
+import com.polarbookshop.orderservice.config.PartitionProperties;
 import com.polarbookshop.orderservice.order.event.OrderAcceptedMessage;
 import com.polarbookshop.orderservice.order.event.OrderDispatchedMessage;
 import org.slf4j.Logger;
@@ -10,8 +18,12 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
 
 @Service
 public class OrderService {
@@ -20,11 +32,21 @@ public class OrderService {
 
 	private final BookClient bookClient;
 	private final OrderRepository orderRepository;
+	private final OrderLineRepository orderLineRepository;
+	private final OrderSummaryRepository orderSummaryRepository;
+	private final OrderStatusNotifier orderStatusNotifier;
+	private final PartitionProperties partitionProperties;
 	private final StreamBridge streamBridge;
 
-	public OrderService(BookClient bookClient, StreamBridge streamBridge, OrderRepository orderRepository) {
+	public OrderService(BookClient bookClient, StreamBridge streamBridge, OrderRepository orderRepository,
+			OrderLineRepository orderLineRepository, OrderSummaryRepository orderSummaryRepository, OrderStatusNotifier orderStatusNotifier,
+			PartitionProperties partitionProperties) {
 		this.bookClient = bookClient;
 		this.orderRepository = orderRepository;
+		this.orderLineRepository = orderLineRepository;
+		this.orderSummaryRepository = orderSummaryRepository;
+		this.orderStatusNotifier = orderStatusNotifier;
+		this.partitionProperties = partitionProperties;
 		this.streamBridge = streamBridge;
 	}
 
@@ -32,12 +54,67 @@ public class OrderService {
 		return orderRepository.findAllByCreatedBy(userId);
 	}
 
+	/**
+	 * Returns the orders of the user created before the given one, which must be one of theirs.
+	 * An unknown order and an order of someone else are refused alike.
+	 */
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+	public Flux<Order> getOrders(String userId, Long after, int limit) {
+		if (after == null) {
+			return orderRepository.findFirstPageByCreatedBy(userId, limit);
+		}
+		return findOrder(after)
+				.filter(order -> userId.equals(order.createdBy()))
+				.switchIfEmpty(Mono.error(() -> new InvalidOrderCursorException(after)))
+				.flatMapMany(order -> orderRepository.findPageByCreatedByBefore(userId,
+						storedDate(order.createdDate()), order.id(), limit));
+	}
+
+	@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+	public Flux<OrderLine> getOrderLines(String userId, Long orderId) {
+		return findOrder(orderId)
+				.filter(order -> userId.equals(order.createdBy()))
+				.flatMapMany(order -> orderLineRepository.findAllByOrderId(order.id()));
+	}
+
+	public Mono<OrderSummary> getOrderSummary(String userId) {
+		return orderSummaryRepository.findById(userId)
+				.defaultIfEmpty(OrderSummary.empty(userId));
+	}
+
+	public Flux<Order> getOrderUpdates(String userId) {
+		return orderStatusNotifier.updatesFor(userId);
+	}
+
 	@Transactional
 	public Mono<Order> submitOrder(String isbn, int quantity) {
 		return bookClient.getBookByIsbn(isbn)
 				.map(book -> buildAcceptedOrder(book, quantity))
 				.defaultIfEmpty(buildRejectedOrder(isbn, quantity))
 				.flatMap(orderRepository::save)
+				.flatMap(order -> addToSummary(order, orderTotal(order)).thenReturn(order))
+				.doOnNext(this::publishOrderAcceptedEvent);
+	}
+
+	/**
+	 * Resolves all the books with one catalog request and stores the lines with one
+	 * batched insert. The order is rejected if any of the books is not available.
+	 */
+	@Transactional
+	public Mono<Order> submitOrder(List<OrderLine> requestedLines) {
+		var isbns = requestedLines.stream().map(OrderLine::bookIsbn).distinct().toList();
+		return bookClient.getBooksByIsbn(isbns)
+				.collectMap(Book::isbn)
+				.flatMap(books -> {
+					var lines = buildOrderLines(requestedLines, books);
+					var order = books.keySet().containsAll(isbns)
+							? buildAcceptedOrder(lines)
+							: buildRejectedOrder(lines);
+					return orderRepository.save(order)
+							.flatMap(savedOrder -> orderLineRepository.saveAll(savedOrder.id(), lines)
+									.then(addToSummary(savedOrder, linesTotal(lines)))
+									.thenReturn(savedOrder));
+				})
 				.doOnNext(this::publishOrderAcceptedEvent);
 	}
 
@@ -50,6 +127,63 @@ public class OrderService {
 		return Order.of(bookIsbn, null, null, quantity, OrderStatus.REJECTED);
 	}
 
+	public static Order buildAcceptedOrder(List<OrderLine> lines) {
+		return Order.of(null, null, null, totalQuantity(lines), OrderStatus.ACCEPTED);
+	}
+
+	public static Order buildRejectedOrder(List<OrderLine> lines) {
+		return Order.of(null, null, null, totalQuantity(lines), OrderStatus.REJECTED);
+	}
+
+	private static List<OrderLine> buildOrderLines(List<OrderLine> requestedLines, Map<String, Book> books) {
+		var lines = new ArrayList<OrderLine>(requestedLines.size());
+		for (var requestedLine : requestedLines) {
+			var book = books.get(requestedLine.bookIsbn());
+			lines.add(new OrderLine(
+					null,
+					lines.size() + 1,
+					requestedLine.bookIsbn(),
+					book != null ? book.title() + " - " + book.author() : null,
+					book != null ? book.price() : null,
+					requestedLine.quantity()
+			));
+		}
+		return lines;
+	}
+
+	private static int totalQuantity(List<OrderLine> lines) {
+		return lines.stream().mapToInt(OrderLine::quantity).sum();
+	}
+
+	private static double orderTotal(Order order) {
+		return order.bookPrice() != null ? order.bookPrice() * order.quantity() : 0.0;
+	}
+
+	private static double linesTotal(List<OrderLine> lines) {
+		return lines.stream()
+				.filter(line -> line.bookPrice() != null)
+				.mapToDouble(line -> line.bookPrice() * line.quantity())
+				.sum();
+	}
+
+	private Mono<Void> addToSummary(Order order, double orderTotal) {
+		if (order.createdBy() == null) {
+			return Mono.empty();
+		}
+		boolean accepted = order.status().equals(OrderStatus.ACCEPTED);
+		double spent = accepted ? orderTotal : 0.0;
+		return orderSummaryRepository.addOrder(order.createdBy(), accepted ? 1 : 0, accepted ? 0 : 1,
+				spent, order.id(), order.createdDate()).then();
+	}
+
+	private Mono<Void> moveToDispatchedInSummary(Order existingOrder) {
+		// Redelivered events must not be counted twice
+		if (existingOrder.createdBy() == null || !existingOrder.status().equals(OrderStatus.ACCEPTED)) {
+			return Mono.empty();
+		}
+		return orderSummaryRepository.moveToDispatched(existingOrder.createdBy()).then();
+	}
+
 	private void publishOrderAcceptedEvent(Order order) {
 		if (!order.status().equals(OrderStatus.ACCEPTED)) {
 			return;
@@ -60,27 +194,46 @@ public class OrderService {
 		log.info("Result of sending data for order with id {}: {}", order.id(), result);
 	}
 
-	public Flux<Order> consumeOrderDispatchedEvent(Flux<OrderDispatchedMessage> flux) {
-		return flux
-				.flatMap(message -> orderRepository.findById(message.orderId()))
-				.map(this::buildDispatchedOrder)
-				.flatMap(orderRepository::save);
-	}
-
-	private Order buildDispatchedOrder(Order existingOrder) {
-		return new Order(
-				existingOrder.id(),
-				existingOrder.bookIsbn(),
-				existingOrder.bookName(),
-				existingOrder.bookPrice(),
-				existingOrder.quantity(),
-				OrderStatus.DISPATCHED,
-				existingOrder.createdDate(),
-				existingOrder.lastModifiedDate(),
-				existingOrder.createdBy(),
-				existingOrder.lastModifiedBy(),
-				existingOrder.version()
-		);
+	@Transactional
+	public Mono<Order> consumeOrderDispatchedEvent(OrderDispatchedMessage message) {
+		return findOrder(message.orderId())
+				.flatMap(existingOrder -> orderRepository.updateStatus(existingOrder.id(), storedDate(existingOrder.createdDate()),
+								existingOrder.version(), OrderStatus.DISPATCHED.name(), Instant.now())
+						.switchIfEmpty(Mono.error(() -> new OptimisticLockingFailureException(
+								"Order " + existingOrder.id() + " was changed while being dispatched")))
+						.flatMap(order -> moveToDispatchedInSummary(existingOrder).thenReturn(order)))
+				.flatMap(order -> afterCommit(() -> orderStatusNotifier.publish(order)).thenReturn(order));
+	}
+
+	/**
+	 * Runs the action once the current transaction commits, so that subscribers are only
+	 * told about changes they can read, and not about those rolled back.
+	 */
+	private static Mono<Void> afterCommit(Runnable action) {
+		return TransactionSynchronizationManager.forCurrentTransaction()
+				.doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public Mono<Void> afterCommit() {
+						return Mono.fromRunnable(action);
+					}
+				}))
+				.then();
+	}
+
+	/**
+	 * Looks for the order in the recent partitions first, where most lookups end.
+	 */
+	private Mono<Order> findOrder(Long id) {
+		var recentSince = Instant.now().minus(partitionProperties.recentOrderWindow());
+		return orderRepository.findRecentById(id, recentSince)
+				.switchIfEmpty(Mono.defer(() -> orderRepository.findById(id)));
+	}
+
+	/**
+	 * The creation date as stored in the timestamp column, which is read in the default time zone.
+	 */
+	private static LocalDateTime storedDate(Instant createdDate) {
+		return LocalDateTime.ofInstant(createdDate, ZoneId.systemDefault());
 	}
 
 }
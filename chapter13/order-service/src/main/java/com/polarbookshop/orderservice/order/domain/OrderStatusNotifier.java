@@ -0,0 +1,52 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fans out order status changes to the clients subscribed on every instance. A change is
+ * only handled by the instance consuming the dispatch event, so it's broadcast through
+ * the order-status destination, which each instance consumes from its own anonymous queue,
+ * then emitted to the clients subscribed on that instance.
+ */
+@Component
+public class OrderStatusNotifier {
+
+	static final String BINDING_NAME = "orderStatus-out-0";
+
+	private static final Logger log = LoggerFactory.getLogger(OrderStatusNotifier.class);
+
+	private final Sinks.Many<Order> sink = Sinks.many().multicast().directBestEffort();
+	private final StreamBridge streamBridge;
+
+	public OrderStatusNotifier(StreamBridge streamBridge) {
+		this.streamBridge = streamBridge;
+	}
+
+	/**
+	 * Broadcasts the change to all the instances. Call it once the change is committed.
+	 */
+	public void publish(Order order) {
+		if (!streamBridge.send(BINDING_NAME, order)) {
+			log.warn("Failed to broadcast the status change of order {}", order.id());
+		}
+	}
+
+	/**
+	 * Emits a broadcast change to the clients subscribed on this instance.
+	 */
+	public synchronized void deliver(Order order) {
+		sink.tryEmitNext(order);
+	}
+
+	public Flux<Order> updatesFor(String userId) {
+		return sink.asFlux()
+				.filter(order -> userId.equals(order.createdBy()));
+	}
+
+}
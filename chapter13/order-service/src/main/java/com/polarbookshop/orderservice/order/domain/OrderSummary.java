@@ -0,0 +1,26 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Table("order_summaries")
+public record OrderSummary (
+
+		@Id
+		String userId,
+
+		int acceptedOrders,
+		int rejectedOrders,
+		int dispatchedOrders,
+		Double totalSpent,
+		Long lastOrderId,
+		Instant lastOrderDate
+){
+
+	public static OrderSummary empty(String userId) {
+		return new OrderSummary(userId, 0, 0, 0, 0.0, null, null);
+	}
+
+}
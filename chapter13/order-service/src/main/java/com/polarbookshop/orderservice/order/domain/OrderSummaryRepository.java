@@ -0,0 +1,39 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import java.time.Instant;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+/**
+ * The summaries are only changed through atomic increments, so that concurrent
+ * orders from the same user never overwrite each other.
+ */
+public interface OrderSummaryRepository extends ReactiveCrudRepository<OrderSummary,String> {
+
+	@Modifying
+	@Query("""
+			insert into order_summaries (user_id, accepted_orders, rejected_orders, dispatched_orders,
+				total_spent, last_order_id, last_order_date)
+			values (:userId, :accepted, :rejected, 0, :spent, :orderId, :orderDate)
+			on conflict (user_id) do update set
+				accepted_orders = order_summaries.accepted_orders + excluded.accepted_orders,
+				rejected_orders = order_summaries.rejected_orders + excluded.rejected_orders,
+				total_spent = order_summaries.total_spent + excluded.total_spent,
+				last_order_id = excluded.last_order_id,
+				last_order_date = excluded.last_order_date
+			""")
+	Mono<Integer> addOrder(String userId, int accepted, int rejected, double spent, Long orderId, Instant orderDate);
+
+	@Modifying
+	@Query("""
+			update order_summaries
+			set accepted_orders = accepted_orders - 1, dispatched_orders = dispatched_orders + 1
+			where user_id = :userId
+			""")
+	Mono<Integer> moveToDispatched(String userId);
+
+}
@@ -2,13 +2,20 @@ package com.polarbookshop.orderservice.order.event;
 
 import java.util.function.Consumer;
 
+import com.polarbookshop.commons.messaging.DeadLetterRouter;
+import com.polarbookshop.commons.messaging.MessageProcessingMetrics;
+import com.polarbookshop.orderservice.order.domain.Order;
 import com.polarbookshop.orderservice.order.domain.OrderService;
+import com.polarbookshop.orderservice.order.domain.OrderStatusNotifier;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
 
 @Configuration
 public class OrderFunctions {
@@ -16,11 +23,21 @@ public class OrderFunctions {
 	private static final Logger log = LoggerFactory.getLogger(OrderFunctions.class);
 
 	@Bean
-	public Consumer<Flux<OrderDispatchedMessage>> dispatchOrder(OrderService orderService) {
-		return flux -> orderService.consumeOrderDispatchedEvent(flux)
-				.doOnNext(order -> log.info("The order with id {} is dispatched", order.id()))
+	public Consumer<Flux<Message<OrderDispatchedMessage>>> dispatchOrder(OrderService orderService, DeadLetterRouter deadLetterRouter, MeterRegistry meterRegistry) {
+		return flux -> flux
+				.flatMap(message -> MessageProcessingMetrics.timed("dispatchOrder", meterRegistry, orderService.consumeOrderDispatchedEvent(message.getPayload()))
+						.doOnNext(order -> log.info("The order with id {} is dispatched", order.id()))
+						.onErrorResume(exception -> deadLetterRouter.route(message, exception).then(Mono.empty())))
 				.subscribe();
 	}
 
-}
+	/**
+	 * Receives the status changes broadcast by the instance that made them,
+	 * for the clients subscribed on this instance.
+	 */
+	@Bean
+	public Consumer<Order> orderStatus(OrderStatusNotifier orderStatusNotifier) {
+		return orderStatusNotifier::deliver;
+	}
 
+}
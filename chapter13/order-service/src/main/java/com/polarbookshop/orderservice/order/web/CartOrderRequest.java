@@ -0,0 +1,15 @@
+package com.polarbookshop.orderservice.order.web;
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+
+public record CartOrderRequest (
+
+		@NotEmpty(message = "The order must contain at least one book.")
+		@Size(max = 50, message = "You cannot order more than 50 lines.")
+		List<@Valid OrderRequest> lines
+
+){}
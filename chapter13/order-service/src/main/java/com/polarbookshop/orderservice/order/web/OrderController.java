@@ -1,26 +1,38 @@
 package com.polarbookshop.orderservice.order.web;
 
+import java.time.Duration;
+
 import javax.validation.Valid;
 
 import com.polarbookshop.orderservice.order.domain.Order;
+import com.polarbookshop.orderservice.order.domain.OrderLine;
 import com.polarbookshop.orderservice.order.domain.OrderService;
+import com.polarbookshop.orderservice.order.domain.OrderSummary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("orders")
 public class OrderController {
 	private static final Logger log = LoggerFactory.getLogger(OrderController.class);
+	// Keeps the stream alive across the idle timeouts of this service and the gateway
+	private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(10);
+	private static final int DEFAULT_PAGE_SIZE = 20;
+	private static final int MAX_PAGE_SIZE = 100;
 
 	private final OrderService orderService;
 
@@ -29,9 +41,39 @@ public class OrderController {
 	}
 
 	@GetMapping
-	public Flux<Order> getAllOrders(@AuthenticationPrincipal Jwt jwt) {
-		log.info("Fetching all orders.");
-		return orderService.getAllOrders(jwt.getSubject());
+	public Flux<Order> getAllOrders(@AuthenticationPrincipal Jwt jwt,
+			@RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit) {
+		if (after == null && limit == null) {
+			log.info("Fetching all orders.");
+			return orderService.getAllOrders(jwt.getSubject());
+		}
+		log.info("Fetching a page of orders after order {}.", after);
+		return orderService.getOrders(jwt.getSubject(), after, pageSize(limit));
+	}
+
+	@GetMapping("{id}/lines")
+	public Flux<OrderLine> getOrderLines(@AuthenticationPrincipal Jwt jwt, @PathVariable Long id) {
+		log.info("Fetching the lines of order {}.", id);
+		return orderService.getOrderLines(jwt.getSubject(), id);
+	}
+
+	@GetMapping("summary")
+	public Mono<OrderSummary> getOrderSummary(@AuthenticationPrincipal Jwt jwt) {
+		log.info("Fetching the orders summary.");
+		return orderService.getOrderSummary(jwt.getSubject());
+	}
+
+	@GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<Order>> getOrderUpdates(@AuthenticationPrincipal Jwt jwt) {
+		log.info("Streaming order updates.");
+		var updates = orderService.getOrderUpdates(jwt.getSubject())
+				.map(order -> ServerSentEvent.builder(order)
+						.id(String.valueOf(order.id()))
+						.event(order.status().name())
+						.build());
+		var heartbeats = Flux.interval(HEARTBEAT_INTERVAL)
+				.map(tick -> ServerSentEvent.<Order>builder().comment("heartbeat").build());
+		return Flux.merge(updates, heartbeats);
 	}
 
 	@PostMapping
@@ -40,4 +82,20 @@ public class OrderController {
 		return orderService.submitOrder(orderRequest.isbn(), orderRequest.quantity());
 	}
 
+	@PostMapping("cart")
+	public Mono<Order> submitCartOrder(@RequestBody @Valid CartOrderRequest cartOrderRequest) {
+		log.info("Order for {} lines of books.", cartOrderRequest.lines().size());
+		var lines = cartOrderRequest.lines().stream()
+				.map(line -> OrderLine.of(line.isbn(), line.quantity()))
+				.toList();
+		return orderService.submitOrder(lines);
+	}
+
+	private static int pageSize(Integer limit) {
+		if (limit == null) {
+			return DEFAULT_PAGE_SIZE;
+		}
+		return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+	}
+
 }
@@ -0,0 +1,19 @@
+package com.polarbookshop.orderservice.order.web;
+
+import com.polarbookshop.orderservice.order.domain.InvalidOrderCursorException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class OrderControllerAdvice {
+
+	@ExceptionHandler(InvalidOrderCursorException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	String invalidOrderCursorHandler(InvalidOrderCursorException ex) {
+		return ex.getMessage();
+	}
+
+}
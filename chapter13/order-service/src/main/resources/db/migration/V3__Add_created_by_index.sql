@@ -0,0 +1,2 @@
+CREATE INDEX orders_created_by_created_date_idx
+    ON orders (created_by, created_date DESC, id DESC);
\ No newline at end of file
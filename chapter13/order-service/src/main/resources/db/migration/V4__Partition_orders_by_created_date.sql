@@ -0,0 +1,104 @@
+-- Runs in a single transaction, like every Flyway migration here: the orders table is
+-- locked from the rename until the copy commits, so writes and reads of orders wait
+-- for the whole copy. Plan it as downtime on a large table, see the README.
+
+-- Move the existing table aside, keeping its id sequence for the new one.
+ALTER TABLE orders RENAME TO orders_legacy;
+ALTER TABLE orders_legacy RENAME CONSTRAINT orders_pkey TO orders_legacy_pkey;
+ALTER INDEX orders_created_by_created_date_idx RENAME TO orders_legacy_created_by_created_date_idx;
+
+CREATE TABLE orders (
+    id                  bigint NOT NULL DEFAULT nextval('orders_id_seq'),
+    book_isbn           varchar(255) NOT NULL,
+    book_name           varchar(255),
+    book_price          float8,
+    quantity            int NOT NULL,
+    status              varchar(255) NOT NULL,
+    created_date        timestamp NOT NULL,
+    last_modified_date  timestamp NOT NULL,
+    version             integer NOT NULL,
+    created_by          varchar(255),
+    last_modified_by    varchar(255),
+    PRIMARY KEY (id, created_date)
+) PARTITION BY RANGE (created_date);
+
+ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+
+CREATE INDEX orders_created_by_created_date_idx
+    ON orders (created_by, created_date DESC, id DESC);
+
+-- Safety net for rows outside the monthly partitions. It should stay empty,
+-- since partitions are created ahead of time by maintain_orders_partitions().
+CREATE TABLE orders_default PARTITION OF orders DEFAULT;
+
+CREATE SCHEMA IF NOT EXISTS orders_archive;
+
+CREATE FUNCTION create_orders_partition(month_start date) RETURNS void AS $$
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+        'orders_' || to_char(month_start, 'YYYY_MM'),
+        month_start,
+        (month_start + interval '1 month')::date);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Creates the partitions for the current month and the next months_ahead months,
+-- then detaches the monthly partitions older than retention_months and moves them
+-- to the orders_archive schema. A retention of 0 or less keeps every partition.
+-- Returns the names of the archived partitions.
+CREATE FUNCTION maintain_orders_partitions(months_ahead int, retention_months int) RETURNS SETOF text AS $$
+DECLARE
+    current_month date := date_trunc('month', now())::date;
+    partition_name text;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('maintain_orders_partitions'));
+
+    FOR i IN 0..months_ahead LOOP
+        PERFORM create_orders_partition((current_month + make_interval(months => i))::date);
+    END LOOP;
+
+    IF retention_months <= 0 THEN
+        RETURN;
+    END IF;
+
+    FOR partition_name IN
+        SELECT child.relname
+        FROM pg_inherits
+            JOIN pg_class parent ON pg_inherits.inhparent = parent.oid
+            JOIN pg_class child ON pg_inherits.inhrelid = child.oid
+        WHERE parent.relname = 'orders'
+          AND child.relname ~ '^orders_[0-9]{4}_[0-9]{2}$'
+          AND to_date(substring(child.relname FROM 8), 'YYYY_MM')
+              < current_month - make_interval(months => retention_months)
+        ORDER BY child.relname
+    LOOP
+        EXECUTE format('ALTER TABLE orders DETACH PARTITION %I', partition_name);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA orders_archive', partition_name);
+        RETURN NEXT partition_name;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions covering the existing data, then copy it over.
+DO $$
+DECLARE
+    month_start date := coalesce(
+        (SELECT date_trunc('month', min(created_date))::date FROM orders_legacy),
+        date_trunc('month', now())::date);
+BEGIN
+    WHILE month_start <= date_trunc('month', now())::date LOOP
+        PERFORM create_orders_partition(month_start);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END;
+$$;
+
+SELECT maintain_orders_partitions(3, 0);
+
+INSERT INTO orders (id, book_isbn, book_name, book_price, quantity, status, created_date,
+                    last_modified_date, version, created_by, last_modified_by)
+SELECT id, book_isbn, book_name, book_price, quantity, status, created_date,
+       last_modified_date, version, created_by, last_modified_by
+FROM orders_legacy;
+
+DROP TABLE orders_legacy;
\ No newline at end of file
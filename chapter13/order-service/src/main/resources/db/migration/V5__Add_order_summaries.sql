@@ -0,0 +1,22 @@
+CREATE TABLE order_summaries (
+    user_id             varchar(255) PRIMARY KEY NOT NULL,
+    accepted_orders     int NOT NULL,
+    rejected_orders     int NOT NULL,
+    dispatched_orders   int NOT NULL,
+    total_spent         float8 NOT NULL,
+    last_order_id       bigint,
+    last_order_date     timestamp
+);
+
+INSERT INTO order_summaries (user_id, accepted_orders, rejected_orders, dispatched_orders,
+                             total_spent, last_order_id, last_order_date)
+SELECT created_by,
+       count(*) FILTER (WHERE status = 'ACCEPTED'),
+       count(*) FILTER (WHERE status = 'REJECTED'),
+       count(*) FILTER (WHERE status = 'DISPATCHED'),
+       coalesce(sum(book_price * quantity) FILTER (WHERE status IN ('ACCEPTED', 'DISPATCHED')), 0),
+       (array_agg(id ORDER BY created_date DESC, id DESC))[1],
+       max(created_date)
+FROM orders
+WHERE created_by IS NOT NULL
+GROUP BY created_by;
\ No newline at end of file
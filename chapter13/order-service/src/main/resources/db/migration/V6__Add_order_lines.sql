@@ -0,0 +1,12 @@
+-- Multi-line orders keep their books in order_lines; the order row only holds the header
+ALTER TABLE orders ALTER COLUMN book_isbn DROP NOT NULL;
+
+CREATE TABLE order_lines (
+    order_id            bigint NOT NULL,
+    line_number         int NOT NULL,
+    book_isbn           varchar(255) NOT NULL,
+    book_name           varchar(255),
+    book_price          float8,
+    quantity            int NOT NULL,
+    PRIMARY KEY (order_id, line_number)
+);
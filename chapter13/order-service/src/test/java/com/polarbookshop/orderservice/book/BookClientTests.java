@@ -1,9 +1,16 @@
 package com.polarbookshop.orderservice.book;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 
+import com.polarbookshop.commons.resilience.RequestBudget;
+import com.polarbookshop.orderservice.config.ClientProperties;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.MethodOrderer;
@@ -16,10 +23,13 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @TestMethodOrder(MethodOrderer.Random.class)
 class BookClientTests {
 
 	private MockWebServer mockWebServer;
+	private SimpleMeterRegistry meterRegistry;
 	private BookClient bookClient;
 
 	@BeforeEach
@@ -30,7 +40,12 @@ class BookClientTests {
 		var webClient = WebClient.builder()
 				.baseUrl(mockWebServer.url("/").uri().toString())
 				.build();
-		this.bookClient = new BookClient(webClient);
+		this.meterRegistry = new SimpleMeterRegistry();
+		var hedging = new ClientProperties.Hedging(false, 0.95, Duration.ofMillis(20), Duration.ofSeconds(1), 0.1);
+		var retries = new ClientProperties.Retries(0.5, 0);
+		this.bookClient = new BookClient(webClient, new RequestHedger("catalog-service", hedging, meterRegistry),
+				new RequestBudget("polar.client.retries", Tags.of("client", "catalog-service"), retries.budgetRatio(), 100,
+						retries.minRetriesPerSecond(), meterRegistry));
 	}
 
 	@AfterEach
@@ -78,4 +93,73 @@ class BookClientTests {
 				.verifyComplete();
 	}
 
-}
\ No newline at end of file
+	@Test
+	void whenBooksRequestedThenReturnBooksFromOneRequest() throws InterruptedException {
+		var mockResponse = new MockResponse()
+				.addHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+				.setBody("""
+							[
+								{
+									"isbn": "1234567892",
+									"title": "Title",
+									"author": "Author",
+									"price": 9.90,
+									"publisher": "Polarsophia"
+								}
+							]
+						""");
+
+		mockWebServer.enqueue(mockResponse);
+
+		StepVerifier.create(bookClient.getBooksByIsbn(List.of("1234567892", "1234567893")))
+				.expectNextMatches(b -> b.isbn().equals("1234567892"))
+				.verifyComplete();
+		assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+		assertThat(mockWebServer.takeRequest().getPath()).isEqualTo("/books?isbn=1234567892,1234567893");
+	}
+
+	@Test
+	void whenBooksResponseInterruptedThenReturnNoBooks() {
+		var mockResponse = new MockResponse()
+				.addHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+				.setBody("""
+							[
+								{
+									"isbn": "1234567892",
+									"title": "Title",
+									"author": "Author",
+									"price": 9.90,
+									"publisher": "Polarsophia"
+								},
+								{
+									"isbn": "1234567893",
+									"title": "%s",
+									"author": "Author",
+									"price": 9.90,
+									"publisher": "Polarsophia"
+								}
+							]
+						""".formatted("Title".repeat(100)))
+				.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+
+		mockWebServer.enqueue(mockResponse);
+
+		StepVerifier.create(bookClient.getBooksByIsbn(List.of("1234567892", "1234567893")))
+				.expectNextCount(0)
+				.verifyComplete();
+	}
+
+	@Test
+	void whenRetryBudgetSpentThenNotRetried() {
+		for (int i = 0; i < 4; i++) {
+			mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+		}
+
+		StepVerifier.create(bookClient.getBookByIsbn("1234567894"))
+				.expectNextCount(0)
+				.verifyComplete();
+		assertThat(mockWebServer.getRequestCount()).isEqualTo(1);
+		assertThat(meterRegistry.get("polar.client.retries.denied").counter().count()).isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.polarbookshop.orderservice.book;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.polarbookshop.orderservice.config.ClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestHedgerTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void whenFirstRequestSlowThenHedgedRequestWins() {
+		var hedger = new RequestHedger("catalog-service", hedging(true, 1.0), meterRegistry);
+		var calls = new AtomicInteger();
+
+		StepVerifier.create(hedger.hedge(slowThenFast(calls)))
+				.expectNext("hedged")
+				.verifyComplete();
+
+		assertThat(calls).hasValue(2);
+		assertThat(meterRegistry.get("polar.client.hedges.issued").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("polar.client.hedges.won").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void whenBudgetExhaustedThenNoHedgedRequest() {
+		var hedger = new RequestHedger("catalog-service", hedging(true, 0.0), meterRegistry);
+		var calls = new AtomicInteger();
+
+		StepVerifier.create(hedger.hedge(slowThenFast(calls)))
+				.expectNext("primary")
+				.verifyComplete();
+
+		assertThat(calls).hasValue(1);
+		assertThat(meterRegistry.get("polar.client.hedges.issued").counter().count()).isZero();
+	}
+
+	@Test
+	void whenHedgingDisabledThenSingleRequest() {
+		var hedger = new RequestHedger("catalog-service", hedging(false, 1.0), meterRegistry);
+		var calls = new AtomicInteger();
+
+		StepVerifier.create(hedger.hedge(slowThenFast(calls)))
+				.expectNext("primary")
+				.verifyComplete();
+
+		assertThat(calls).hasValue(1);
+	}
+
+	@Test
+	void whenHedgedRequestFailsThenFirstResponseUsed() {
+		var hedger = new RequestHedger("catalog-service", hedging(true, 1.0), meterRegistry);
+		var calls = new AtomicInteger();
+		Supplier<Mono<String>> request = () -> calls.incrementAndGet() == 1
+				? Mono.delay(Duration.ofMillis(200)).thenReturn("primary")
+				: Mono.error(new IllegalStateException("Catalog Service unavailable"));
+
+		StepVerifier.create(hedger.hedge(request))
+				.expectNext("primary")
+				.verifyComplete();
+	}
+
+	@Test
+	void whenEnoughResponsesThenDelayFollowsPercentile() {
+		var hedger = new RequestHedger("catalog-service", hedging(true, 1.0), meterRegistry);
+		assertThat(hedger.delay()).isEqualTo(Duration.ofMillis(50));
+
+		for (int i = 1; i <= 128; i++) {
+			hedger.record(Duration.ofMillis(i % 100 < 95 ? 10 : 40).toNanos());
+		}
+
+		assertThat(hedger.delay()).isBetween(Duration.ofMillis(10), Duration.ofMillis(40));
+	}
+
+	@Test
+	void whenHedgedRequestsWinThenDelayKeepsFirstRequestTimes() {
+		var hedger = new RequestHedger("catalog-service", hedging(true, 1.0), meterRegistry);
+		for (int i = 0; i < 96; i++) {
+			hedger.record(Duration.ofMillis(1).toNanos());
+		}
+
+		for (int i = 0; i < 32; i++) {
+			StepVerifier.create(hedger.hedge(slowThenFast(new AtomicInteger())))
+					.expectNext("hedged")
+					.verifyComplete();
+		}
+
+		// Recording only the fast hedged responses would bring the delay down to 1ms
+		assertThat(hedger.delay()).isEqualTo(Duration.ofMillis(50));
+	}
+
+	private static Supplier<Mono<String>> slowThenFast(AtomicInteger calls) {
+		return () -> calls.incrementAndGet() == 1
+				? Mono.delay(Duration.ofSeconds(2)).thenReturn("primary")
+				: Mono.just("hedged");
+	}
+
+	private static ClientProperties.Hedging hedging(boolean enabled, double budgetRatio) {
+		return new ClientProperties.Hedging(enabled, 0.95, Duration.ofMillis(1), Duration.ofMillis(50), budgetRatio);
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.polarbookshop.orderservice.config;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import okio.GzipSink;
+import okio.Okio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientConfigTests {
+
+	private MockWebServer mockWebServer;
+	private ConnectionProvider connectionProvider;
+
+	@BeforeEach
+	void setup() throws IOException {
+		this.mockWebServer = new MockWebServer();
+		this.mockWebServer.start();
+		this.connectionProvider = ConnectionProvider.builder("test").maxConnections(1).build();
+	}
+
+	@AfterEach
+	void clean() throws IOException {
+		this.connectionProvider.dispose();
+		this.mockWebServer.shutdown();
+	}
+
+	@Test
+	void whenH2cEnabledThenUpgradeWithHttp11Fallback() {
+		var httpClient = ClientConfig.catalogHttpClient(connectionProvider, catalogClient(true, false));
+		assertThat(httpClient.configuration().protocols()).containsExactlyInAnyOrder(HttpProtocol.H2C, HttpProtocol.HTTP11);
+	}
+
+	@Test
+	void whenH2cDisabledThenHttp11Only() {
+		var httpClient = ClientConfig.catalogHttpClient(connectionProvider, catalogClient(false, false));
+		assertThat(httpClient.configuration().protocols()).containsExactly(HttpProtocol.HTTP11);
+	}
+
+	@Test
+	void whenCompressionEnabledThenGzipResponseDecoded() throws IOException, InterruptedException {
+		var body = new Buffer();
+		try (var gzip = Okio.buffer(new GzipSink(body))) {
+			gzip.writeUtf8("{\"isbn\":\"1234567890\"}");
+		}
+		mockWebServer.enqueue(new MockResponse()
+				.addHeader("Content-Type", "application/json")
+				.addHeader("Content-Encoding", "gzip")
+				.setBody(body));
+		var httpClient = ClientConfig.catalogHttpClient(connectionProvider, catalogClient(false, true));
+		var webClient = WebClient.builder()
+				.baseUrl(mockWebServer.url("/").uri().toString())
+				.clientConnector(new ReactorClientHttpConnector(httpClient))
+				.build();
+
+		StepVerifier.create(webClient.get().uri("/books/1234567890").retrieve().bodyToMono(String.class))
+				.expectNext("{\"isbn\":\"1234567890\"}")
+				.verifyComplete();
+		assertThat(mockWebServer.takeRequest().getHeader("Accept-Encoding")).isEqualTo("gzip");
+	}
+
+	private static ClientProperties.CatalogClient catalogClient(boolean h2c, boolean compression) {
+		return new ClientProperties.CatalogClient(1, Duration.ofSeconds(10), Duration.ofMinutes(5),
+				10, Duration.ofSeconds(2), Duration.ofSeconds(10), h2c, compression, false,
+				new ClientProperties.Hedging(false, 0.95, Duration.ofMillis(20), Duration.ofSeconds(1), 0.1),
+				new ClientProperties.Retries(0.1, 5));
+	}
+
+}
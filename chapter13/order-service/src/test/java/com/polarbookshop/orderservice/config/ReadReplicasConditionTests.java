@@ -0,0 +1,58 @@
+package com.polarbookshop.orderservice.config;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadReplicasConditionTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withUserConfiguration(PoolsConfig.class);
+
+	@Test
+	void whenCommaSeparatedUrlsThenReplicas() {
+		contextRunner.withPropertyValues("polar.read-replicas.urls=r2dbc:postgresql://replica-0/polardb_order,r2dbc:postgresql://replica-1/polardb_order")
+				.run(context -> assertThat(context).hasBean("replicas").doesNotHaveBean("primaryOnly"));
+	}
+
+	@Test
+	void whenIndexedUrlsThenReplicas() {
+		contextRunner.withPropertyValues("polar.read-replicas.urls[0]=r2dbc:postgresql://replica-0/polardb_order",
+						"polar.read-replicas.urls[1]=r2dbc:postgresql://replica-1/polardb_order")
+				.run(context -> assertThat(context).hasBean("replicas").doesNotHaveBean("primaryOnly"));
+	}
+
+	@Test
+	void whenNoUrlsThenPrimaryOnly() {
+		contextRunner.run(context -> assertThat(context).hasBean("primaryOnly").doesNotHaveBean("replicas"));
+	}
+
+	@Test
+	void whenEmptyUrlsThenPrimaryOnly() {
+		contextRunner.withPropertyValues("polar.read-replicas.urls=")
+				.run(context -> assertThat(context).hasBean("primaryOnly").doesNotHaveBean("replicas"));
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	static class PoolsConfig {
+
+		@Bean
+		@Conditional(ReadReplicasCondition.class)
+		String replicas() {
+			return "replicas";
+		}
+
+		@Bean
+		@Conditional(ReadReplicasCondition.Absent.class)
+		String primaryOnly() {
+			return "primary";
+		}
+
+	}
+
+}
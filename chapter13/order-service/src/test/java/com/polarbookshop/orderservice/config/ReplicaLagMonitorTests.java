@@ -0,0 +1,72 @@
+package com.polarbookshop.orderservice.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+@Testcontainers
+class ReplicaLagMonitorTests {
+
+	@Container
+	static PostgreSQLContainer<?> postgresql = new PostgreSQLContainer<>(DockerImageName.parse("postgres:14.10"));
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private ReplicaLagMonitor lagMonitor;
+
+	@AfterEach
+	void dispose() {
+		lagMonitor.dispose();
+	}
+
+	@Test
+	void whenUpToDateThenWithinTolerance() {
+		// Not a replica, which the lag query reports as up to date
+		lagMonitor = lagMonitor(ConnectionFactories.get(String.format("r2dbc:postgresql://%s:%s@%s:%s/%s",
+				postgresql.getUsername(), postgresql.getPassword(), postgresql.getHost(),
+				postgresql.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), postgresql.getDatabaseName())));
+
+		lagMonitor.check("replica-0", Duration.ofSeconds(10)).block();
+
+		assertThat(lagMonitor.isWithinTolerance("replica-0")).isTrue();
+		assertThat(meterRegistry.get("polar.r2dbc.replica.lag").tag("name", "replica-0").gauge().value()).isZero();
+	}
+
+	@Test
+	void whenLagNotMeasuredThenBehind() {
+		var unreachable = mock(ConnectionFactory.class);
+		given(unreachable.create()).willAnswer(invocation -> Mono.error(new IllegalStateException("Connection refused")));
+		lagMonitor = lagMonitor(unreachable);
+
+		lagMonitor.check("replica-0", Duration.ofSeconds(10)).block();
+
+		assertThat(lagMonitor.isWithinTolerance("replica-0")).isFalse();
+		assertThat(meterRegistry.get("polar.r2dbc.replica.lag").tag("name", "replica-0").gauge().value()).isNaN();
+	}
+
+	@Test
+	void whenUnknownReplicaThenBehind() {
+		lagMonitor = lagMonitor(mock(ConnectionFactory.class));
+
+		assertThat(lagMonitor.isWithinTolerance("replica-1")).isFalse();
+	}
+
+	private ReplicaLagMonitor lagMonitor(ConnectionFactory replica) {
+		// Checked by the tests rather than in the background
+		return new ReplicaLagMonitor(Map.of("replica-0", replica), Duration.ofSeconds(5), Duration.ofHours(1), meterRegistry);
+	}
+
+}
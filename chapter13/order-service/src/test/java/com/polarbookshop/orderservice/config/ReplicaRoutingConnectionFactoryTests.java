@@ -0,0 +1,113 @@
+package com.polarbookshop.orderservice.config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.transaction.reactive.TransactionContextManager;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class ReplicaRoutingConnectionFactoryTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ReplicaLagMonitor lagMonitor = mock(ReplicaLagMonitor.class);
+	private final RecentWriters recentWriters = new RecentWriters(Duration.ofSeconds(5),
+			Clock.fixed(Instant.parse("2026-10-18T10:00:00Z"), ZoneOffset.UTC));
+	private final ReplicaRoutingConnectionFactory connectionFactory = new ReplicaRoutingConnectionFactory(
+			mock(ConnectionFactory.class),
+			Map.of("replica-0", mock(ConnectionFactory.class), "replica-1", mock(ConnectionFactory.class)),
+			lagMonitor, recentWriters, meterRegistry);
+
+	@Test
+	void whenNoTransactionThenPrimary() {
+		StepVerifier.create(connectionFactory.determineCurrentLookupKey())
+				.expectNext(ReplicaRoutingConnectionFactory.PRIMARY)
+				.verifyComplete();
+	}
+
+	@Test
+	void whenReadWriteTransactionThenPrimary() {
+		given(lagMonitor.isWithinTolerance("replica-0")).willReturn(true);
+		given(lagMonitor.isWithinTolerance("replica-1")).willReturn(true);
+
+		StepVerifier.create(lookupKey(false))
+				.expectNext(ReplicaRoutingConnectionFactory.PRIMARY)
+				.verifyComplete();
+	}
+
+	@Test
+	void whenReadOnlyTransactionsThenReplicasInTurn() {
+		given(lagMonitor.isWithinTolerance("replica-0")).willReturn(true);
+		given(lagMonitor.isWithinTolerance("replica-1")).willReturn(true);
+
+		var first = lookupKey(true).block();
+		var second = lookupKey(true).block();
+
+		assertThat(first).isIn("replica-0", "replica-1");
+		assertThat(second).isIn("replica-0", "replica-1").isNotEqualTo(first);
+	}
+
+	@Test
+	void whenReplicaBehindThenSkipped() {
+		given(lagMonitor.isWithinTolerance("replica-0")).willReturn(false);
+		given(lagMonitor.isWithinTolerance("replica-1")).willReturn(true);
+
+		StepVerifier.create(lookupKey(true).repeat(3))
+				.expectNext("replica-1", "replica-1", "replica-1", "replica-1")
+				.verifyComplete();
+		assertThat(meterRegistry.get("polar.r2dbc.reads").tag("target", "replica-1").counter().count()).isEqualTo(4);
+	}
+
+	@Test
+	void whenAllReplicasBehindThenPrimary() {
+		StepVerifier.create(lookupKey(true))
+				.expectNext(ReplicaRoutingConnectionFactory.PRIMARY)
+				.verifyComplete();
+		assertThat(meterRegistry.get("polar.r2dbc.reads").tag("target", "primary").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void whenUserSubmittedOrderThenTheirReadsGoToPrimary() {
+		given(lagMonitor.isWithinTolerance("replica-0")).willReturn(true);
+		given(lagMonitor.isWithinTolerance("replica-1")).willReturn(true);
+
+		recentWriters.recordCurrentUser()
+				.contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication("bjorn")))
+				.block();
+
+		StepVerifier.create(lookupKey(true)
+						.contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication("bjorn"))))
+				.expectNext(ReplicaRoutingConnectionFactory.PRIMARY)
+				.verifyComplete();
+		StepVerifier.create(lookupKey(true)
+						.contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication("isabelle"))))
+				.expectNextMatches(key -> key.toString().startsWith("replica-"))
+				.verifyComplete();
+	}
+
+	private Mono<Object> lookupKey(boolean readOnly) {
+		return TransactionSynchronizationManager.forCurrentTransaction()
+				.doOnNext(synchronizationManager -> synchronizationManager.setCurrentTransactionReadOnly(readOnly))
+				.then(connectionFactory.determineCurrentLookupKey())
+				.contextWrite(TransactionContextManager.createTransactionContext());
+	}
+
+	private static TestingAuthenticationToken authentication(String user) {
+		return new TestingAuthenticationToken(user, null, "customer");
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.polarbookshop.orderservice.config;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.ConnectionFactoryUtils;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Goes through the transactional proxies and the transaction manager, like the repositories,
+ * with connections that only record what they are asked.
+ */
+@SpringJUnitConfig
+class ReplicaRoutingTransactionTests {
+
+	static final Connection primaryConnection = connection();
+	static final Connection replicaConnection = connection();
+
+	@Autowired
+	Reads reads;
+
+	@BeforeEach
+	void clear() {
+		clearInvocations(primaryConnection, replicaConnection);
+	}
+
+	@Test
+	void whenReadOnlyWithoutTransactionThenReplicaWithoutBegin() {
+		StepVerifier.create(reads.readOnly())
+				.expectNext(replicaConnection)
+				.verifyComplete();
+		verify(replicaConnection, never()).beginTransaction();
+		verify(replicaConnection, never()).beginTransaction(any());
+	}
+
+	@Test
+	void whenReadOnlyTransactionThenReplica() {
+		StepVerifier.create(reads.readOnlyTransaction())
+				.expectNext(replicaConnection)
+				.verifyComplete();
+	}
+
+	@Test
+	void whenReadWriteTransactionThenPrimary() {
+		StepVerifier.create(reads.readWriteTransaction())
+				.expectNext(primaryConnection)
+				.verifyComplete();
+		verify(primaryConnection).commitTransaction();
+	}
+
+	private static Connection connection() {
+		// Every operation of the connection completes right away
+		return mock(Connection.class, invocation -> Publisher.class.isAssignableFrom(invocation.getMethod().getReturnType())
+				? Mono.empty() : Mockito.RETURNS_DEFAULTS.answer(invocation));
+	}
+
+	private static ConnectionFactory connectionFactory(Connection connection) {
+		var connectionFactory = mock(ConnectionFactory.class);
+		given(connectionFactory.create()).willAnswer(invocation -> Mono.just(connection));
+		return connectionFactory;
+	}
+
+	@Configuration
+	@EnableTransactionManagement
+	static class TestConfiguration {
+
+		@Bean
+		RecentWriters recentWriters() {
+			return new RecentWriters(Duration.ofSeconds(5), Clock.systemUTC());
+		}
+
+		@Bean(destroyMethod = "")
+		ReplicaRoutingConnectionFactory connectionFactory(RecentWriters recentWriters) {
+			var lagMonitor = mock(ReplicaLagMonitor.class);
+			given(lagMonitor.isWithinTolerance("replica-0")).willReturn(true);
+			return new ReplicaRoutingConnectionFactory(connectionFactory(primaryConnection),
+					Map.of("replica-0", connectionFactory(replicaConnection)), lagMonitor, recentWriters,
+					new SimpleMeterRegistry());
+		}
+
+		@Bean
+		ReactiveTransactionManager transactionManager(ReplicaRoutingConnectionFactory connectionFactory,
+				RecentWriters recentWriters) {
+			return new ReplicaAwareTransactionManager(connectionFactory, recentWriters);
+		}
+
+		@Bean
+		Reads reads(ReplicaRoutingConnectionFactory connectionFactory) {
+			return new Reads(connectionFactory);
+		}
+
+	}
+
+	static class Reads {
+
+		private final ConnectionFactory connectionFactory;
+
+		Reads(ConnectionFactory connectionFactory) {
+			this.connectionFactory = connectionFactory;
+		}
+
+		@Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+		public Mono<Connection> readOnly() {
+			return ConnectionFactoryUtils.getConnection(connectionFactory);
+		}
+
+		@Transactional(readOnly = true)
+		public Mono<Connection> readOnlyTransaction() {
+			return ConnectionFactoryUtils.getConnection(connectionFactory);
+		}
+
+		@Transactional
+		public Mono<Connection> readWriteTransaction() {
+			return ConnectionFactoryUtils.getConnection(connectionFactory);
+		}
+
+	}
+
+}
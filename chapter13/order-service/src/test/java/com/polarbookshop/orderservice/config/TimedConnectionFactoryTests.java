@@ -0,0 +1,85 @@
+package com.polarbookshop.orderservice.config;
+
+import java.util.concurrent.TimeoutException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class TimedConnectionFactoryTests {
+
+	@Test
+	void whenConnectionAcquiredThenTimeRecorded() {
+		var meterRegistry = new SimpleMeterRegistry();
+		var connection = mock(Connection.class);
+		var delegate = mock(ConnectionFactory.class);
+		given(delegate.create()).willAnswer(invocation -> Mono.just(connection));
+		var connectionFactory = new TimedConnectionFactory(delegate, provider(meterRegistry), "connectionFactory");
+
+		StepVerifier.create(connectionFactory.create())
+				.expectNext(connection)
+				.verifyComplete();
+
+		assertThat(meterRegistry.get(TimedConnectionFactory.METRIC_NAME).tag("name", "connectionFactory")
+				.tag("outcome", "success").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void whenAcquireTimedOutThenTimeRecordedAsTimeout() {
+		var meterRegistry = new SimpleMeterRegistry();
+		var delegate = mock(ConnectionFactory.class);
+		given(delegate.create()).willAnswer(invocation -> Mono.error(new TimeoutException("Did not observe any item")));
+		var connectionFactory = new TimedConnectionFactory(delegate, provider(meterRegistry), "connectionFactory");
+
+		StepVerifier.create(connectionFactory.create())
+				.verifyError(TimeoutException.class);
+
+		assertThat(meterRegistry.get(TimedConnectionFactory.METRIC_NAME).tag("outcome", "timeout").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void whenAcquireFailedThenTimeRecordedAsError() {
+		var meterRegistry = new SimpleMeterRegistry();
+		var delegate = mock(ConnectionFactory.class);
+		given(delegate.create()).willAnswer(invocation -> Mono.error(new R2dbcNonTransientResourceException("Connection refused")));
+		var connectionFactory = new TimedConnectionFactory(delegate, provider(meterRegistry), "connectionFactory");
+
+		StepVerifier.create(connectionFactory.create())
+				.verifyError(R2dbcNonTransientResourceException.class);
+
+		assertThat(meterRegistry.get(TimedConnectionFactory.METRIC_NAME).tag("outcome", "error").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void whenNoMeterRegistryThenConnectionStillAcquired() {
+		var connection = mock(Connection.class);
+		var delegate = mock(ConnectionFactory.class);
+		given(delegate.create()).willAnswer(invocation -> Mono.just(connection));
+		var connectionFactory = new TimedConnectionFactory(delegate,
+				new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), "connectionFactory");
+
+		StepVerifier.create(connectionFactory.create())
+				.expectNext(connection)
+				.verifyComplete();
+		assertThat(connectionFactory.unwrap()).isSameAs(delegate);
+	}
+
+	private static ObjectProvider<MeterRegistry> provider(MeterRegistry meterRegistry) {
+		var beanFactory = new StaticListableBeanFactory();
+		beanFactory.addBean("meterRegistry", meterRegistry);
+		return beanFactory.getBeanProvider(MeterRegistry.class);
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import java.util.List;
+
+import com.polarbookshop.orderservice.config.DataConfig;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.test.StepVerifier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataR2dbcTest
+@Import({DataConfig.class, OrderLineRepository.class})
+@Testcontainers
+class OrderLineRepositoryR2dbcTests {
+
+    @Container
+    static PostgreSQLContainer<?> postgresql = new PostgreSQLContainer<>(DockerImageName.parse("postgres:14.10"));
+
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @DynamicPropertySource
+    static void postgresqlProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", OrderLineRepositoryR2dbcTests::r2dbcUrl);
+        registry.add("spring.r2dbc.username", postgresql::getUsername);
+        registry.add("spring.r2dbc.password", postgresql::getPassword);
+        registry.add("spring.flyway.url", postgresql::getJdbcUrl);
+    }
+
+    private static String r2dbcUrl() {
+        return String.format("r2dbc:postgresql://%s:%s/%s", postgresql.getHost(),
+                postgresql.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), postgresql.getDatabaseName());
+    }
+
+    @Test
+    void findLinesWhenOrderNotExisting() {
+        StepVerifier.create(orderLineRepository.findAllByOrderId(394L))
+                .expectNextCount(0)
+                .verifyComplete();
+    }
+
+    @Test
+    void saveAllLinesOfOrder() {
+        var lines = List.of(
+                new OrderLine(null, 1, "1234567890", "Title - Author", 9.90, 1),
+                new OrderLine(null, 2, "1234567891", null, null, 2),
+                new OrderLine(null, 3, "1234567892", "Another Title - Author", 12.90, 3));
+
+        var savedLines = orderLineRepository.saveAll(395L, lines)
+                .thenMany(orderLineRepository.findAllByOrderId(395L))
+                .collectList();
+
+        StepVerifier.create(savedLines)
+                .assertNext(actualLines -> {
+                    assertThat(actualLines).extracting(OrderLine::orderId).containsOnly(395L);
+                    assertThat(actualLines).extracting(OrderLine::bookIsbn)
+                            .containsExactly("1234567890", "1234567891", "1234567892");
+                    assertThat(actualLines.get(1).bookPrice()).isNull();
+                })
+                .verifyComplete();
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.polarbookshop.orderservice.config.DataConfig;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Mono;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the "my orders" queries while the table grows, to check that latency
+ * stays flat thanks to the (created_by, created_date, id) index.
+ */
+@DataR2dbcTest
+@Import(DataConfig.class)
+@Testcontainers
+@Disabled("Benchmark seeding tens of millions of rows, run it manually")
+class OrderRepositoryPaginationBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderRepositoryPaginationBenchmark.class);
+	private static final List<Integer> TABLE_SIZES = List.of(100_000, 1_000_000, 10_000_000, 30_000_000);
+	private static final int USERS = 10_000;
+	private static final int PAGE_SIZE = 20;
+	private static final int ITERATIONS = 50;
+
+	@Container
+	static PostgreSQLContainer<?> postgresql = new PostgreSQLContainer<>(DockerImageName.parse("postgres:14.10"));
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@DynamicPropertySource
+	static void postgresqlProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.r2dbc.url", OrderRepositoryPaginationBenchmark::r2dbcUrl);
+		registry.add("spring.r2dbc.username", postgresql::getUsername);
+		registry.add("spring.r2dbc.password", postgresql::getPassword);
+		registry.add("spring.flyway.url", postgresql::getJdbcUrl);
+	}
+
+	private static String r2dbcUrl() {
+		return String.format("r2dbc:postgresql://%s:%s/%s", postgresql.getHost(),
+				postgresql.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), postgresql.getDatabaseName());
+	}
+
+	@Test
+	void pageLatencyStaysFlatAsTableGrows() {
+		int rows = 0;
+		for (int tableSize : TABLE_SIZES) {
+			insertOrders(rows, tableSize);
+			rows = tableSize;
+			databaseClient.sql("analyze orders").then().block();
+
+			var firstPage = measure(() -> orderRepository.findFirstPageByCreatedBy("user-42", PAGE_SIZE).collectList());
+			var last = orderRepository.findFirstPageByCreatedBy("user-42", PAGE_SIZE).last().block();
+			var lastCreatedDate = LocalDateTime.ofInstant(last.createdDate(), ZoneId.systemDefault());
+			var nextPage = measure(() -> orderRepository.findPageByCreatedByBefore("user-42", lastCreatedDate, last.id(), PAGE_SIZE)
+					.collectList());
+
+			log.info("rows={} firstPage={}us nextPage={}us", tableSize, firstPage.toNanos() / 1000, nextPage.toNanos() / 1000);
+		}
+
+		var plan = databaseClient.sql("explain select * from orders where created_by = 'user-42' "
+						+ "order by created_date desc, id desc limit 20")
+				.map(row -> row.get(0, String.class))
+				.all().collectList().block();
+		assertThat(String.join("\n", plan)).contains("orders_created_by_created_date_idx");
+	}
+
+	private void insertOrders(int from, int to) {
+		databaseClient.sql("""
+						insert into orders (book_isbn, book_name, book_price, quantity, status,
+							created_date, last_modified_date, created_by, last_modified_by, version)
+						select '1234567890', 'Title - Author', 9.90, 1, 'ACCEPTED',
+							now() - make_interval(secs => i), now(), 'user-' || (i % :users), 'user-' || (i % :users), 0
+						from generate_series(:from, :to) as i
+						""")
+				.bind("users", USERS)
+				.bind("from", from + 1)
+				.bind("to", to)
+				.then()
+				.block();
+	}
+
+	private Duration measure(Supplier<Mono<?>> query) {
+		query.get().block();
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			query.get().block();
+		}
+		return Duration.ofNanos((System.nanoTime() - start) / ITERATIONS);
+	}
+
+}
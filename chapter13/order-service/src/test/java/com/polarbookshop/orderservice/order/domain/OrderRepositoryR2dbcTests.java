@@ -1,13 +1,20 @@
 package com.polarbookshop.orderservice.order.domain;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
 import java.util.Objects;
 
+import com.polarbookshop.orderservice.book.Book;
 import com.polarbookshop.orderservice.config.DataConfig;
 import org.junit.jupiter.api.Test;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +24,8 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @DataR2dbcTest
 @Import(DataConfig.class)
 @Testcontainers
@@ -36,6 +45,10 @@ class OrderRepositoryR2dbcTests {
         registry.add("spring.flyway.url", postgresql::getJdbcUrl);
     }
 
+    private static LocalDateTime storedDate(Order order) {
+        return LocalDateTime.ofInstant(order.createdDate(), ZoneId.systemDefault());
+    }
+
     private static String r2dbcUrl() {
         return String.format("r2dbc:postgresql://%s:%s/%s", postgresql.getHost(),
                 postgresql.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), postgresql.getDatabaseName());
@@ -48,6 +61,26 @@ class OrderRepositoryR2dbcTests {
                 .verifyComplete();
     }
 
+    @Test
+    void findRecentOrderById() {
+        var rejectedOrder = OrderService.buildRejectedOrder("1234567890", 3);
+        var recentOrder = orderRepository.save(rejectedOrder)
+                .flatMap(order -> orderRepository.findRecentById(order.id(), Instant.now().minus(Duration.ofDays(1))));
+        StepVerifier.create(recentOrder)
+                .expectNextMatches(order -> order.status().equals(OrderStatus.REJECTED))
+                .verifyComplete();
+    }
+
+    @Test
+    void findRecentOrderByIdWhenOlderThanWindow() {
+        var rejectedOrder = OrderService.buildRejectedOrder("1234567890", 3);
+        var recentOrder = orderRepository.save(rejectedOrder)
+                .flatMap(order -> orderRepository.findRecentById(order.id(), Instant.now().plus(Duration.ofDays(1))));
+        StepVerifier.create(recentOrder)
+                .expectNextCount(0)
+                .verifyComplete();
+    }
+
     @Test
     void createRejectedOrder() {
         var rejectedOrder = OrderService.buildRejectedOrder( "1234567890", 3);
@@ -75,4 +108,48 @@ class OrderRepositoryR2dbcTests {
                 .verifyComplete();
     }
 
+    @Test
+    void updateOrderStatus() {
+        var updatedOrder = orderRepository.save(OrderService.buildAcceptedOrder(
+                        new Book("1234567890", "Title", "Author", 9.90), 1))
+                .flatMap(order -> orderRepository.updateStatus(order.id(), storedDate(order), order.version(),
+                        OrderStatus.DISPATCHED.name(), Instant.now()));
+        StepVerifier.create(updatedOrder)
+                .expectNextMatches(order -> order.status().equals(OrderStatus.DISPATCHED) && order.version() == 1)
+                .verifyComplete();
+    }
+
+    @Test
+    void updateOrderStatusWhenChangedMeanwhile() {
+        var updatedOrder = orderRepository.save(OrderService.buildRejectedOrder("1234567890", 1))
+                .flatMap(order -> orderRepository.updateStatus(order.id(), storedDate(order), order.version() + 1,
+                        OrderStatus.DISPATCHED.name(), Instant.now()));
+        StepVerifier.create(updatedOrder)
+                .expectNextCount(0)
+                .verifyComplete();
+    }
+
+    @Test
+    @WithMockUser("odin")
+    void findOrdersPageByCreatedBy() {
+        var savedOrders = Flux.range(0, 5)
+                .concatMap(i -> orderRepository.save(OrderService.buildRejectedOrder("1234567890", 1)))
+                .then();
+        var pages = savedOrders
+                .then(orderRepository.findFirstPageByCreatedBy("odin", 3).collectList())
+                .zipWhen(firstPage -> orderRepository
+                        .findPageByCreatedByBefore("odin", storedDate(firstPage.get(2)), firstPage.get(2).id(), 3).collectList());
+
+        StepVerifier.create(pages)
+                .assertNext(result -> {
+                    var firstPage = result.getT1();
+                    var secondPage = result.getT2();
+                    assertThat(firstPage).hasSize(3)
+                            .extracting(Order::id).isSortedAccordingTo(Comparator.reverseOrder());
+                    assertThat(secondPage).hasSize(2)
+                            .extracting(Order::id).allMatch(id -> id < firstPage.get(2).id());
+                })
+                .verifyComplete();
+    }
+
 }
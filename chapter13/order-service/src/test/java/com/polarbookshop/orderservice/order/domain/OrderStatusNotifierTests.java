@@ -0,0 +1,48 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.stream.function.StreamBridge;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class OrderStatusNotifierTests {
+
+	private final StreamBridge streamBridge = mock(StreamBridge.class);
+	private final OrderStatusNotifier orderStatusNotifier = new OrderStatusNotifier(streamBridge);
+
+	@Test
+	void whenPublishedThenBroadcastToAllInstances() {
+		var order = dispatchedOrder(394L, "bjorn");
+		given(streamBridge.send(OrderStatusNotifier.BINDING_NAME, order)).willReturn(true);
+
+		orderStatusNotifier.publish(order);
+
+		verify(streamBridge).send(OrderStatusNotifier.BINDING_NAME, order);
+	}
+
+	@Test
+	void whenDeliveredThenOnlyOwnerNotified() {
+		var bjornOrder = dispatchedOrder(394L, "bjorn");
+		var islaOrder = dispatchedOrder(395L, "isla");
+
+		StepVerifier.create(orderStatusNotifier.updatesFor("bjorn").take(1))
+				.then(() -> {
+					orderStatusNotifier.deliver(islaOrder);
+					orderStatusNotifier.deliver(bjornOrder);
+				})
+				.expectNext(bjornOrder)
+				.verifyComplete();
+	}
+
+	private static Order dispatchedOrder(Long id, String owner) {
+		return new Order(id, "1234567890", "Northern Lights", 9.90, 1, OrderStatus.DISPATCHED,
+				Instant.now(), Instant.now(), owner, owner, 1);
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import java.time.Duration;
+
+import com.polarbookshop.orderservice.book.Book;
+import com.polarbookshop.orderservice.book.BookClient;
+import com.polarbookshop.orderservice.config.ConnectionPoolConfig;
+import com.polarbookshop.orderservice.config.DataConfig;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Measures the throughput of submitOrder against Postgres with different statement
+ * caching, validation and pool settings. Each nested class gets its own application
+ * context, so its own pool. Catalog Service and RabbitMQ are mocked out, so only the
+ * database work is measured.
+ */
+@DataR2dbcTest
+@Import({DataConfig.class, ConnectionPoolConfig.class, OrderService.class, OrderLineRepository.class, OrderStatusNotifier.class})
+@Testcontainers
+@Disabled("Benchmark submitting hundreds of thousands of orders, run it manually")
+class OrderSubmissionBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderSubmissionBenchmark.class);
+	private static final int WARMUP_ORDERS = 10_000;
+	private static final int ORDERS = 50_000;
+	private static final int CONCURRENCY = 64;
+	private static final int USERS = 1_000;
+
+	@Container
+	static PostgreSQLContainer<?> postgresql = new PostgreSQLContainer<>(DockerImageName.parse("postgres:14.10"));
+
+	@DynamicPropertySource
+	static void postgresqlProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.r2dbc.url", OrderSubmissionBenchmark::r2dbcUrl);
+		registry.add("spring.r2dbc.username", postgresql::getUsername);
+		registry.add("spring.r2dbc.password", postgresql::getPassword);
+		registry.add("spring.flyway.url", postgresql::getJdbcUrl);
+	}
+
+	private static String r2dbcUrl() {
+		return String.format("r2dbc:postgresql://%s:%s/%s", postgresql.getHost(),
+				postgresql.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), postgresql.getDatabaseName());
+	}
+
+	@Nested
+	class Defaults extends SubmitOrderThroughput {
+	}
+
+	@Nested
+	@TestPropertySource(properties = "polar.database.prepared-statement-cache-queries=0")
+	class NoStatementCache extends SubmitOrderThroughput {
+	}
+
+	@Nested
+	@TestPropertySource(properties = "polar.database.prepared-statement-cache-queries=-1")
+	class UnboundedStatementCache extends SubmitOrderThroughput {
+	}
+
+	@Nested
+	@TestPropertySource(properties = "spring.r2dbc.pool.validation-query=select 1")
+	class RemoteValidation extends SubmitOrderThroughput {
+	}
+
+	@Nested
+	@TestPropertySource(properties = { "spring.r2dbc.pool.initial-size=20", "spring.r2dbc.pool.max-size=20" })
+	class LargerPool extends SubmitOrderThroughput {
+	}
+
+	abstract static class SubmitOrderThroughput {
+
+		@MockBean
+		private BookClient bookClient;
+
+		@MockBean
+		private StreamBridge streamBridge;
+
+		@Autowired
+		private OrderService orderService;
+
+		@Test
+		void submitOrders() {
+			given(bookClient.getBookByIsbn(anyString()))
+					.willReturn(Mono.just(new Book("1234567890", "Title", "Author", 9.90)));
+
+			submit(WARMUP_ORDERS);
+			long start = System.nanoTime();
+			submit(ORDERS);
+			var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+			log.info("settings={} orders={} elapsed={}ms throughput={} orders/s", getClass().getSimpleName(), ORDERS,
+					elapsed.toMillis(), ORDERS * 1000L / Math.max(elapsed.toMillis(), 1));
+		}
+
+		private void submit(int orders) {
+			Flux.range(0, orders)
+					.flatMap(i -> orderService.submitOrder("1234567890", 1)
+							.contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+									new TestingAuthenticationToken("user-" + (i % USERS), null, "customer"))), CONCURRENCY)
+					.then()
+					.block();
+		}
+
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.polarbookshop.orderservice.order.domain;
+
+import java.time.Instant;
+
+import com.polarbookshop.orderservice.config.DataConfig;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.test.StepVerifier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DataR2dbcTest
+@Import(DataConfig.class)
+@Testcontainers
+class OrderSummaryRepositoryR2dbcTests {
+
+    @Container
+    static PostgreSQLContainer<?> postgresql = new PostgreSQLContainer<>(DockerImageName.parse("postgres:14.10"));
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @DynamicPropertySource
+    static void postgresqlProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", OrderSummaryRepositoryR2dbcTests::r2dbcUrl);
+        registry.add("spring.r2dbc.username", postgresql::getUsername);
+        registry.add("spring.r2dbc.password", postgresql::getPassword);
+        registry.add("spring.flyway.url", postgresql::getJdbcUrl);
+    }
+
+    private static String r2dbcUrl() {
+        return String.format("r2dbc:postgresql://%s:%s/%s", postgresql.getHost(),
+                postgresql.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), postgresql.getDatabaseName());
+    }
+
+    @Test
+    void findSummaryWhenNotExisting() {
+        StepVerifier.create(orderSummaryRepository.findById("nobody"))
+                .expectNextCount(0)
+                .verifyComplete();
+    }
+
+    @Test
+    void whenOrdersAddedThenSummaryAccumulates() {
+        var now = Instant.now();
+        var summary = orderSummaryRepository.addOrder("freya", 1, 0, 19.80, 1L, now)
+                .then(orderSummaryRepository.addOrder("freya", 0, 1, 0.0, 2L, now))
+                .then(orderSummaryRepository.addOrder("freya", 1, 0, 9.90, 3L, now))
+                .then(orderSummaryRepository.findById("freya"));
+
+        StepVerifier.create(summary)
+                .assertNext(actualSummary -> {
+                    assertThat(actualSummary.acceptedOrders()).isEqualTo(2);
+                    assertThat(actualSummary.rejectedOrders()).isEqualTo(1);
+                    assertThat(actualSummary.dispatchedOrders()).isZero();
+                    assertThat(actualSummary.totalSpent()).isCloseTo(29.70, within(0.001));
+                    assertThat(actualSummary.lastOrderId()).isEqualTo(3L);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void whenOrderDispatchedThenMovedToDispatched() {
+        var summary = orderSummaryRepository.addOrder("thor", 1, 0, 9.90, 1L, Instant.now())
+                .then(orderSummaryRepository.moveToDispatched("thor"))
+                .then(orderSummaryRepository.findById("thor"));
+
+        StepVerifier.create(summary)
+                .expectNextMatches(actualSummary -> actualSummary.acceptedOrders() == 0
+                        && actualSummary.dispatchedOrders() == 1)
+                .verifyComplete();
+    }
+
+}
@@ -1,16 +1,26 @@
 package com.polarbookshop.orderservice.order.web;
 
+import java.util.List;
+
 import com.polarbookshop.orderservice.config.SecurityConfig;
+import com.polarbookshop.orderservice.order.domain.InvalidOrderCursorException;
 import com.polarbookshop.orderservice.order.domain.Order;
+import com.polarbookshop.orderservice.order.domain.OrderLine;
 import com.polarbookshop.orderservice.order.domain.OrderService;
 import com.polarbookshop.orderservice.order.domain.OrderStatus;
+import com.polarbookshop.orderservice.order.domain.OrderSummary;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers;
@@ -53,4 +63,78 @@ class OrderControllerWebFluxTests {
 				});
 	}
 
+	@Test
+	void whenCartSubmittedThenOrderAllLinesAtOnce() {
+		var cartOrderRequest = new CartOrderRequest(List.of(new OrderRequest("1234567890", 1),
+				new OrderRequest("1234567891", 2)));
+		var expectedOrder = new Order(395L, null, null, null, 3, OrderStatus.ACCEPTED,
+				null, null, "bjorn", "bjorn", 0);
+		given(orderService.submitOrder(List.of(OrderLine.of("1234567890", 1), OrderLine.of("1234567891", 2))))
+				.willReturn(Mono.just(expectedOrder));
+
+		webClient
+				.mutateWith(SecurityMockServerConfigurers.mockJwt()
+						.authorities(new SimpleGrantedAuthority("ROLE_customer")))
+				.post()
+				.uri("/orders/cart")
+				.bodyValue(cartOrderRequest)
+				.exchange()
+				.expectStatus().is2xxSuccessful()
+				.expectBody(Order.class).value(actualOrder -> {
+					assertThat(actualOrder.status()).isEqualTo(OrderStatus.ACCEPTED);
+					assertThat(actualOrder.quantity()).isEqualTo(3);
+				});
+	}
+
+	@Test
+	void whenGetSummaryThenReturnSummaryOfAuthenticatedUser() {
+		var expectedSummary = new OrderSummary("bjorn", 2, 1, 3, 49.50, 394L, null);
+		given(orderService.getOrderSummary("bjorn")).willReturn(Mono.just(expectedSummary));
+
+		webClient
+				.mutateWith(SecurityMockServerConfigurers.mockJwt().jwt(jwt -> jwt.subject("bjorn")))
+				.get()
+				.uri("/orders/summary")
+				.exchange()
+				.expectStatus().is2xxSuccessful()
+				.expectBody(OrderSummary.class).isEqualTo(expectedSummary);
+	}
+
+	@Test
+	void whenPageAfterInvalidOrderThenBadRequest() {
+		given(orderService.getOrders("bjorn", 394L, 20)).willReturn(Flux.error(new InvalidOrderCursorException(394L)));
+
+		webClient
+				.mutateWith(SecurityMockServerConfigurers.mockJwt().jwt(jwt -> jwt.subject("bjorn")))
+				.get()
+				.uri("/orders?after=394")
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	@Test
+	void whenOrderDispatchedThenStreamedToOwner() {
+		var dispatchedOrder = new Order(394L, "1234567890", "Title - Author", 9.90, 1, OrderStatus.DISPATCHED,
+				null, null, "bjorn", "bjorn", 1);
+		given(orderService.getOrderUpdates("bjorn")).willReturn(Flux.just(dispatchedOrder));
+
+		var result = webClient
+				.mutateWith(SecurityMockServerConfigurers.mockJwt().jwt(jwt -> jwt.subject("bjorn")))
+				.get()
+				.uri("/orders/stream")
+				.accept(MediaType.TEXT_EVENT_STREAM)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(new ParameterizedTypeReference<ServerSentEvent<Order>>() {});
+
+		StepVerifier.create(result.getResponseBody())
+				.assertNext(event -> {
+					assertThat(event.event()).isEqualTo(OrderStatus.DISPATCHED.name());
+					assertThat(event.data()).isNotNull();
+					assertThat(event.data().id()).isEqualTo(dispatchedOrder.id());
+				})
+				.thenCancel()
+				.verify();
+	}
+
 }
@@ -1,5 +1,6 @@
 package com.polarbookshop.orderservice.order.web;
 
+import java.util.List;
 import java.util.Set;
 
 import javax.validation.ConstraintViolation;
@@ -65,4 +66,23 @@ class OrderRequestValidationTests {
 				.isEqualTo("You cannot order more than 5 items.");
 	}
 
+	@Test
+	void whenCartHasNoLinesThenValidationFails() {
+		var cartOrderRequest = new CartOrderRequest(List.of());
+		Set<ConstraintViolation<CartOrderRequest>> violations = validator.validate(cartOrderRequest);
+		assertThat(violations).hasSize(1);
+		assertThat(violations.iterator().next().getMessage())
+				.isEqualTo("The order must contain at least one book.");
+	}
+
+	@Test
+	void whenCartLineIsInvalidThenValidationFails() {
+		var cartOrderRequest = new CartOrderRequest(List.of(new OrderRequest("1234567890", 1),
+				new OrderRequest("1234567891", 7)));
+		Set<ConstraintViolation<CartOrderRequest>> violations = validator.validate(cartOrderRequest);
+		assertThat(violations).hasSize(1);
+		assertThat(violations.iterator().next().getMessage())
+				.isEqualTo("You cannot order more than 5 items.");
+	}
+
 }
@@ -0,0 +1,23 @@
+package com.polarbookshop.commons.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * Not conditional on the snapshot path, which is only known when the application runs,
+ * while the native image of Dispatcher Service decides on its beans at build time.
+ */
+@AutoConfiguration
+@ConditionalOnClass(ContextRefresher.class)
+public class ConfigSnapshotAutoConfiguration {
+
+	@Bean
+	ConfigSnapshotManager configSnapshotManager(ConfigurableEnvironment environment, ObjectProvider<ContextRefresher> contextRefresher) {
+		return new ConfigSnapshotManager(environment, contextRefresher);
+	}
+
+}
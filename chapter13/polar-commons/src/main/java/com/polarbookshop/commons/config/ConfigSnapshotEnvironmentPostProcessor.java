@@ -0,0 +1,84 @@
+package com.polarbookshop.commons.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertiesPropertySource;
+
+/**
+ * Starts the application from the last configuration received from Config Service,
+ * without waiting for Config Service to respond. Runs before the config data is loaded,
+ * so the snapshot location can only come from an environment variable or a system property.
+ * The snapshot is reconciled with Config Service once the application is ready,
+ * see {@link ConfigSnapshotManager}.
+ */
+public class ConfigSnapshotEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+	static final String SNAPSHOT_PATH_PROPERTY = "polar.config-snapshot.path";
+	static final String SNAPSHOT_PROPERTY_SOURCE = "configSnapshot";
+	static final String OVERRIDES_PROPERTY_SOURCE = "configSnapshotOverrides";
+
+	/**
+	 * Added by the context refresher to the copy of the environment it reloads, which goes
+	 * through the environment post-processors again.
+	 */
+	static final String REFRESH_ARGS_PROPERTY_SOURCE = "refreshArgs";
+
+	private final Log log;
+
+	public ConfigSnapshotEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+		this.log = logFactory.getLog(getClass());
+	}
+
+	@Override
+	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+		// A refresh must load the configuration from Config Service, the snapshot is only for the startup
+		if (environment.getPropertySources().contains(REFRESH_ARGS_PROPERTY_SOURCE)) {
+			return;
+		}
+		var snapshot = readSnapshot(environment, log);
+		if (snapshot == null) {
+			return;
+		}
+
+		// Same precedence as the Config Service property sources, above the application.yml ones
+		var propertySources = environment.getPropertySources();
+		propertySources.addLast(new PropertiesPropertySource(SNAPSHOT_PROPERTY_SOURCE, snapshot));
+		propertySources.addFirst(new MapPropertySource(OVERRIDES_PROPERTY_SOURCE,
+				Map.of("spring.cloud.config.enabled", false)));
+		log.info("Starting from the config snapshot " + environment.getProperty(SNAPSHOT_PATH_PROPERTY));
+	}
+
+	@Override
+	public int getOrder() {
+		return ConfigDataEnvironmentPostProcessor.ORDER - 1;
+	}
+
+	static Properties readSnapshot(ConfigurableEnvironment environment, Log log) {
+		var path = environment.getProperty(SNAPSHOT_PATH_PROPERTY);
+		if (path == null || !Files.isReadable(Path.of(path))) {
+			return null;
+		}
+		var snapshot = new Properties();
+		try (var reader = Files.newBufferedReader(Path.of(path))) {
+			snapshot.load(reader);
+		} catch (IOException ex) {
+			log.warn("Cannot read the config snapshot " + path, ex);
+			return null;
+		}
+		return snapshot;
+	}
+
+}
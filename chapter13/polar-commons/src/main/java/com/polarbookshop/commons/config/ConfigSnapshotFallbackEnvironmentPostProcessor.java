@@ -0,0 +1,51 @@
+package com.polarbookshop.commons.config;
+
+import org.apache.commons.logging.Log;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertiesPropertySource;
+
+import static com.polarbookshop.commons.config.ConfigSnapshotEnvironmentPostProcessor.SNAPSHOT_PATH_PROPERTY;
+import static com.polarbookshop.commons.config.ConfigSnapshotEnvironmentPostProcessor.SNAPSHOT_PROPERTY_SOURCE;
+import static com.polarbookshop.commons.config.ConfigSnapshotEnvironmentPostProcessor.readSnapshot;
+
+/**
+ * Loads the configuration from Config Service as usual, and falls back to the last
+ * configuration received when Config Service doesn't respond. For the applications that
+ * can't refresh their context, and so couldn't reconcile a snapshot with Config Service
+ * after starting from it. The snapshot is kept up to date by {@link ConfigSnapshotManager}
+ * whenever the application starts with Config Service available.
+ */
+public class ConfigSnapshotFallbackEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+	private final Log log;
+
+	public ConfigSnapshotFallbackEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+		this.log = logFactory.getLog(getClass());
+	}
+
+	@Override
+	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+		if (ConfigSnapshotManager.hasConfigServerSources(environment)) {
+			return;
+		}
+		var snapshot = readSnapshot(environment, log);
+		if (snapshot == null) {
+			return;
+		}
+		environment.getPropertySources().addLast(new PropertiesPropertySource(SNAPSHOT_PROPERTY_SOURCE, snapshot));
+		log.warn("Config Service not available, starting from the config snapshot "
+				+ environment.getProperty(SNAPSHOT_PATH_PROPERTY));
+	}
+
+	@Override
+	public int getOrder() {
+		return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+	}
+
+}
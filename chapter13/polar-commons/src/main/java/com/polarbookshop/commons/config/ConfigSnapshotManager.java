@@ -0,0 +1,145 @@
+package com.polarbookshop.commons.config;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+
+import static com.polarbookshop.commons.config.ConfigSnapshotEnvironmentPostProcessor.OVERRIDES_PROPERTY_SOURCE;
+import static com.polarbookshop.commons.config.ConfigSnapshotEnvironmentPostProcessor.SNAPSHOT_PATH_PROPERTY;
+import static com.polarbookshop.commons.config.ConfigSnapshotEnvironmentPostProcessor.SNAPSHOT_PROPERTY_SOURCE;
+
+/**
+ * Saves the configuration received from Config Service as the snapshot to start from next time,
+ * when {@code polar.config-snapshot.path} is set. The file is only readable by its owner,
+ * since Config Service sends the secrets decrypted.
+ * When the application started from a snapshot, fetches the configuration from Config Service
+ * in the background and retries until it responds.
+ */
+public class ConfigSnapshotManager implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(ConfigSnapshotManager.class);
+	private static final String CONFIG_SERVER_SOURCE_PREFIX = "configserver:";
+	private static final Duration RECONCILE_INTERVAL = Duration.ofSeconds(30);
+
+	private final ConfigurableEnvironment environment;
+	private final ObjectProvider<ContextRefresher> contextRefresher;
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		var thread = new Thread(runnable, "config-snapshot");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public ConfigSnapshotManager(ConfigurableEnvironment environment, ObjectProvider<ContextRefresher> contextRefresher) {
+		this.environment = environment;
+		this.contextRefresher = contextRefresher;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		// Without the override, the next refreshes load the configuration from Config Service
+		if (environment.getPropertySources().remove(OVERRIDES_PROPERTY_SOURCE) == null) {
+			save();
+			return;
+		}
+		var refresher = contextRefresher.getIfAvailable();
+		if (refresher == null) {
+			log.info("Context refresh is disabled, keeping the configuration from the config snapshot");
+			return;
+		}
+		executor.execute(() -> reconcile(refresher));
+	}
+
+	@EventListener(EnvironmentChangeEvent.class)
+	public void onEnvironmentChange() {
+		save();
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	void reconcile(ContextRefresher refresher) {
+		try {
+			var changedKeys = refresher.refresh();
+			if (hasConfigServerSources(environment)) {
+				// The keys removed from Config Service while the application was down mustn't linger
+				environment.getPropertySources().remove(SNAPSHOT_PROPERTY_SOURCE);
+				save();
+				log.info("Reconciled the config snapshot with Config Service, changed keys: {}", changedKeys);
+				return;
+			}
+		} catch (RuntimeException ex) {
+			log.warn("Failed to reconcile the config snapshot with Config Service", ex);
+		}
+		log.info("Config Service not available, retrying in {}", RECONCILE_INTERVAL);
+		executor.schedule(() -> reconcile(refresher), RECONCILE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	void save() {
+		var location = environment.getProperty(SNAPSHOT_PATH_PROPERTY);
+		if (location == null) {
+			return;
+		}
+		var snapshot = new Properties();
+		environment.getPropertySources().stream()
+				.filter(source -> source.getName().startsWith(CONFIG_SERVER_SOURCE_PREFIX))
+				.filter(EnumerablePropertySource.class::isInstance)
+				.map(EnumerablePropertySource.class::cast)
+				.forEach(source -> {
+					for (var name : source.getPropertyNames()) {
+						snapshot.putIfAbsent(name, String.valueOf(source.getProperty(name)));
+					}
+				});
+		if (snapshot.isEmpty()) {
+			return;
+		}
+
+		var path = Path.of(location).toAbsolutePath();
+		try {
+			Files.createDirectories(path.getParent());
+			var tempFile = Files.createTempFile(path.getParent(), "config-snapshot", ".tmp", ownerOnly());
+			try (var writer = Files.newBufferedWriter(tempFile)) {
+				snapshot.store(writer, "Last configuration received from Config Service");
+			}
+			Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			log.debug("Saved the config snapshot {}", path);
+		} catch (IOException ex) {
+			log.warn("Failed to save the config snapshot {}", path, ex);
+		}
+	}
+
+	static boolean hasConfigServerSources(ConfigurableEnvironment environment) {
+		return environment.getPropertySources().stream()
+				.anyMatch(source -> source.getName().startsWith(CONFIG_SERVER_SOURCE_PREFIX));
+	}
+
+	private static FileAttribute<?>[] ownerOnly() {
+		if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+			return new FileAttribute<?>[0];
+		}
+		return new FileAttribute<?>[] { PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")) };
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.polarbookshop.commons.loadbalancer;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+/**
+ * Lists the replicas of a service from the addresses of a DNS name, such as a
+ * Kubernetes headless service, which has one address per ready pod. The name is
+ * resolved again at each interval, and the last list is kept if resolution fails.
+ */
+public class DnsServiceInstanceListSupplier implements ServiceInstanceListSupplier, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(DnsServiceInstanceListSupplier.class);
+
+	private final String serviceId;
+	private final URI uri;
+	private final Flux<List<ServiceInstance>> instances;
+	private volatile Disposable resolution;
+
+	public DnsServiceInstanceListSupplier(String serviceId, URI uri, Duration refreshInterval) {
+		this.serviceId = serviceId;
+		this.uri = uri;
+		this.instances = Flux.interval(Duration.ZERO, refreshInterval)
+				.onBackpressureDrop()
+				.concatMap(tick -> Mono.fromCallable(this::resolve)
+						.subscribeOn(Schedulers.boundedElastic())
+						.doOnError(exception -> log.warn("Failed to resolve the replicas of {} from {}", serviceId, uri.getHost(), exception))
+						.onErrorResume(exception -> Mono.empty()))
+				.distinctUntilChanged()
+				.replay(1)
+				.autoConnect(1, subscription -> this.resolution = subscription);
+	}
+
+	@Override
+	public String getServiceId() {
+		return serviceId;
+	}
+
+	@Override
+	public Flux<List<ServiceInstance>> get() {
+		return instances;
+	}
+
+	List<ServiceInstance> resolve() throws UnknownHostException {
+		boolean secure = "https".equals(uri.getScheme());
+		int port = uri.getPort() != -1 ? uri.getPort() : secure ? 443 : 80;
+		return Arrays.stream(InetAddress.getAllByName(uri.getHost()))
+				.map(address -> (ServiceInstance) new DefaultServiceInstance(address.getHostAddress() + ":" + port,
+						serviceId, address.getHostAddress(), port, secure))
+				.sorted((first, second) -> first.getInstanceId().compareTo(second.getInstanceId()))
+				.toList();
+	}
+
+	@Override
+	public void destroy() {
+		if (resolution != null) {
+			resolution.dispose();
+		}
+	}
+
+}
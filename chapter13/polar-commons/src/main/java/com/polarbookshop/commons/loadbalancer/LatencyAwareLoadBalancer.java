@@ -0,0 +1,171 @@
+package com.polarbookshop.commons.loadbalancer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+/**
+ * Picks two replicas at random and sends the request to the less loaded one. With
+ * peak EWMA, the load of a replica is its decaying average response time, which jumps
+ * to any slower response, multiplied by its requests in flight plus one. A replica
+ * stalled by a GC pause is avoided as soon as one of its responses is late, while the
+ * random choice keeps the fastest replica from taking all the traffic. The load of a
+ * replica is forgotten once it's no longer listed and has no requests in flight.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer,
+		LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+	/**
+	 * Added to the response time, so that requests in flight still count for replicas without responses yet.
+	 */
+	private static final double MIN_RESPONSE_NANOS = 1_000_000;
+
+	private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplier;
+	private final ReplicaSelectionProperties.Selection selection;
+	private final double decayNanos;
+	private final Map<String, ReplicaLoad> loads = new ConcurrentHashMap<>();
+	private volatile List<ServiceInstance> listed = List.of();
+
+	public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplier,
+			ReplicaSelectionProperties properties) {
+		this.serviceInstanceListSupplier = serviceInstanceListSupplier;
+		this.selection = properties.selection();
+		this.decayNanos = properties.decayTime().toNanos();
+	}
+
+	@Override
+	public Mono<Response<ServiceInstance>> choose(Request request) {
+		var supplier = serviceInstanceListSupplier.getIfAvailable(NoopServiceInstanceListSupplier::new);
+		return supplier.get(request).next().map(this::choose);
+	}
+
+	Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+		if (!instances.equals(listed)) {
+			listed = instances;
+			prune(instances);
+		}
+		if (instances.isEmpty()) {
+			return new EmptyResponse();
+		}
+		if (instances.size() == 1) {
+			return new DefaultResponse(instances.get(0));
+		}
+		var random = ThreadLocalRandom.current();
+		int first = random.nextInt(instances.size());
+		int second = random.nextInt(instances.size() - 1);
+		if (second >= first) {
+			second++;
+		}
+		var firstInstance = instances.get(first);
+		var secondInstance = instances.get(second);
+		long now = System.nanoTime();
+		return new DefaultResponse(cost(firstInstance, now) <= cost(secondInstance, now) ? firstInstance : secondInstance);
+	}
+
+	private double cost(ServiceInstance instance, long now) {
+		var load = load(instance);
+		return switch (selection) {
+			case PEAK_EWMA -> load.cost(now);
+			case LEAST_REQUESTS -> load.inFlight.get();
+		};
+	}
+
+	private ReplicaLoad load(ServiceInstance instance) {
+		return loads.computeIfAbsent(key(instance), key -> new ReplicaLoad());
+	}
+
+	private void prune(List<ServiceInstance> instances) {
+		var keys = instances.stream().map(LatencyAwareLoadBalancer::key).collect(Collectors.toSet());
+		loads.entrySet().removeIf(entry -> !keys.contains(entry.getKey()) && entry.getValue().inFlight.get() == 0);
+	}
+
+	int trackedReplicas() {
+		return loads.size();
+	}
+
+	private static String key(ServiceInstance instance) {
+		return instance.getHost() + ":" + instance.getPort();
+	}
+
+	@Override
+	public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+		return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+	}
+
+	@Override
+	public void onStart(Request<Object> request) {
+	}
+
+	@Override
+	public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+		if (request.getContext() instanceof TimedRequestContext context) {
+			context.setRequestStartTime(System.nanoTime());
+		}
+		if (lbResponse.hasServer()) {
+			load(lbResponse.getServer()).inFlight.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+		var lbResponse = completionContext.getLoadBalancerResponse();
+		if (lbResponse == null || !lbResponse.hasServer()) {
+			return;
+		}
+		// Not recreated for a replica pruned since the request started
+		var load = loads.get(key(lbResponse.getServer()));
+		if (load == null) {
+			return;
+		}
+		load.inFlight.updateAndGet(requests -> Math.max(0, requests - 1));
+		if (completionContext.getLoadBalancerRequest() != null
+				&& completionContext.getLoadBalancerRequest().getContext() instanceof TimedRequestContext context
+				&& context.getRequestStartTime() > 0) {
+			long now = System.nanoTime();
+			load.record(now - context.getRequestStartTime(), now);
+		}
+	}
+
+	final class ReplicaLoad {
+
+		final AtomicInteger inFlight = new AtomicInteger();
+		private double ewmaNanos;
+		private long updatedAt = System.nanoTime();
+
+		synchronized void record(long responseNanos, long now) {
+			if (responseNanos > ewmaNanos) {
+				ewmaNanos = responseNanos;
+			}
+			else {
+				double weight = Math.exp(-(now - updatedAt) / decayNanos);
+				ewmaNanos = ewmaNanos * weight + responseNanos * (1 - weight);
+			}
+			updatedAt = now;
+		}
+
+		synchronized double cost(long now) {
+			double decayed = ewmaNanos * Math.exp(-Math.max(0, now - updatedAt) / decayNanos);
+			return (decayed + MIN_RESPONSE_NANOS) * (inFlight.get() + 1);
+		}
+
+	}
+
+}
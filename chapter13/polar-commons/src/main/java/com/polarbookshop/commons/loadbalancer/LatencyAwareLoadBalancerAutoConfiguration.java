@@ -0,0 +1,25 @@
+package com.polarbookshop.commons.loadbalancer;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Services using the load balancer, such as a gateway route with an lb:// URI, send
+ * their requests to the replica chosen by the {@link LatencyAwareLoadBalancer} among
+ * those listed for the service.
+ */
+@AutoConfiguration
+@ConditionalOnClass(ReactorServiceInstanceLoadBalancer.class)
+@EnableConfigurationProperties(ReplicaSelectionProperties.class)
+public class LatencyAwareLoadBalancerAutoConfiguration {
+
+	@Configuration(proxyBeanMethods = false)
+	@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfig.class)
+	static class LoadBalancerClientsConfiguration {
+	}
+
+}
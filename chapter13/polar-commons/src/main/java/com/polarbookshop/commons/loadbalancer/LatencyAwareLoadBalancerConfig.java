@@ -0,0 +1,34 @@
+package com.polarbookshop.commons.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuration of the load balancer context of each service. It isn't annotated with
+ * {@code @Configuration}, so that it's only loaded in those contexts.
+ */
+public class LatencyAwareLoadBalancerConfig {
+
+	@Bean
+	ServiceInstanceListSupplier serviceInstanceListSupplier(Environment environment, ReplicaSelectionProperties properties,
+			ConfigurableApplicationContext context) {
+		String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+		if (properties.dns() != null && properties.dns().containsKey(serviceId)) {
+			return new DnsServiceInstanceListSupplier(serviceId, properties.dns().get(serviceId), properties.refreshInterval());
+		}
+		return ServiceInstanceListSupplier.builder()
+				.withDiscoveryClient()
+				.build(context);
+	}
+
+	@Bean
+	LatencyAwareLoadBalancer latencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplier,
+			ReplicaSelectionProperties properties) {
+		return new LatencyAwareLoadBalancer(serviceInstanceListSupplier, properties);
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.polarbookshop.commons.loadbalancer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "polar.load-balancer")
+public record ReplicaSelectionProperties (
+
+	/**
+	 * How a replica is chosen among two picked at random.
+	 */
+	Selection selection,
+
+	/**
+	 * Time after which a past response time weighs about a third of its initial weight.
+	 */
+	Duration decayTime,
+
+	/**
+	 * Interval at which the replicas listed in DNS are resolved again.
+	 */
+	Duration refreshInterval,
+
+	/**
+	 * DNS names listing all the replicas of a service, such as a Kubernetes headless
+	 * service, by service ID. Other services use the replicas listed under
+	 * spring.cloud.discovery.client.simple.instances.
+	 */
+	Map<String, URI> dns
+
+){
+
+	public enum Selection {
+
+		/**
+		 * The replica with the lowest decaying peak response time, weighted by its requests in flight.
+		 */
+		PEAK_EWMA,
+
+		/**
+		 * The replica with the fewest requests in flight.
+		 */
+		LEAST_REQUESTS
+
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.polarbookshop.commons.logging;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Samples INFO and lower events from the application loggers once more than
+ * {@code burst} of them are logged within the same second: from then on, only one
+ * in {@code rate} goes through until the next second. WARN and ERROR are never sampled.
+ * Each second gets its own counter, swapped in atomically, so that no thread counts
+ * an event against a counter another thread is resetting.
+ * Configured in logback-spring.xml.
+ */
+public class LogSamplingFilter extends Filter<ILoggingEvent> {
+
+	private String loggerPrefix = "com.polarbookshop";
+	private int burst = 100;
+	private int rate = 10;
+
+	private final AtomicReference<Window> window = new AtomicReference<>(new Window(Long.MIN_VALUE));
+
+	@Override
+	public FilterReply decide(ILoggingEvent event) {
+		if (event.getLevel().isGreaterOrEqual(Level.WARN) || !event.getLoggerName().startsWith(loggerPrefix)) {
+			return FilterReply.NEUTRAL;
+		}
+		int count = windowOf(event.getTimeStamp() / 1000).events().incrementAndGet();
+		if (count <= burst || (count - burst) % rate == 0) {
+			return FilterReply.NEUTRAL;
+		}
+		return FilterReply.DENY;
+	}
+
+	// Events logged late in the previous second count against the current one
+	private Window windowOf(long second) {
+		Window current = window.get();
+		while (current.second() < second) {
+			var next = new Window(second);
+			if (window.compareAndSet(current, next)) {
+				return next;
+			}
+			current = window.get();
+		}
+		return current;
+	}
+
+	public void setLoggerPrefix(String loggerPrefix) {
+		this.loggerPrefix = loggerPrefix;
+	}
+
+	public void setBurst(int burst) {
+		this.burst = burst;
+	}
+
+	public void setRate(int rate) {
+		this.rate = Math.max(rate, 1);
+	}
+
+	private record Window (
+			long second,
+			AtomicInteger events
+	){
+		Window(long second) {
+			this(second, new AtomicInteger());
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.polarbookshop.commons.messaging;
+
+import java.util.Map;
+import java.util.Properties;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.jmx.annotation.JmxEndpoint;
+import org.springframework.lang.Nullable;
+
+/**
+ * Reports the depth of the dead-letter queue and replays it. Only exposed over JMX,
+ * since the actuator HTTP endpoints are not authenticated.
+ */
+@JmxEndpoint(id = "deadletters")
+public class DeadLetterEndpoint {
+
+	private final AmqpAdmin amqpAdmin;
+	private final DeadLetterRouter deadLetterRouter;
+	private final MessagingProperties messagingProperties;
+
+	public DeadLetterEndpoint(AmqpAdmin amqpAdmin, DeadLetterRouter deadLetterRouter, MessagingProperties messagingProperties) {
+		this.amqpAdmin = amqpAdmin;
+		this.deadLetterRouter = deadLetterRouter;
+		this.messagingProperties = messagingProperties;
+	}
+
+	@ReadOperation
+	public Map<String, Object> deadLetters() {
+		Properties queueProperties = amqpAdmin.getQueueProperties(messagingProperties.deadLetterQueue());
+		Object messageCount = queueProperties != null ? queueProperties.get(RabbitAdmin.QUEUE_MESSAGE_COUNT) : 0;
+		return Map.of(
+				"queue", messagingProperties.deadLetterQueue(),
+				"messages", messageCount
+		);
+	}
+
+	@WriteOperation
+	public Map<String, Object> replay(@Nullable Integer batchSize) {
+		int size = batchSize != null
+				? Math.min(batchSize, messagingProperties.replayBatchSize())
+				: messagingProperties.replayBatchSize();
+		return Map.of(
+				"queue", messagingProperties.deadLetterQueue(),
+				"replayed", deadLetterRouter.replay(size)
+		);
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.polarbookshop.commons.messaging;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.GetResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.messaging.Message;
+
+public class DeadLetterRouter {
+
+	static final String RETRY_ATTEMPT_HEADER = "x-retry-attempt";
+	static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+
+	private static final Logger log = LoggerFactory.getLogger(DeadLetterRouter.class);
+
+	private final RabbitTemplate rabbitTemplate;
+	private final ObjectMapper objectMapper;
+	private final MessagingProperties messagingProperties;
+
+	public DeadLetterRouter(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper, MessagingProperties messagingProperties) {
+		this.rabbitTemplate = rabbitTemplate;
+		this.objectMapper = objectMapper;
+		this.messagingProperties = messagingProperties;
+	}
+
+	/**
+	 * Moves a message that could not be processed to the next delay queue, or to the
+	 * dead-letter queue once all retries are exhausted. Never emits an error, so that
+	 * a poison message cannot terminate the consumer.
+	 */
+	public Mono<Void> route(Message<?> message, Throwable cause) {
+		return Mono.fromRunnable(() -> send(message, cause))
+				.subscribeOn(Schedulers.boundedElastic())
+				.onErrorResume(exception -> {
+					log.error("Failed to route message {} after processing error", message.getHeaders().getId(), exception);
+					return Mono.empty();
+				})
+				.then();
+	}
+
+	void send(Message<?> message, Throwable cause) {
+		int attempt = retryAttempt(message) + 1;
+		boolean retry = attempt <= messagingProperties.maxRetries();
+		String target = retry ? messagingProperties.retryQueue(attempt) : messagingProperties.deadLetterQueue();
+		log.warn("Processing of message {} failed, routing it to {}: {}", message.getPayload(), target, cause.getMessage());
+
+		var amqpMessage = MessageBuilder.withBody(toJson(message.getPayload()))
+				.setContentType(MessageProperties.CONTENT_TYPE_JSON)
+				.setHeader(RETRY_ATTEMPT_HEADER, attempt)
+				.setHeader(EXCEPTION_MESSAGE_HEADER, String.valueOf(cause.getMessage()));
+		if (retry) {
+			// The retry queue dead-letters the message back to the consumer queue once it expires
+			amqpMessage.setExpiration(String.valueOf(messagingProperties.retryDelay(attempt).toMillis()));
+		}
+		rabbitTemplate.send("", target, amqpMessage.build());
+	}
+
+	/**
+	 * Re-injects up to {@code batchSize} messages from the dead-letter queue into the
+	 * consumer queue. Each message is acknowledged only after it has been republished.
+	 */
+	public int replay(int batchSize) {
+		Integer replayed = rabbitTemplate.execute(channel -> {
+			int count = 0;
+			while (count < batchSize) {
+				GetResponse response = channel.basicGet(messagingProperties.deadLetterQueue(), false);
+				if (response == null) {
+					break;
+				}
+				Map<String, Object> headers = response.getProps().getHeaders() != null
+						? new HashMap<>(response.getProps().getHeaders())
+						: new HashMap<>();
+				headers.remove(RETRY_ATTEMPT_HEADER);
+				var properties = response.getProps().builder().headers(headers).build();
+				channel.basicPublish("", messagingProperties.queue(), properties, response.getBody());
+				channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+				count++;
+			}
+			return count;
+		});
+		log.info("Replayed {} messages from {}", replayed, messagingProperties.deadLetterQueue());
+		return replayed != null ? replayed : 0;
+	}
+
+	static int retryAttempt(Message<?> message) {
+		var attempt = message.getHeaders().get(RETRY_ATTEMPT_HEADER);
+		return attempt instanceof Number number ? number.intValue() : 0;
+	}
+
+	private byte[] toJson(Object payload) {
+		try {
+			return objectMapper.writeValueAsBytes(payload);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Failed to serialize payload " + payload, ex);
+		}
+	}
+
+}
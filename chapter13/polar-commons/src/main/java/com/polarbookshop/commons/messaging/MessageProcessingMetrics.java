@@ -0,0 +1,41 @@
+package com.polarbookshop.commons.messaging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Times the processing of a message in a stream function, as polar.messages.processing
+ * tagged with the function and the outcome.
+ */
+public final class MessageProcessingMetrics {
+
+	public static final String PROCESSING_METRIC_NAME = "polar.messages.processing";
+
+	private MessageProcessingMetrics() {
+	}
+
+	/**
+	 * Times a message from subscription to termination, tagged with how it ended.
+	 */
+	public static <T> Mono<T> timed(String function, MeterRegistry meterRegistry, Mono<T> processing) {
+		return Mono.defer(() -> {
+			var sample = Timer.start(meterRegistry);
+			return processing.doFinally(signal -> sample.stop(Timer.builder(PROCESSING_METRIC_NAME)
+					.description("Time to process a message in a stream function")
+					.tag("function", function)
+					.tag("outcome", outcome(signal))
+					.register(meterRegistry)));
+		});
+	}
+
+	private static String outcome(SignalType signal) {
+		return switch (signal) {
+			case ON_ERROR -> "error";
+			case CANCEL -> "cancelled";
+			default -> "success";
+		};
+	}
+
+}
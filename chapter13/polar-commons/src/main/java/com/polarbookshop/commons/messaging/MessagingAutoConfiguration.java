@@ -0,0 +1,82 @@
+package com.polarbookshop.commons.messaging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.amqp.RabbitAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Retries the messages a consumer failed to process through delay queues, then parks
+ * them in a dead-letter queue, for the service whose consumer queue is set in
+ * polar.messaging.queue. The consumer hands its failed messages to the {@link DeadLetterRouter}.
+ */
+@AutoConfiguration(after = { RabbitAutoConfiguration.class, JacksonAutoConfiguration.class })
+@ConditionalOnClass(RabbitTemplate.class)
+@ConditionalOnProperty(prefix = "polar.messaging", name = "queue")
+@EnableConfigurationProperties(MessagingProperties.class)
+public class MessagingAutoConfiguration {
+
+	@Bean
+	DeadLetterRouter deadLetterRouter(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper, MessagingProperties messagingProperties) {
+		return new DeadLetterRouter(rabbitTemplate, objectMapper, messagingProperties);
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(Endpoint.class)
+	static class DeadLetterEndpointConfiguration {
+
+		@Bean
+		@ConditionalOnAvailableEndpoint
+		DeadLetterEndpoint deadLetterEndpoint(AmqpAdmin amqpAdmin, DeadLetterRouter deadLetterRouter, MessagingProperties messagingProperties) {
+			return new DeadLetterEndpoint(amqpAdmin, deadLetterRouter, messagingProperties);
+		}
+
+	}
+
+	/**
+	 * One delay queue per retry attempt. Each message expires after the delay of its
+	 * attempt and is then dead-lettered back to the consumer queue through the default
+	 * exchange, so the main consumer never blocks while waiting for a retry.
+	 * The delay is set on each message rather than as a queue TTL, since RabbitMQ refuses
+	 * to redeclare an existing queue with different arguments.
+	 */
+	@Bean
+	Declarables retryQueues(MessagingProperties messagingProperties) {
+		List<Declarable> queues = new ArrayList<>();
+		for (int attempt = 1; attempt <= messagingProperties.maxRetries(); attempt++) {
+			queues.add(QueueBuilder.durable(messagingProperties.retryQueue(attempt))
+					.deadLetterExchange("")
+					.deadLetterRoutingKey(messagingProperties.queue())
+					.build());
+		}
+		return new Declarables(queues);
+	}
+
+	/**
+	 * Messages are parked here by the DeadLetterRouter once their retries are exhausted.
+	 * The consumer queue is left without dead-letter arguments, so queues declared before
+	 * the dead-letter queue existed don't need to be recreated.
+	 */
+	@Bean
+	Queue deadLetterQueue(MessagingProperties messagingProperties) {
+		return QueueBuilder.durable(messagingProperties.deadLetterQueue()).build();
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.polarbookshop.commons.messaging;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.Assert;
+
+/**
+ * Checked when bound rather than through Bean Validation, since the services use either
+ * the javax or the jakarta constraints depending on their Spring Boot version.
+ */
+@ConfigurationProperties(prefix = "polar.messaging")
+public record MessagingProperties (
+
+	/**
+	 * Queue consumed by the binding whose failed messages are retried.
+	 */
+	String queue,
+
+	/**
+	 * Number of delayed retries before a message is parked in the dead-letter queue.
+	 */
+	int maxRetries,
+
+	/**
+	 * Delay before the first retry.
+	 */
+	Duration initialRetryDelay,
+
+	/**
+	 * Factor applied to the delay of each following retry.
+	 */
+	double retryMultiplier,
+
+	/**
+	 * Maximum number of dead-lettered messages re-injected by a single replay.
+	 */
+	int replayBatchSize
+
+){
+
+	public MessagingProperties {
+		Assert.hasText(queue, "polar.messaging.queue must be set");
+		Assert.isTrue(maxRetries >= 0, "polar.messaging.max-retries must not be negative");
+		Assert.notNull(initialRetryDelay, "polar.messaging.initial-retry-delay must be set");
+		Assert.isTrue(retryMultiplier >= 1, "polar.messaging.retry-multiplier must be at least 1");
+		Assert.isTrue(replayBatchSize >= 1, "polar.messaging.replay-batch-size must be at least 1");
+	}
+
+	public String retryQueue(int attempt) {
+		return queue + ".retry-" + attempt;
+	}
+
+	public String deadLetterQueue() {
+		return queue + ".dlq";
+	}
+
+	public Duration retryDelay(int attempt) {
+		return Duration.ofMillis((long) (initialRetryDelay.toMillis() * Math.pow(retryMultiplier, attempt - 1)));
+	}
+
+}
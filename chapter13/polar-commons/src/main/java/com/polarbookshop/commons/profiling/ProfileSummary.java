@@ -0,0 +1,124 @@
+package com.polarbookshop.commons.profiling;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Aggregates profiling events over a rolling window. Events go to the current window,
+ * which replaces the previous one once it is older than the window length, so the
+ * summary always covers between one and two window lengths.
+ */
+class ProfileSummary {
+
+	private final Duration windowLength;
+	private final int topFrames;
+	private final Clock clock;
+
+	private volatile Window current;
+	private volatile Window previous;
+
+	ProfileSummary(Duration windowLength, int topFrames, Clock clock) {
+		this.windowLength = windowLength;
+		this.topFrames = topFrames;
+		this.clock = clock;
+		this.current = new Window(clock.instant());
+		this.previous = null;
+	}
+
+	void recordAllocation(String frame, long bytes) {
+		window().allocatedBytes.computeIfAbsent(frame, key -> new LongAdder()).add(bytes);
+	}
+
+	void recordExecutionSample(String frame) {
+		window().executionSamples.computeIfAbsent(frame, key -> new LongAdder()).increment();
+	}
+
+	void recordLockContention(String monitorClass, Duration duration) {
+		window().lockContentionNanos.computeIfAbsent(monitorClass, key -> new LongAdder()).add(duration.toNanos());
+	}
+
+	void recordSocketIo(String host, long bytes, Duration duration) {
+		var window = window();
+		window.socketBytes.computeIfAbsent(host, key -> new LongAdder()).add(bytes);
+		window.socketNanos.computeIfAbsent(host, key -> new LongAdder()).add(duration.toNanos());
+	}
+
+	void recordGarbageCollection(Duration pause) {
+		var window = window();
+		window.collections.increment();
+		window.gcPauseNanos.add(pause.toNanos());
+	}
+
+	Map<String, Object> snapshot() {
+		var latest = window();
+		var windows = previous != null ? List.of(previous, latest) : List.of(latest);
+
+		var summary = new LinkedHashMap<String, Object>();
+		summary.put("from", windows.get(0).start);
+		summary.put("to", clock.instant());
+		summary.put("topAllocatingFrames", top(windows, window -> window.allocatedBytes, "bytes"));
+		summary.put("hottestMethods", top(windows, window -> window.executionSamples, "samples"));
+		summary.put("lockContention", top(windows, window -> window.lockContentionNanos, "nanos"));
+		summary.put("socketIo", top(windows, window -> window.socketNanos, "nanos"));
+		summary.put("socketBytes", top(windows, window -> window.socketBytes, "bytes"));
+		summary.put("gc", Map.of(
+				"collections", windows.stream().mapToLong(window -> window.collections.sum()).sum(),
+				"pauseNanos", windows.stream().mapToLong(window -> window.gcPauseNanos.sum()).sum()
+		));
+		return summary;
+	}
+
+	private List<Map<String, Object>> top(List<Window> windows, Function<Window, Map<String, LongAdder>> counters, String valueName) {
+		var totals = new LinkedHashMap<String, Long>();
+		BiConsumer<String, LongAdder> add = (key, value) -> totals.merge(key, value.sum(), Long::sum);
+		windows.forEach(window -> counters.apply(window).forEach(add));
+		return totals.entrySet().stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+				.limit(topFrames)
+				.map(entry -> Map.<String, Object>of("name", entry.getKey(), valueName, entry.getValue()))
+				.toList();
+	}
+
+	private Window window() {
+		var window = current;
+		var now = clock.instant();
+		if (window.start.plus(windowLength).isAfter(now)) {
+			return window;
+		}
+		synchronized (this) {
+			if (current == window) {
+				// After an idle period the last window is too old to be part of the summary
+				previous = window.start.plus(windowLength.multipliedBy(2)).isAfter(now) ? window : null;
+				current = new Window(now);
+			}
+			return current;
+		}
+	}
+
+	private static final class Window {
+
+		private final Instant start;
+		private final Map<String, LongAdder> allocatedBytes = new ConcurrentHashMap<>();
+		private final Map<String, LongAdder> executionSamples = new ConcurrentHashMap<>();
+		private final Map<String, LongAdder> lockContentionNanos = new ConcurrentHashMap<>();
+		private final Map<String, LongAdder> socketBytes = new ConcurrentHashMap<>();
+		private final Map<String, LongAdder> socketNanos = new ConcurrentHashMap<>();
+		private final LongAdder collections = new LongAdder();
+		private final LongAdder gcPauseNanos = new LongAdder();
+
+		private Window(Instant start) {
+			this.start = start;
+		}
+
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.polarbookshop.commons.profiling;
+
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registers the profiling endpoint when it's enabled and exposed. A native image only supports
+ * part of the JFR streaming API, so services built as native executables should disable it
+ * with {@code management.endpoint.profiling.enabled=false}.
+ */
+@AutoConfiguration
+@ConditionalOnClass(Endpoint.class)
+public class ProfilingAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnAvailableEndpoint
+	ProfilingEndpoint profilingEndpoint() {
+		return new ProfilingEndpoint();
+	}
+
+}
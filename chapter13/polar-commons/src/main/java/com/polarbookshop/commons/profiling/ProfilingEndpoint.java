@@ -0,0 +1,153 @@
+package com.polarbookshop.commons.profiling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+/**
+ * Runs a Java Flight Recorder recording limited to low-overhead events (allocation samples,
+ * execution samples, lock contention, socket I/O and GC) so that hot paths can be diagnosed
+ * in place. Unlike a heap dump, it doesn't pause the application.
+ */
+@WebEndpoint(id = "profiling")
+public class ProfilingEndpoint {
+
+	private static final Logger log = LoggerFactory.getLogger(ProfilingEndpoint.class);
+
+	static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(10);
+	static final Duration SUMMARY_WINDOW = Duration.ofMinutes(1);
+	static final int TOP_FRAMES = 20;
+	private static final Duration CONTENTION_THRESHOLD = Duration.ofMillis(10);
+	private static final Duration SOCKET_THRESHOLD = Duration.ofMillis(10);
+
+	private RecordingStream recording;
+	private ProfileSummary summary;
+	private Instant startedAt;
+	private Duration maxAge;
+	private Path lastDump;
+
+	@ReadOperation
+	public synchronized Map<String, Object> profile() {
+		var profile = new LinkedHashMap<String, Object>();
+		profile.put("running", recording != null);
+		if (recording != null) {
+			profile.put("startedAt", startedAt);
+			profile.put("maxAge", maxAge);
+			profile.put("summary", summary.snapshot());
+		}
+		return profile;
+	}
+
+	@WriteOperation
+	public synchronized Map<String, Object> start(@Nullable Duration maxAge) {
+		if (recording == null) {
+			if (!FlightRecorder.isAvailable()) {
+				return Map.of("running", false, "error", "Java Flight Recorder is not available in this runtime");
+			}
+			this.maxAge = maxAge != null ? maxAge : DEFAULT_MAX_AGE;
+			this.summary = new ProfileSummary(SUMMARY_WINDOW, TOP_FRAMES, Clock.systemUTC());
+			this.recording = lowOverheadRecording(this.maxAge, this.summary);
+			this.recording.startAsync();
+			this.startedAt = Instant.now();
+			log.info("Profiling started, keeping the last {} of events", this.maxAge);
+		}
+		return profile();
+	}
+
+	@DeleteOperation
+	public synchronized Map<String, Object> stop() {
+		if (recording != null) {
+			recording.close();
+			recording = null;
+			summary = null;
+			deleteLastDump();
+			log.info("Profiling stopped");
+		}
+		return profile();
+	}
+
+	/**
+	 * Dumps the events retained so far in the JFR format, to be opened with JDK Mission Control.
+	 * Only the latest dump is kept on disk.
+	 */
+	@ReadOperation(produces = "application/octet-stream")
+	public synchronized WebEndpointResponse<Resource> recording(@Selector String format) throws IOException {
+		if (recording == null || !"jfr".equals(format)) {
+			return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+		}
+		deleteLastDump();
+		lastDump = Files.createTempFile("profiling-", ".jfr");
+		recording.dump(lastDump);
+		return new WebEndpointResponse<>(new FileSystemResource(lastDump));
+	}
+
+	private void deleteLastDump() {
+		if (lastDump != null) {
+			try {
+				Files.deleteIfExists(lastDump);
+			}
+			catch (IOException ex) {
+				log.warn("Failed to delete the profiling dump {}", lastDump, ex);
+			}
+			lastDump = null;
+		}
+	}
+
+	private static RecordingStream lowOverheadRecording(Duration maxAge, ProfileSummary summary) {
+		var stream = new RecordingStream();
+		stream.setMaxAge(maxAge);
+		stream.enable("jdk.ObjectAllocationSample").with("throttle", "150/s").withStackTrace();
+		stream.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(20)).withStackTrace();
+		stream.enable("jdk.JavaMonitorEnter").withThreshold(CONTENTION_THRESHOLD).withStackTrace();
+		stream.enable("jdk.SocketRead").withThreshold(SOCKET_THRESHOLD);
+		stream.enable("jdk.SocketWrite").withThreshold(SOCKET_THRESHOLD);
+		stream.enable("jdk.GarbageCollection");
+
+		stream.onEvent("jdk.ObjectAllocationSample", event ->
+				summary.recordAllocation(topFrame(event), event.getLong("weight")));
+		stream.onEvent("jdk.ExecutionSample", event ->
+				summary.recordExecutionSample(topFrame(event)));
+		stream.onEvent("jdk.JavaMonitorEnter", event ->
+				summary.recordLockContention(event.getClass("monitorClass").getName(), event.getDuration()));
+		stream.onEvent("jdk.SocketRead", event ->
+				summary.recordSocketIo(event.getString("host") + ":" + event.getInt("port"), event.getLong("bytesRead"), event.getDuration()));
+		stream.onEvent("jdk.SocketWrite", event ->
+				summary.recordSocketIo(event.getString("host") + ":" + event.getInt("port"), event.getLong("bytesWritten"), event.getDuration()));
+		stream.onEvent("jdk.GarbageCollection", event ->
+				summary.recordGarbageCollection(event.getDuration("sumOfPauses")));
+		return stream;
+	}
+
+	private static String topFrame(RecordedEvent event) {
+		RecordedStackTrace stackTrace = event.getStackTrace();
+		if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+			return "unknown";
+		}
+		RecordedFrame frame = stackTrace.getFrames().get(0);
+		return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+	}
+
+}
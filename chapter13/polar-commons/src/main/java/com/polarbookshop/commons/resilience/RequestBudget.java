@@ -0,0 +1,114 @@
+package com.polarbookshop.commons.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Extra requests, like retries or hedged requests, allowed towards a downstream service
+ * and shared by all the requests to it. Each request deposits a fraction of a token and
+ * each extra request withdraws a whole one, so extra requests can't add more than that
+ * fraction of load on top of the normal traffic, even when the whole downstream service
+ * is failing or slow. A few extra requests per second can be allowed regardless, so
+ * that a quiet service can still get some.
+ */
+public class RequestBudget {
+
+	private static final long TOKEN = 1000;
+
+	private final AtomicLong balance = new AtomicLong();
+	private final long deposit;
+	private final long maxBalance;
+	private final int minPerSecond;
+	private final LongSupplier nanoClock;
+	private final Counter issued;
+	private final Counter denied;
+	private long floorSecond = Long.MIN_VALUE;
+	private int floorUsed;
+
+	/**
+	 * Creates a budget reporting the {@code <name>.issued} and {@code <name>.denied}
+	 * counters and the {@code <name>.balance} gauge.
+	 * @param ratio fraction of a token deposited by each request
+	 * @param maxBalance maximum number of extra requests saved up by a quiet period
+	 * @param minPerSecond extra requests allowed each second regardless of the balance
+	 */
+	public RequestBudget(String name, Tags tags, double ratio, int maxBalance, int minPerSecond, MeterRegistry meterRegistry) {
+		this(name, tags, ratio, maxBalance, minPerSecond, meterRegistry, System::nanoTime);
+	}
+
+	RequestBudget(String name, Tags tags, double ratio, int maxBalance, int minPerSecond, MeterRegistry meterRegistry,
+			LongSupplier nanoClock) {
+		this.deposit = Math.round(ratio * TOKEN);
+		this.maxBalance = maxBalance * TOKEN;
+		this.minPerSecond = minPerSecond;
+		this.nanoClock = nanoClock;
+		this.issued = Counter.builder(name + ".issued")
+				.description("Extra requests sent within the budget")
+				.tags(tags)
+				.register(meterRegistry);
+		this.denied = Counter.builder(name + ".denied")
+				.description("Extra requests not sent because the budget was spent")
+				.tags(tags)
+				.register(meterRegistry);
+		Gauge.builder(name + ".balance", this, RequestBudget::balance)
+				.description("Extra requests currently allowed by the budget")
+				.tags(tags)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Records a request, which earns a fraction of an extra one.
+	 */
+	public void deposit() {
+		balance.getAndUpdate(tokens -> Math.min(maxBalance, tokens + deposit));
+	}
+
+	/**
+	 * Returns whether an extra request may be sent, and pays for it if so.
+	 */
+	public boolean tryWithdraw() {
+		if (withdraw() || withinFloor()) {
+			issued.increment();
+			return true;
+		}
+		denied.increment();
+		return false;
+	}
+
+	public double balance() {
+		return (double) balance.get() / TOKEN;
+	}
+
+	private boolean withdraw() {
+		long tokens;
+		do {
+			tokens = balance.get();
+			if (tokens < TOKEN) {
+				return false;
+			}
+		} while (!balance.compareAndSet(tokens, tokens - TOKEN));
+		return true;
+	}
+
+	private synchronized boolean withinFloor() {
+		if (minPerSecond == 0) {
+			return false;
+		}
+		long second = nanoClock.getAsLong() / 1_000_000_000L;
+		if (second != floorSecond) {
+			floorSecond = second;
+			floorUsed = 0;
+		}
+		if (floorUsed < minPerSecond) {
+			floorUsed++;
+			return true;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.polarbookshop.commons.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigSnapshotEnvironmentPostProcessorTests {
+
+	private final ConfigSnapshotEnvironmentPostProcessor postProcessor =
+			new ConfigSnapshotEnvironmentPostProcessor(destination -> destination.get());
+
+	@TempDir
+	Path snapshotDir;
+
+	@Test
+	void whenSnapshotExistsThenStartFromItWithoutConfigService() throws IOException {
+		var snapshot = snapshotDir.resolve("application.properties");
+		Files.writeString(snapshot, "polar.greeting=Welcome from the snapshot!\n");
+		var environment = new MockEnvironment()
+				.withProperty("polar.config-snapshot.path", snapshot.toString());
+
+		postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+		assertThat(environment.getProperty("polar.greeting")).isEqualTo("Welcome from the snapshot!");
+		assertThat(environment.getProperty("spring.cloud.config.enabled")).isEqualTo("false");
+	}
+
+	@Test
+	void whenRefreshingThenSnapshotIgnored() throws IOException {
+		var snapshot = snapshotDir.resolve("application.properties");
+		Files.writeString(snapshot, "polar.greeting=Welcome from the snapshot!\n");
+		var environment = new MockEnvironment()
+				.withProperty("polar.config-snapshot.path", snapshot.toString());
+		environment.getPropertySources().addFirst(new MapPropertySource("refreshArgs",
+				Map.of("spring.main.web-application-type", "NONE")));
+
+		postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+		assertThat(environment.getPropertySources().contains("configSnapshot")).isFalse();
+		assertThat(environment.getProperty("spring.cloud.config.enabled")).isNull();
+	}
+
+	@Test
+	void whenSnapshotMissingThenLoadFromConfigService() {
+		var environment = new MockEnvironment()
+				.withProperty("polar.config-snapshot.path", snapshotDir.resolve("missing.properties").toString());
+
+		postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+		assertThat(environment.getPropertySources().contains("configSnapshot")).isFalse();
+		assertThat(environment.getProperty("spring.cloud.config.enabled")).isNull();
+	}
+
+	@Test
+	void whenSnapshotNotConfiguredThenLoadFromConfigService() {
+		var environment = new MockEnvironment();
+
+		postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+		assertThat(environment.getPropertySources().contains("configSnapshot")).isFalse();
+	}
+
+}
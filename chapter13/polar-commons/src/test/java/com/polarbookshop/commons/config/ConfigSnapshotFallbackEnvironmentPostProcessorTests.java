@@ -0,0 +1,54 @@
+package com.polarbookshop.commons.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigSnapshotFallbackEnvironmentPostProcessorTests {
+
+	private final ConfigSnapshotFallbackEnvironmentPostProcessor postProcessor =
+			new ConfigSnapshotFallbackEnvironmentPostProcessor(destination -> destination.get());
+
+	@TempDir
+	Path snapshotDir;
+
+	private MockEnvironment environment;
+
+	@BeforeEach
+	void setup() throws IOException {
+		var snapshot = snapshotDir.resolve("application.properties");
+		Files.writeString(snapshot, "polar.greeting=Welcome from the snapshot!\n");
+		environment = new MockEnvironment().withProperty("polar.config-snapshot.path", snapshot.toString());
+	}
+
+	@Test
+	void whenConfigServiceRespondedThenSnapshotIgnored() {
+		environment.getPropertySources().addFirst(new MapPropertySource("configserver:dispatcher-service.yml",
+				Map.of("polar.greeting", "Welcome from Config Service!")));
+
+		postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+		assertThat(environment.getProperty("polar.greeting")).isEqualTo("Welcome from Config Service!");
+		assertThat(environment.getPropertySources().contains("configSnapshot")).isFalse();
+	}
+
+	@Test
+	void whenConfigServiceNotAvailableThenStartFromSnapshot() {
+		postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+		assertThat(environment.getProperty("polar.greeting")).isEqualTo("Welcome from the snapshot!");
+		assertThat(environment.getProperty("spring.cloud.config.enabled")).isNull();
+	}
+
+}
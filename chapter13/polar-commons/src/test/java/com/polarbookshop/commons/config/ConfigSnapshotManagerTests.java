@@ -0,0 +1,101 @@
+package com.polarbookshop.commons.config;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class ConfigSnapshotManagerTests {
+
+	@TempDir
+	Path snapshotDir;
+
+	private Path snapshot;
+	private MockEnvironment environment;
+	private ContextRefresher contextRefresher;
+	private ConfigSnapshotManager manager;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setup() {
+		snapshot = snapshotDir.resolve("application.properties");
+		environment = new MockEnvironment().withProperty("polar.config-snapshot.path", snapshot.toString());
+		contextRefresher = mock(ContextRefresher.class);
+		ObjectProvider<ContextRefresher> provider = mock(ObjectProvider.class);
+		given(provider.getIfAvailable()).willReturn(contextRefresher);
+		manager = new ConfigSnapshotManager(environment, provider);
+	}
+
+	@AfterEach
+	void clean() {
+		manager.destroy();
+	}
+
+	@Test
+	void whenConfigReceivedFromConfigServiceThenSavedForOwnerOnly() throws IOException {
+		environment.getPropertySources().addFirst(new MapPropertySource("configserver:catalog-service.yml",
+				Map.of("polar.greeting", "Welcome from Config Service!")));
+
+		manager.onApplicationReady();
+
+		assertThat(Files.readString(snapshot)).contains("polar.greeting=Welcome from Config Service\\!");
+		verify(contextRefresher, never()).refresh();
+		assumeThat(FileSystems.getDefault().supportedFileAttributeViews()).contains("posix");
+		assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(snapshot))).isEqualTo("rw-------");
+	}
+
+	@Test
+	void whenNoConfigFromConfigServiceThenNothingSaved() {
+		manager.onApplicationReady();
+
+		assertThat(snapshot).doesNotExist();
+	}
+
+	@Test
+	void whenStartedFromSnapshotThenReconciledInBackground() throws IOException, InterruptedException {
+		var snapshotProperties = new Properties();
+		snapshotProperties.put("polar.removed", "Removed from Config Service");
+		environment.getPropertySources().addLast(new PropertiesPropertySource("configSnapshot", snapshotProperties));
+		environment.getPropertySources().addFirst(new MapPropertySource("configSnapshotOverrides",
+				Map.of("spring.cloud.config.enabled", false)));
+		given(contextRefresher.refresh()).willAnswer(invocation -> {
+			environment.getPropertySources().addFirst(new MapPropertySource("configserver:catalog-service.yml",
+					Map.of("polar.greeting", "Welcome from Config Service!")));
+			return Set.of("polar.greeting");
+		});
+
+		manager.onApplicationReady();
+
+		assertThat(environment.getProperty("spring.cloud.config.enabled")).isNull();
+		verify(contextRefresher, timeout(1000)).refresh();
+		for (int i = 0; i < 100 && !Files.exists(snapshot); i++) {
+			Thread.sleep(10);
+		}
+		assertThat(environment.getProperty("polar.removed")).isNull();
+		assertThat(Files.readString(snapshot)).contains("polar.greeting=Welcome from Config Service\\!");
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.polarbookshop.commons.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.autoconfigure.RefreshAutoConfiguration;
+import org.springframework.cloud.context.refresh.ContextRefresher;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Goes through real context refreshes, which run the environment post-processors
+ * registered in spring.factories again.
+ */
+class ConfigSnapshotRefreshTests {
+
+	@TempDir
+	Path snapshotDir;
+
+	private final MockWebServer configService = new MockWebServer();
+	private volatile boolean configServiceAvailable;
+	private volatile String greeting = "Welcome from Config Service!";
+	private ConfigurableApplicationContext context;
+
+	@BeforeEach
+	void setup() throws IOException {
+		configService.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				if (!configServiceAvailable) {
+					return new MockResponse().setResponseCode(503);
+				}
+				return new MockResponse()
+						.setHeader("Content-Type", "application/json")
+						.setBody("""
+								{"name": "snapshot-tests", "profiles": ["default"], "propertySources": [
+									{"name": "config-repo/snapshot-tests.yml", "source": {"polar.greeting": "%s"}}
+								]}
+								""".formatted(greeting));
+			}
+		});
+		configService.start();
+	}
+
+	@AfterEach
+	void clean() throws IOException {
+		if (context != null) {
+			context.close();
+		}
+		configService.shutdown();
+	}
+
+	@Test
+	void whenStartedFromSnapshotThenRefreshesLoadFromConfigService() throws IOException {
+		var snapshot = snapshotDir.resolve("application.properties");
+		Files.writeString(snapshot, "polar.greeting=Welcome from the snapshot!\npolar.removed=Removed from Config Service\n");
+
+		context = new SpringApplicationBuilder(TestConfiguration.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.application.name=snapshot-tests",
+						"spring.config.import=optional:configserver:" + configService.url("/"),
+						"polar.config-snapshot.path=" + snapshot)
+				.run();
+		var environment = context.getEnvironment();
+		assertThat(environment.getProperty("polar.greeting")).isEqualTo("Welcome from the snapshot!");
+		assertThat(environment.getProperty("spring.cloud.config.enabled")).isNull();
+
+		configServiceAvailable = true;
+		context.getBean(ConfigSnapshotManager.class).reconcile(context.getBean(ContextRefresher.class));
+
+		assertThat(environment.getProperty("polar.greeting")).isEqualTo("Welcome from Config Service!");
+		assertThat(environment.getProperty("polar.removed")).isNull();
+		assertThat(Files.readString(snapshot)).contains("polar.greeting=Welcome from Config Service\\!");
+
+		// Like a refresh pushed over the bus
+		greeting = "Welcome again from Config Service!";
+		context.getBean(ContextRefresher.class).refresh();
+
+		assertThat(environment.getProperty("polar.greeting")).isEqualTo("Welcome again from Config Service!");
+		assertThat(environment.getPropertySources().contains("configSnapshotOverrides")).isFalse();
+		assertThat(Files.readString(snapshot)).contains("polar.greeting=Welcome again from Config Service\\!");
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ImportAutoConfiguration({ RefreshAutoConfiguration.class, ConfigSnapshotAutoConfiguration.class })
+	static class TestConfiguration {
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.polarbookshop.commons.loadbalancer;
+
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DnsServiceInstanceListSupplierTests {
+
+	@Test
+	void whenNameResolvedThenOneInstancePerAddress() throws UnknownHostException {
+		var supplier = new DnsServiceInstanceListSupplier("catalog-service", URI.create("http://localhost:9001"),
+				Duration.ofSeconds(5));
+
+		var instances = supplier.resolve();
+
+		assertThat(instances).isNotEmpty().allSatisfy(instance -> {
+			assertThat(instance.getServiceId()).isEqualTo("catalog-service");
+			assertThat(instance.getPort()).isEqualTo(9001);
+			assertThat(instance.isSecure()).isFalse();
+		});
+	}
+
+	@Test
+	void whenNoPortThenSchemeDefault() throws UnknownHostException {
+		var supplier = new DnsServiceInstanceListSupplier("catalog-service", URI.create("https://localhost"),
+				Duration.ofSeconds(5));
+
+		assertThat(supplier.resolve()).allSatisfy(instance -> assertThat(instance.getPort()).isEqualTo(443));
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.polarbookshop.commons.loadbalancer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyAwareLoadBalancerTests {
+
+	private final ServiceInstance fast = new DefaultServiceInstance("fast", "catalog-service", "10.0.0.1", 9001, false);
+	private final ServiceInstance slow = new DefaultServiceInstance("slow", "catalog-service", "10.0.0.2", 9001, false);
+	private final List<ServiceInstance> instances = List.of(fast, slow);
+
+	@Test
+	void whenReplicaRespondsSlowlyThenPeakEwmaAvoidsIt() {
+		var loadBalancer = loadBalancer(ReplicaSelectionProperties.Selection.PEAK_EWMA);
+		complete(loadBalancer, fast, Duration.ofMillis(5));
+		complete(loadBalancer, slow, Duration.ofMillis(500));
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(loadBalancer.choose(instances).getServer()).isEqualTo(fast);
+		}
+	}
+
+	@Test
+	void whenReplicaHasMoreRequestsInFlightThenLeastRequestsAvoidsIt() {
+		var loadBalancer = loadBalancer(ReplicaSelectionProperties.Selection.LEAST_REQUESTS);
+		loadBalancer.onStartRequest(request(), new DefaultResponse(slow));
+		loadBalancer.onStartRequest(request(), new DefaultResponse(slow));
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(loadBalancer.choose(instances).getServer()).isEqualTo(fast);
+		}
+	}
+
+	@Test
+	void whenReplicaNoLongerListedThenLoadForgotten() {
+		var loadBalancer = loadBalancer(ReplicaSelectionProperties.Selection.PEAK_EWMA);
+		loadBalancer.choose(instances);
+		complete(loadBalancer, fast, Duration.ofMillis(5));
+		complete(loadBalancer, slow, Duration.ofMillis(500));
+		var busy = new DefaultServiceInstance("busy", "catalog-service", "10.0.0.3", 9001, false);
+		loadBalancer.onStartRequest(request(), new DefaultResponse(busy));
+
+		loadBalancer.choose(List.of(fast));
+
+		// The busy replica is kept until its request completes
+		assertThat(loadBalancer.trackedReplicas()).isEqualTo(2);
+	}
+
+	@Test
+	void whenReplicasListedThenChosenAmongThem() {
+		var beanFactory = new StaticListableBeanFactory();
+		beanFactory.addBean("serviceInstanceListSupplier", new ServiceInstanceListSupplier() {
+			@Override
+			public String getServiceId() {
+				return "catalog-service";
+			}
+
+			@Override
+			public Flux<List<ServiceInstance>> get() {
+				return Flux.just(instances);
+			}
+		});
+		var loadBalancer = new LatencyAwareLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class),
+				properties(ReplicaSelectionProperties.Selection.PEAK_EWMA));
+
+		var response = loadBalancer.choose(request()).block();
+
+		assertThat(response).isNotNull();
+		assertThat(response.getServer()).isIn(fast, slow);
+	}
+
+	private static LatencyAwareLoadBalancer loadBalancer(ReplicaSelectionProperties.Selection selection) {
+		return new LatencyAwareLoadBalancer(new StaticListableBeanFactory().getBeanProvider(ServiceInstanceListSupplier.class),
+				properties(selection));
+	}
+
+	private static ReplicaSelectionProperties properties(ReplicaSelectionProperties.Selection selection) {
+		return new ReplicaSelectionProperties(selection, Duration.ofSeconds(10), Duration.ofSeconds(5), null);
+	}
+
+	private static void complete(LatencyAwareLoadBalancer loadBalancer, ServiceInstance instance, Duration responseTime) {
+		var request = request();
+		var response = new DefaultResponse(instance);
+		loadBalancer.onStartRequest(request, response);
+		var context = (RequestDataContext) request.getContext();
+		context.setRequestStartTime(context.getRequestStartTime() - TimeUnit.NANOSECONDS.convert(responseTime));
+		loadBalancer.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, response));
+	}
+
+	private static Request<Object> request() {
+		return new DefaultRequest<Object>(new RequestDataContext());
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.polarbookshop.commons.logging;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogSamplingFilterTests {
+
+	private static final String LOGGER = "com.polarbookshop.catalogservice.web.BookController";
+
+	private final LoggerContext context = new LoggerContext();
+	private final LogSamplingFilter filter = new LogSamplingFilter();
+
+	@Test
+	void whenBurstExceededThenOneInRateKept() {
+		filter.setBurst(2);
+		filter.setRate(3);
+
+		var replies = new FilterReply[8];
+		for (int i = 0; i < replies.length; i++) {
+			replies[i] = filter.decide(event(LOGGER, Level.INFO, 1_000));
+		}
+
+		assertThat(replies).containsExactly(
+				FilterReply.NEUTRAL, FilterReply.NEUTRAL,
+				FilterReply.DENY, FilterReply.DENY, FilterReply.NEUTRAL,
+				FilterReply.DENY, FilterReply.DENY, FilterReply.NEUTRAL);
+	}
+
+	@Test
+	void whenNextSecondThenBurstAllowedAgain() {
+		filter.setBurst(1);
+		filter.setRate(100);
+
+		assertThat(filter.decide(event(LOGGER, Level.INFO, 1_000))).isEqualTo(FilterReply.NEUTRAL);
+		assertThat(filter.decide(event(LOGGER, Level.INFO, 1_500))).isEqualTo(FilterReply.DENY);
+		assertThat(filter.decide(event(LOGGER, Level.INFO, 2_000))).isEqualTo(FilterReply.NEUTRAL);
+	}
+
+	@Test
+	void whenEventFromPreviousSecondThenCountedInCurrentOne() {
+		filter.setBurst(1);
+		filter.setRate(100);
+
+		assertThat(filter.decide(event(LOGGER, Level.INFO, 2_000))).isEqualTo(FilterReply.NEUTRAL);
+		assertThat(filter.decide(event(LOGGER, Level.INFO, 1_900))).isEqualTo(FilterReply.DENY);
+	}
+
+	@Test
+	void whenLoggedConcurrentlyThenEveryEventCounted() throws InterruptedException {
+		filter.setBurst(100);
+		filter.setRate(10);
+		var kept = new AtomicInteger();
+		var start = new CountDownLatch(1);
+		var threads = new ArrayList<Thread>();
+		for (int i = 0; i < 8; i++) {
+			var thread = new Thread(() -> {
+				try {
+					start.await();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				for (int event = 0; event < 1_000; event++) {
+					if (filter.decide(event(LOGGER, Level.INFO, 1_000)) == FilterReply.NEUTRAL) {
+						kept.incrementAndGet();
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		// 100 events in the burst, then one in ten of the remaining 7900
+		assertThat(kept).hasValue(100 + 790);
+	}
+
+	@Test
+	void whenWarningOrOtherLoggerThenNeverSampled() {
+		filter.setBurst(0);
+		filter.setRate(100);
+
+		assertThat(filter.decide(event(LOGGER, Level.WARN, 1_000))).isEqualTo(FilterReply.NEUTRAL);
+		assertThat(filter.decide(event("org.springframework.web", Level.INFO, 1_000))).isEqualTo(FilterReply.NEUTRAL);
+	}
+
+	private LoggingEvent event(String loggerName, Level level, long timestamp) {
+		var event = new LoggingEvent();
+		event.setLoggerContext(context);
+		event.setLoggerName(loggerName);
+		event.setLevel(level);
+		event.setMessage("Fetching the list of books in the catalog.");
+		event.setTimeStamp(timestamp);
+		return event;
+	}
+
+}
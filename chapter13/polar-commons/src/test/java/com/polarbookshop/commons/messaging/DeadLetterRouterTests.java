@@ -0,0 +1,111 @@
+package com.polarbookshop.commons.messaging;
+
+import java.time.Duration;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.test.StepVerifier;
+
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class DeadLetterRouterTests {
+
+	private final MessagingProperties messagingProperties = new MessagingProperties(
+			"order-accepted.dispatcher-service", 2, Duration.ofSeconds(1), 4, 10);
+
+	private RabbitTemplate rabbitTemplate;
+	private DeadLetterRouter deadLetterRouter;
+
+	@BeforeEach
+	void setup() {
+		rabbitTemplate = mock(RabbitTemplate.class);
+		deadLetterRouter = new DeadLetterRouter(rabbitTemplate, new ObjectMapper(), messagingProperties);
+	}
+
+	@Test
+	void whenFailureThenRoutedToRetryQueueOfAttempt() {
+		var message = MessageBuilder.withPayload(new OrderMessage(394L))
+				.setHeader(DeadLetterRouter.RETRY_ATTEMPT_HEADER, 1)
+				.build();
+
+		deadLetterRouter.send(message, new IllegalStateException("boom"));
+
+		var amqpMessage = ArgumentCaptor.forClass(org.springframework.amqp.core.Message.class);
+		verify(rabbitTemplate).send(eq(""), eq("order-accepted.dispatcher-service.retry-2"), amqpMessage.capture());
+		var properties = amqpMessage.getValue().getMessageProperties();
+		assertThat(properties.<Integer>getHeader(DeadLetterRouter.RETRY_ATTEMPT_HEADER)).isEqualTo(2);
+		assertThat(properties.<String>getHeader(DeadLetterRouter.EXCEPTION_MESSAGE_HEADER)).isEqualTo("boom");
+		assertThat(properties.getExpiration()).isEqualTo("4000");
+		assertThat(new String(amqpMessage.getValue().getBody())).isEqualTo("{\"orderId\":394}");
+	}
+
+	@Test
+	void whenRetriesExhaustedThenRoutedToDeadLetterQueueWithoutExpiration() {
+		var message = MessageBuilder.withPayload(new OrderMessage(394L))
+				.setHeader(DeadLetterRouter.RETRY_ATTEMPT_HEADER, 2)
+				.build();
+
+		deadLetterRouter.send(message, new IllegalStateException("boom"));
+
+		var amqpMessage = ArgumentCaptor.forClass(org.springframework.amqp.core.Message.class);
+		verify(rabbitTemplate).send(eq(""), eq("order-accepted.dispatcher-service.dlq"), amqpMessage.capture());
+		assertThat(amqpMessage.getValue().getMessageProperties().getExpiration()).isNull();
+	}
+
+	@Test
+	void whenRoutingFailsThenNoError() {
+		willThrow(new AmqpConnectException(new IllegalStateException("Connection refused")))
+				.given(rabbitTemplate).send(anyString(), anyString(), any(org.springframework.amqp.core.Message.class));
+		var message = MessageBuilder.withPayload(new OrderMessage(394L)).build();
+
+		StepVerifier.create(deadLetterRouter.route(message, new IllegalStateException("boom")))
+				.verifyComplete();
+	}
+
+	@Test
+	void whenReplayedThenRepublishedWithoutRetryAttemptAndAcknowledged() throws Exception {
+		var channel = mock(Channel.class);
+		var properties = new AMQP.BasicProperties.Builder()
+				.headers(Map.of(DeadLetterRouter.RETRY_ATTEMPT_HEADER, 3, DeadLetterRouter.EXCEPTION_MESSAGE_HEADER, "boom"))
+				.build();
+		var body = "{\"orderId\":394}".getBytes();
+		given(channel.basicGet("order-accepted.dispatcher-service.dlq", false))
+				.willReturn(new GetResponse(new Envelope(7L, false, "", "order-accepted.dispatcher-service.dlq"), properties, body, 0))
+				.willReturn(null);
+		given(rabbitTemplate.execute(any(ChannelCallback.class)))
+				.willAnswer(invocation -> invocation.<ChannelCallback<?>>getArgument(0).doInRabbit(channel));
+
+		assertThat(deadLetterRouter.replay(10)).isEqualTo(1);
+
+		var republished = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+		verify(channel).basicPublish(eq(""), eq("order-accepted.dispatcher-service"), republished.capture(), eq(body));
+		assertThat(republished.getValue().getHeaders())
+				.doesNotContainKey(DeadLetterRouter.RETRY_ATTEMPT_HEADER)
+				.containsEntry(DeadLetterRouter.EXCEPTION_MESSAGE_HEADER, "boom");
+		verify(channel).basicAck(7L, false);
+	}
+
+	record OrderMessage (
+			Long orderId
+	){}
+
+}
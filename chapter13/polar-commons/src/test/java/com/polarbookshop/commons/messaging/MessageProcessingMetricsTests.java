@@ -0,0 +1,28 @@
+package com.polarbookshop.commons.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageProcessingMetricsTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void whenProcessedThenTimedByOutcome() {
+		StepVerifier.create(MessageProcessingMetrics.timed("pack", meterRegistry, Mono.just(394L)))
+				.expectNext(394L)
+				.verifyComplete();
+		StepVerifier.create(MessageProcessingMetrics.timed("pack", meterRegistry, Mono.error(new IllegalStateException("boom"))))
+				.verifyError(IllegalStateException.class);
+
+		assertThat(meterRegistry.get(MessageProcessingMetrics.PROCESSING_METRIC_NAME)
+				.tag("function", "pack").tag("outcome", "success").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get(MessageProcessingMetrics.PROCESSING_METRIC_NAME)
+				.tag("function", "pack").tag("outcome", "error").timer().count()).isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.polarbookshop.commons.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class MessagingAutoConfigurationTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(MessagingAutoConfiguration.class))
+			.withBean(RabbitTemplate.class, () -> mock(RabbitTemplate.class))
+			.withBean(AmqpAdmin.class, () -> mock(AmqpAdmin.class))
+			.withBean(ObjectMapper.class, ObjectMapper::new);
+
+	@Test
+	void whenQueueSetThenRetryTopologyDeclared() {
+		contextRunner.withPropertyValues("polar.messaging.queue=order-accepted.dispatcher-service",
+						"polar.messaging.max-retries=2", "polar.messaging.initial-retry-delay=1s",
+						"polar.messaging.retry-multiplier=4", "polar.messaging.replay-batch-size=100")
+				.run(context -> {
+					assertThat(context).hasSingleBean(DeadLetterRouter.class);
+					assertThat(context.getBean("retryQueues", Declarables.class).getDeclarablesByType(Queue.class))
+							.extracting(Queue::getName)
+							.containsExactly("order-accepted.dispatcher-service.retry-1", "order-accepted.dispatcher-service.retry-2");
+					assertThat(context.getBean("deadLetterQueue", Queue.class).getName())
+							.isEqualTo("order-accepted.dispatcher-service.dlq");
+					assertThat(context).doesNotHaveBean(DeadLetterEndpoint.class);
+				});
+	}
+
+	@Test
+	void whenEndpointExposedOverJmxThenRegistered() {
+		contextRunner.withPropertyValues("polar.messaging.queue=order-accepted.dispatcher-service",
+						"polar.messaging.max-retries=2", "polar.messaging.initial-retry-delay=1s",
+						"polar.messaging.retry-multiplier=4", "polar.messaging.replay-batch-size=100",
+						"spring.jmx.enabled=true", "management.endpoints.jmx.exposure.include=deadletters")
+				.run(context -> assertThat(context).hasSingleBean(DeadLetterEndpoint.class));
+	}
+
+	@Test
+	void whenInvalidSettingsThenStartupFails() {
+		contextRunner.withPropertyValues("polar.messaging.queue=order-accepted.dispatcher-service",
+						"polar.messaging.max-retries=2", "polar.messaging.initial-retry-delay=1s",
+						"polar.messaging.retry-multiplier=4", "polar.messaging.replay-batch-size=0")
+				.run(context -> assertThat(context).hasFailed());
+	}
+
+	@Test
+	void whenNoQueueThenNotConfigured() {
+		contextRunner.run(context -> assertThat(context).doesNotHaveBean(DeadLetterRouter.class));
+	}
+
+}
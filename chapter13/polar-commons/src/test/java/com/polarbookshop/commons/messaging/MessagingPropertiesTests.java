@@ -0,0 +1,43 @@
+package com.polarbookshop.commons.messaging;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MessagingPropertiesTests {
+
+	@Test
+	void retryDelayGrowsExponentially() {
+		var messagingProperties = new MessagingProperties("order-dispatched.order-service", 3, Duration.ofSeconds(1), 4, 10);
+
+		assertThat(messagingProperties.retryDelay(1)).isEqualTo(Duration.ofSeconds(1));
+		assertThat(messagingProperties.retryDelay(2)).isEqualTo(Duration.ofSeconds(4));
+		assertThat(messagingProperties.retryDelay(3)).isEqualTo(Duration.ofSeconds(16));
+	}
+
+	@Test
+	void queuesNamedAfterConsumerQueue() {
+		var messagingProperties = new MessagingProperties("order-dispatched.order-service", 3, Duration.ofSeconds(1), 4, 10);
+
+		assertThat(messagingProperties.retryQueue(2)).isEqualTo("order-dispatched.order-service.retry-2");
+		assertThat(messagingProperties.deadLetterQueue()).isEqualTo("order-dispatched.order-service.dlq");
+	}
+
+	@Test
+	void whenInvalidThenRejected() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> new MessagingProperties(" ", 3, Duration.ofSeconds(1), 4, 10));
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> new MessagingProperties("order-dispatched.order-service", -1, Duration.ofSeconds(1), 4, 10));
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> new MessagingProperties("order-dispatched.order-service", 3, null, 4, 10));
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> new MessagingProperties("order-dispatched.order-service", 3, Duration.ofSeconds(1), 0.5, 10));
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> new MessagingProperties("order-dispatched.order-service", 3, Duration.ofSeconds(1), 4, 0));
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.polarbookshop.commons.profiling;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileSummaryTests {
+
+	private static final Duration WINDOW = Duration.ofMinutes(1);
+
+	private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T10:00:00Z"));
+	private final ProfileSummary summary = new ProfileSummary(WINDOW, 2, clock);
+
+	@Test
+	void whenEventsRecordedThenTopFramesSortedAndLimited() {
+		summary.recordAllocation("BookService.viewBookList:20", 100);
+		summary.recordAllocation("BookController.get:30", 300);
+		summary.recordAllocation("BookService.viewBookList:20", 250);
+		summary.recordAllocation("HomeController.getGreeting:15", 10);
+		summary.recordExecutionSample("BookRepository.findAll:1");
+
+		var snapshot = summary.snapshot();
+
+		assertThat(entries(snapshot, "topAllocatingFrames")).containsExactly(
+				Map.of("name", "BookService.viewBookList:20", "bytes", 350L),
+				Map.of("name", "BookController.get:30", "bytes", 300L));
+		assertThat(entries(snapshot, "hottestMethods")).containsExactly(
+				Map.of("name", "BookRepository.findAll:1", "samples", 1L));
+	}
+
+	@Test
+	void whenWindowElapsedThenPreviousWindowStillIncluded() {
+		summary.recordExecutionSample("BookService.viewBookList:20");
+		clock.advance(WINDOW.plusSeconds(1));
+		summary.recordExecutionSample("BookService.viewBookList:20");
+
+		assertThat(entries(summary.snapshot(), "hottestMethods")).containsExactly(
+				Map.of("name", "BookService.viewBookList:20", "samples", 2L));
+	}
+
+	@Test
+	void whenTwoWindowsElapsedThenOldEventsDropped() {
+		summary.recordExecutionSample("BookService.viewBookList:20");
+		summary.recordGarbageCollection(Duration.ofMillis(5));
+		clock.advance(WINDOW.multipliedBy(3));
+
+		var snapshot = summary.snapshot();
+
+		assertThat(entries(snapshot, "hottestMethods")).isEmpty();
+		assertThat(snapshot.get("gc")).isEqualTo(Map.of("collections", 0L, "pauseNanos", 0L));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Map<String, Object>> entries(Map<String, Object> snapshot, String name) {
+		return (List<Map<String, Object>>) snapshot.get(name);
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant instant;
+
+		private MutableClock(Instant instant) {
+			this.instant = instant;
+		}
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.polarbookshop.commons.profiling;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfilingAutoConfigurationTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(ProfilingAutoConfiguration.class));
+
+	@Test
+	void whenEndpointExposedThenRegistered() {
+		contextRunner.withPropertyValues("management.endpoints.web.exposure.include=health,profiling")
+				.run(context -> assertThat(context).hasSingleBean(ProfilingEndpoint.class));
+	}
+
+	@Test
+	void whenEndpointDisabledThenNotRegistered() {
+		contextRunner.withPropertyValues("management.endpoints.web.exposure.include=health,profiling",
+						"management.endpoint.profiling.enabled=false")
+				.run(context -> assertThat(context).doesNotHaveBean(ProfilingEndpoint.class));
+	}
+
+	@Test
+	void whenEndpointNotExposedThenNotRegistered() {
+		contextRunner.run(context -> assertThat(context).doesNotHaveBean(ProfilingEndpoint.class));
+	}
+
+}
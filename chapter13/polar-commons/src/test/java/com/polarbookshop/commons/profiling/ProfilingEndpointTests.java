@@ -0,0 +1,53 @@
+package com.polarbookshop.commons.profiling;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfilingEndpointTests {
+
+	private final ProfilingEndpoint endpoint = new ProfilingEndpoint();
+
+	@AfterEach
+	void stopProfiling() {
+		endpoint.stop();
+	}
+
+	@Test
+	void whenStartedThenSummaryAvailable() {
+		var profile = endpoint.start(Duration.ofMinutes(1));
+
+		assertThat(profile).containsEntry("running", true).containsEntry("maxAge", Duration.ofMinutes(1));
+		assertThat(endpoint.profile()).containsKey("summary");
+	}
+
+	@Test
+	void whenStartedThenRecordingCanBeDumped() throws IOException {
+		endpoint.start(null);
+
+		var response = endpoint.recording("jfr");
+
+		assertThat(response.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+		assertThat(response.getBody().contentLength()).isPositive();
+	}
+
+	@Test
+	void whenNotStartedThenNoRecording() throws IOException {
+		assertThat(endpoint.profile()).containsEntry("running", false);
+		assertThat(endpoint.recording("jfr").getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+	}
+
+	@Test
+	void whenStoppedThenNotRunning() {
+		endpoint.start(null);
+
+		assertThat(endpoint.stop()).containsEntry("running", false);
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.polarbookshop.commons.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestBudgetTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AtomicLong nanoTime = new AtomicLong();
+	private final RequestBudget budget = new RequestBudget("polar.gateway.retries", Tags.of("route", "catalog-route"),
+			0.1, 100, 1, meterRegistry, nanoTime::get);
+
+	@Test
+	void whenNoRequestsThenOnlyMinimumAllowed() {
+		assertThat(budget.tryWithdraw()).isTrue();
+		assertThat(budget.tryWithdraw()).isFalse();
+
+		nanoTime.addAndGet(1_000_000_000L);
+		assertThat(budget.tryWithdraw()).isTrue();
+	}
+
+	@Test
+	void whenRequestsThenExtraRequestsAllowedInProportion() {
+		budget.tryWithdraw();
+		for (int i = 0; i < 20; i++) {
+			budget.deposit();
+		}
+
+		assertThat(budget.tryWithdraw()).isTrue();
+		assertThat(budget.tryWithdraw()).isTrue();
+		assertThat(budget.tryWithdraw()).isFalse();
+	}
+
+	@Test
+	void whenQuietPeriodThenBalanceCapped() {
+		var hedges = new RequestBudget("polar.client.hedges", Tags.of("client", "catalog-service"),
+				1.0, 2, 0, meterRegistry, nanoTime::get);
+		for (int i = 0; i < 10; i++) {
+			hedges.deposit();
+		}
+
+		assertThat(hedges.balance()).isEqualTo(2.0);
+		assertThat(hedges.tryWithdraw()).isTrue();
+		assertThat(hedges.tryWithdraw()).isTrue();
+		assertThat(hedges.tryWithdraw()).isFalse();
+	}
+
+	@Test
+	void whenExtraRequestsDeniedThenCounted() {
+		budget.tryWithdraw();
+		budget.tryWithdraw();
+		budget.tryWithdraw();
+
+		assertThat(meterRegistry.get("polar.gateway.retries.issued").tag("route", "catalog-route").counter().count())
+				.isEqualTo(1);
+		assertThat(meterRegistry.get("polar.gateway.retries.denied").tag("route", "catalog-route").counter().count())
+				.isEqualTo(2);
+	}
+
+}